@@ -0,0 +1,123 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import db.DB;
+import db.Dialect;
+
+/**
+ * Embedded database for the benchmarks and the conformance suite, seeded with
+ * a configurable number of rows and wired into {@code db.DB} through the
+ * {@code db.config} system property. The schema is created by the backend's
+ * own bootstrap, as in the application.
+ * <p>
+ * Backends: {@code h2-mem} (in-memory H2) and {@code h2-file} (the embedded
+ * file backend, in a temporary directory removed by {@link #close()}).
+ */
+public class BenchmarkDatabase {
+
+	public static final String[] BACKENDS = { "h2-mem", "h2-file" };
+
+	static final String URL = "jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE";
+
+	private static Path directory;
+
+	public static void create(int departments, int sellers) throws IOException, SQLException {
+		create("h2-mem", departments, sellers);
+	}
+
+	public static void create(String backend, int departments, int sellers) throws IOException, SQLException {
+		close();
+		Properties props = new Properties();
+		props.setProperty("db.backend", "h2");
+		switch (backend) {
+		case "h2-mem":
+			props.setProperty("url", URL);
+			break;
+		case "h2-file":
+			directory = Files.createTempDirectory("benchmark-db");
+			props.setProperty("h2.path", directory.resolve("bench").toString());
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown backend: " + backend);
+		}
+		props.setProperty("pool.maxSize", "4");
+		props.setProperty("pool.leakDetectionThresholdMs", "0");
+		props.setProperty("stream.fetchSize", "1000");
+		Path config = Files.createTempFile("benchmark-db", ".properties");
+		config.toFile().deleteOnExit();
+		try (OutputStream out = Files.newOutputStream(config)) {
+			props.store(out, "generated by BenchmarkDatabase");
+		}
+		System.setProperty("db.config", config.toString());
+
+		// start from an empty database; the pool recreates the schema when it starts
+		Dialect dialect = DB.getDialect();
+		try (Connection conn = DriverManager.getConnection(dialect.url(props), dialect.connectionProperties(props));
+				Statement st = conn.createStatement()) {
+			st.execute("DROP ALL OBJECTS");
+		}
+		Connection conn = DB.getConnection();
+		try {
+			seed(conn, departments, sellers);
+		} finally {
+			DB.releaseConnection(conn);
+		}
+	}
+
+	/** Closes the pool and deletes the files of an {@code h2-file} database. */
+	public static void close() throws IOException {
+		DB.closeConnection();
+		if (directory != null) {
+			try (Stream<Path> files = Files.walk(directory)) {
+				for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+					Files.delete(file);
+				}
+			}
+			directory = null;
+		}
+	}
+
+	private static void seed(Connection conn, int departments, int sellers) throws SQLException {
+		conn.setAutoCommit(false);
+		try (PreparedStatement st = conn.prepareStatement("INSERT INTO department (Name) VALUES (?)")) {
+			for (int i = 1; i <= departments; i++) {
+				st.setString(1, "Department " + i);
+				st.addBatch();
+			}
+			st.executeBatch();
+		}
+		Random random = new Random(42);
+		try (PreparedStatement st = conn.prepareStatement(
+				"INSERT INTO seller (Name, Email, BirthDate, BaseSalary, DepartmentId) VALUES (?, ?, ?, ?, ?)")) {
+			for (int i = 1; i <= sellers; i++) {
+				st.setString(1, "Seller " + Integer.toString(random.nextInt(1 << 30), 36));
+				st.setString(2, "seller" + i + "@example.com");
+				st.setDate(3, Date.valueOf(LocalDate.of(1950, 1, 1).plusDays(random.nextInt(20000))));
+				st.setDouble(4, 1000 + random.nextInt(900000) / 100.0);
+				st.setInt(5, 1 + random.nextInt(departments));
+				st.addBatch();
+				if (i % 1000 == 0) {
+					st.executeBatch();
+				}
+			}
+			st.executeBatch();
+		}
+		conn.commit();
+		conn.setAutoCommit(true);
+	}
+}
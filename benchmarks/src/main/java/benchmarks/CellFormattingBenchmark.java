@@ -0,0 +1,95 @@
+package benchmarks;
+
+import java.text.DecimalFormat;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import gui.utils.Utils;
+
+/**
+ * Formatting work of one frame of a scrolling seller table: every visible row
+ * gets its birth date and salary cell formatted again. One operation is one
+ * frame, so the GC profiler's gc.alloc.rate.norm is the allocation per frame.
+ * The legacy variant is the per-repaint code the table cells used before
+ * (String.format with a format string built each time, and a SimpleDateFormat
+ * per cell); the current one uses the formatters Utils now precompiles per
+ * column.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CellFormattingBenchmark {
+
+	private static final int ROWS = 10_000;
+
+	@Param({ "40" })
+	public int visibleRows;
+
+	private final Date[] birthDates = new Date[ROWS];
+	private final Double[] salaries = new Double[ROWS];
+	private int firstRow;
+
+	private SimpleDateFormat legacyDateFormat;
+	private DateTimeFormatter dateFormatter;
+	private DecimalFormat decimalFormat;
+
+	@Setup
+	public void setUp() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		for (int i = 0; i < ROWS; i++) {
+			birthDates[i] = new Date(random.nextLong(-1_000_000_000_000L, 1_000_000_000_000L));
+			salaries[i] = random.nextInt(100_000, 2_000_000) / 100.0;
+		}
+		legacyDateFormat = new SimpleDateFormat("dd/MM/yyyy");
+		dateFormatter = Utils.dateFormatter("dd/MM/yyyy");
+		decimalFormat = Utils.decimalFormat(2, Locale.getDefault());
+	}
+
+	@Benchmark
+	public void legacyScrollFrame(Blackhole bh) {
+		int first = nextFrame();
+		for (int row = first; row < first + visibleRows; row++) {
+			bh.consume(legacyDateFormat.format(birthDates[row]));
+			bh.consume(String.format("%." + 2 + "f", salaries[row]));
+		}
+	}
+
+	@Benchmark
+	public void scrollFrame(Blackhole bh) {
+		int first = nextFrame();
+		for (int row = first; row < first + visibleRows; row++) {
+			bh.consume(dateFormatter.format(Instant.ofEpochMilli(birthDates[row].getTime())));
+			bh.consume(decimalFormat.format(salaries[row].doubleValue()));
+		}
+	}
+
+	/** Scrolls three rows per frame and wraps around at the end. */
+	private int nextFrame() {
+		firstRow += 3;
+		if (firstRow + visibleRows > ROWS) {
+			firstRow = 0;
+		}
+		return firstRow;
+	}
+}
@@ -0,0 +1,138 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import model.dao.BatchResult;
+import model.dao.SellerSort;
+import model.dao.impl.SellerDaoImplJDBC;
+import model.entities.Department;
+import model.entities.Seller;
+
+/**
+ * End-to-end DAO calls against the seeded database, on each embedded backend.
+ * The JDBC DAO is used directly so the entity cache doesn't hide the database
+ * work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DaoBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int sellers;
+
+	@Param({ "20" })
+	public int departments;
+
+	@Param({ "100" })
+	public int batchSize;
+
+	@Param({ "h2-mem", "h2-file" })
+	public String backend;
+
+	private SellerDaoImplJDBC dao;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		BenchmarkDatabase.create(backend, departments, sellers);
+		dao = new SellerDaoImplJDBC();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		BenchmarkDatabase.close();
+	}
+
+	@Benchmark
+	public List<Seller> findAll() {
+		return dao.findAll();
+	}
+
+	@Benchmark
+	public List<Seller> findByDepartment() {
+		return dao.findByDepartment(new Department(randomDepartmentId(), null));
+	}
+
+	@Benchmark
+	public Seller findById() {
+		return dao.findById(1 + ThreadLocalRandom.current().nextInt(sellers));
+	}
+
+	@Benchmark
+	public List<Seller> findFirstPage() {
+		return dao.findPage(null, 100, SellerSort.NAME);
+	}
+
+	@Benchmark
+	public void streamAll(Blackhole bh) {
+		dao.forEach(bh::consume);
+	}
+
+	@Benchmark
+	public Seller insert() {
+		Seller seller = newSeller();
+		dao.insert(seller);
+		return seller;
+	}
+
+	@Benchmark
+	public Seller update() {
+		Seller seller = newSeller();
+		seller.setId(1 + ThreadLocalRandom.current().nextInt(sellers));
+		dao.update(seller);
+		return seller;
+	}
+
+	@Benchmark
+	public BatchResult<Seller> insertAll() {
+		List<Seller> list = new ArrayList<>(batchSize);
+		for (int i = 0; i < batchSize; i++) {
+			list.add(newSeller());
+		}
+		return dao.insertAll(list);
+	}
+
+	@Benchmark
+	public BatchResult<Seller> updateAll() {
+		List<Seller> list = new ArrayList<>(batchSize);
+		int first = 1 + ThreadLocalRandom.current().nextInt(Math.max(1, sellers - batchSize));
+		for (int i = 0; i < batchSize; i++) {
+			Seller seller = newSeller();
+			seller.setId(first + i);
+			list.add(seller);
+		}
+		return dao.updateAll(list);
+	}
+
+	private int randomDepartmentId() {
+		return 1 + ThreadLocalRandom.current().nextInt(departments);
+	}
+
+	private Seller newSeller() {
+		int n = ThreadLocalRandom.current().nextInt(1 << 30);
+		return new Seller(null, "Bench " + n, "bench" + n + "@example.com", new Date(), 2500.0,
+				new Department(randomDepartmentId(), null));
+	}
+}
@@ -0,0 +1,288 @@
+package benchmarks;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import db.TransactionManager;
+import db.exceptions.DbConflictException;
+import db.exceptions.DbIntegrityException;
+import db.exceptions.EntityNotFoundException;
+import model.dao.BatchResult;
+import model.dao.ChangeSet;
+import model.dao.ChangeToken;
+import model.dao.DepartmentDao;
+import model.dao.SellerColumn;
+import model.dao.SellerDao;
+import model.dao.SellerProjection;
+import model.dao.SellerSearchCriteria;
+import model.dao.SellerSort;
+import model.dao.impl.DepartmentDaoImplJDBC;
+import model.dao.impl.SellerDaoImplJDBC;
+import model.entities.Department;
+import model.entities.DepartmentReport;
+import model.entities.Seller;
+import model.store.SellerStore;
+
+/**
+ * Runs the {@link SellerDao} and {@link DepartmentDao} contracts against each
+ * database backend and exits with status 1 if any check fails. The backends
+ * to check can be named on the command line; all embedded ones are checked by
+ * default. Throughput per backend is measured by {@link DaoBenchmark}.
+ */
+public class DaoConformance {
+
+	private static final int SEEDED_SELLERS = 50;
+
+	private final SellerDao sellerDao = new SellerDaoImplJDBC();
+	private final DepartmentDao departmentDao = new DepartmentDaoImplJDBC();
+	private int failures;
+
+	public static void main(String[] args) throws Exception {
+		String[] backends = args.length > 0 ? args : BenchmarkDatabase.BACKENDS;
+		int failures = 0;
+		for (String backend : backends) {
+			System.out.println(backend);
+			BenchmarkDatabase.create(backend, 3, SEEDED_SELLERS);
+			try {
+				failures += new DaoConformance().run();
+			} finally {
+				BenchmarkDatabase.close();
+			}
+		}
+		System.out.println(failures == 0 ? "all checks passed" : failures + " check(s) failed");
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	private int run() {
+		Department department = new Department(null, "Conformance");
+
+		check("count and findAll see the seeded rows", () -> {
+			expectEquals(SEEDED_SELLERS, sellerDao.count(), "count");
+			expectEquals(SEEDED_SELLERS, sellerDao.findAll().size(), "findAll size");
+		});
+		check("findById returns the row with its department", () -> {
+			Seller seller = sellerDao.findById(1);
+			expectEquals(1, seller.getId(), "id");
+			expect(seller.getDepartment().getName().startsWith("Department "), "department name");
+		});
+		check("findById of a missing id throws EntityNotFoundException",
+				() -> expectThrows(EntityNotFoundException.class, () -> sellerDao.findById(-1)));
+		check("department insert assigns an id and version 0", () -> {
+			departmentDao.insert(department);
+			expect(department.getId() != null, "no id assigned");
+			Department read = departmentDao.findById(department.getId());
+			expectEquals("Conformance", read.getName(), "name");
+			expectEquals(0, read.getVersion(), "version");
+		});
+		check("update bumps the version and a stale one conflicts", () -> {
+			Department stale = departmentDao.findById(department.getId());
+			department.setName("Conformance Dept");
+			departmentDao.update(department);
+			expectEquals(1, departmentDao.findById(department.getId()).getVersion(), "version");
+			stale.setName("Lost update");
+			expectThrows(DbConflictException.class, () -> departmentDao.update(stale));
+			expectEquals("Conformance Dept", departmentDao.findById(department.getId()).getName(), "name");
+		});
+		check("seller insert round-trips every column", () -> {
+			Seller seller = newSeller("Ann", department);
+			sellerDao.insert(seller);
+			Seller read = sellerDao.findById(seller.getId());
+			expectEquals("Ann", read.getName(), "name");
+			expectEquals("ann@example.com", read.getEmail(), "email");
+			expectEquals(LocalDate.of(1990, 5, 17), toLocalDate(read.getBirthDate()), "birth date");
+			expectEquals(1234.5, read.getBaseSalary(), "base salary");
+			expectEquals(department.getId(), read.getDepartment().getId(), "department");
+			expectEquals("Conformance Dept", read.getDepartment().getName(), "department name");
+		});
+		check("findByDepartment orders by name", () -> {
+			for (String name : new String[] { "Zed", "Amy", "Mia" }) {
+				sellerDao.insert(newSeller(name, department));
+			}
+			expectEquals(Arrays.asList("Amy", "Ann", "Mia", "Zed"), names(sellerDao.findByDepartment(department)),
+					"names");
+		});
+		for (SellerSort sort : SellerSort.values()) {
+			check("findPage walks every row once in " + sort + " order", () -> {
+				List<Seller> walked = new ArrayList<>();
+				List<Seller> page = sellerDao.findPage(null, 7, sort);
+				while (!page.isEmpty()) {
+					walked.addAll(page);
+					page = sellerDao.findPage(page.get(page.size() - 1), 7, sort);
+				}
+				List<Seller> expected = new ArrayList<>(sellerDao.findAll());
+				expected.sort(sort == SellerSort.NAME
+						? Comparator.comparing(Seller::getName).thenComparing(Seller::getId)
+						: Comparator.comparing(Seller::getId));
+				expectEquals(ids(expected), ids(walked), "ids");
+				expectEquals(ids(walked.subList(14, 21)), ids(sellerDao.findPageAt(14, 7, sort)), "findPageAt");
+			});
+		}
+		check("findPage reads only the projected columns", () -> {
+			SellerProjection projection = SellerProjection.of(SellerColumn.EMAIL);
+			List<Seller> full = sellerDao.findPage(null, 5, SellerSort.NAME);
+			List<Seller> page = sellerDao.findPage(null, 5, SellerSort.NAME, projection);
+			expectEquals(ids(full), ids(page), "ids");
+			for (int i = 0; i < page.size(); i++) {
+				expectEquals(full.get(i).getEmail(), page.get(i).getEmail(), "email");
+				expectEquals(full.get(i).getName(), page.get(i).getName(), "name, read as the sort key");
+				expect(page.get(i).getBaseSalary() == null, "base salary read");
+				expect(page.get(i).getDepartment() == null, "department read");
+			}
+			expectEquals(ids(sellerDao.findPageAt(2, 3, SellerSort.ID)),
+					ids(sellerDao.findPageAt(2, 3, SellerSort.ID, projection)), "findPageAt");
+		});
+		check("search filters by prefix, salary and department", () -> {
+			SellerSearchCriteria criteria = new SellerSearchCriteria();
+			criteria.getDepartmentIds().add(department.getId());
+			criteria.setMinBaseSalary(1000.0);
+			expectEquals(Arrays.asList("Amy", "Ann", "Mia", "Zed"), names(sellerDao.search(criteria)), "department");
+			criteria.setNamePrefix("M");
+			expectEquals(Arrays.asList("Mia"), names(sellerDao.search(criteria)), "name prefix");
+			criteria.setNamePrefix("M%");
+			expectEquals(Arrays.asList(), names(sellerDao.search(criteria)), "escaped wildcard");
+		});
+		check("insertAll and updateAll report every row", () -> {
+			List<Seller> batch = new ArrayList<>();
+			for (int i = 0; i < 10; i++) {
+				batch.add(newSeller("Batch " + i, department));
+			}
+			BatchResult<Seller> inserted = sellerDao.insertAll(batch);
+			expect(!inserted.hasFailures(), "insert failures");
+			expectEquals(10, inserted.getSucceeded().size(), "inserted");
+			expect(batch.stream().allMatch(s -> s.getId() != null), "ids not assigned");
+			BatchResult<Seller> updated = sellerDao.updateAll(batch);
+			expect(!updated.hasFailures(), "update failures");
+			expect(batch.stream().allMatch(s -> s.getVersion() == 1), "versions not bumped");
+			Seller stale = sellerDao.findById(batch.get(0).getId());
+			stale.setVersion(0);
+			BatchResult<Seller> conflicting = sellerDao.updateAll(Arrays.asList(stale));
+			expect(conflicting.hasFailures(), "stale row accepted");
+			expect(conflicting.getFailures().get(0).getRejected().contains(stale), "stale row not rejected");
+		});
+		check("streamAll and findAllColumnar return the same rows as findAll", () -> {
+			Set<Integer> expected = new HashSet<>(ids(sellerDao.findAll()));
+			try (Stream<Seller> stream = sellerDao.streamAll()) {
+				expectEquals(expected, stream.map(Seller::getId).collect(Collectors.toSet()), "streamAll");
+			}
+			SellerStore store = sellerDao.findAllColumnar();
+			Set<Integer> columnar = new HashSet<>();
+			for (int row = 0; row < store.size(); row++) {
+				columnar.add(store.getId(row));
+			}
+			expectEquals(expected, columnar, "findAllColumnar");
+		});
+		check("reportByDepartment counts every seller", () -> {
+			List<DepartmentReport> reports = sellerDao.reportByDepartment(LocalDate.now());
+			expectEquals(4, reports.size(), "departments");
+			expectEquals((long) sellerDao.count(), reports.stream().mapToLong(DepartmentReport::getHeadcount).sum(),
+					"headcount");
+			DepartmentReport own = reports.stream()
+					.filter(r -> r.getDepartment().getId().equals(department.getId())).findFirst().get();
+			expectEquals(14L, own.getHeadcount(), "own headcount");
+		});
+		check("deleting a department with sellers throws DbIntegrityException",
+				() -> expectThrows(DbIntegrityException.class, () -> departmentDao.deleteById(department.getId())));
+		check("deleteById removes the row", () -> {
+			Seller seller = sellerDao.findByDepartment(department).get(0);
+			sellerDao.deleteById(seller.getId());
+			expectThrows(EntityNotFoundException.class, () -> sellerDao.findById(seller.getId()));
+		});
+		check("findChangedSince reports each change once", () -> {
+			ChangeToken token = sellerDao.currentChangeToken();
+			Seller inserted = newSeller("Delta", department);
+			sellerDao.insert(inserted);
+			Seller updated = sellerDao.findByDepartment(department).get(0);
+			updated.setName("Delta updated");
+			sellerDao.update(updated);
+			Seller deleted = sellerDao.findByDepartment(department).get(1);
+			sellerDao.deleteById(deleted.getId());
+			Seller discarded = newSeller("Delta gone", department);
+			sellerDao.insert(discarded);
+			sellerDao.deleteById(discarded.getId());
+			ChangeSet<Seller> changes = sellerDao.findChangedSince(token);
+			expectEquals(Arrays.asList(inserted.getId()), ids(changes.getInserted()), "inserted");
+			expectEquals(Arrays.asList(updated.getId()), ids(changes.getUpdated()), "updated");
+			expectEquals(Arrays.asList(deleted.getId()), changes.getDeletedIds(), "deleted");
+			expect(sellerDao.findChangedSince(changes.getToken()).isEmpty(), "changes reported twice");
+		});
+		check("a failed transaction rolls back every DAO", () -> {
+			int departments = departmentDao.findAll().size();
+			int sellers = sellerDao.count();
+			expectThrows(IllegalStateException.class, () -> TransactionManager.inTransaction(() -> {
+				Department other = new Department(null, "Rolled back");
+				departmentDao.insert(other);
+				sellerDao.insert(newSeller("Rolled back", other));
+				throw new IllegalStateException("abort");
+			}));
+			expectEquals(departments, departmentDao.findAll().size(), "departments");
+			expectEquals(sellers, sellerDao.count(), "sellers");
+		});
+		return failures;
+	}
+
+	private void check(String name, Check check) {
+		try {
+			check.run();
+			System.out.println("  ok    " + name);
+		} catch (Exception | AssertionError e) {
+			failures++;
+			System.out.println("  FAIL  " + name + ": " + e);
+		}
+	}
+
+	private interface Check {
+		void run() throws Exception;
+	}
+
+	private static void expect(boolean condition, String message) {
+		if (!condition) {
+			throw new AssertionError(message);
+		}
+	}
+
+	private static void expectEquals(Object expected, Object actual, String what) {
+		if (!expected.equals(actual)) {
+			throw new AssertionError(what + ": expected " + expected + " but was " + actual);
+		}
+	}
+
+	private static void expectThrows(Class<? extends Throwable> type, Runnable action) {
+		try {
+			action.run();
+		} catch (Throwable e) {
+			if (type.isInstance(e)) {
+				return;
+			}
+			throw new AssertionError("expected " + type.getSimpleName() + " but got " + e, e);
+		}
+		throw new AssertionError("expected " + type.getSimpleName() + " but nothing was thrown");
+	}
+
+	private static Seller newSeller(String name, Department department) {
+		Date birthDate = Date.from(LocalDate.of(1990, 5, 17).atStartOfDay(ZoneId.systemDefault()).toInstant());
+		return new Seller(null, name, name.toLowerCase().replace(' ', '.') + "@example.com", birthDate, 1234.5,
+				department);
+	}
+
+	private static LocalDate toLocalDate(Date date) {
+		return date instanceof java.sql.Date ? ((java.sql.Date) date).toLocalDate()
+				: LocalDate.ofInstant(date.toInstant(), ZoneId.systemDefault());
+	}
+
+	private static List<Integer> ids(List<Seller> sellers) {
+		return sellers.stream().map(Seller::getId).collect(Collectors.toList());
+	}
+
+	private static List<String> names(List<Seller> sellers) {
+		return sellers.stream().map(Seller::getName).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,101 @@
+package benchmarks;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.services.Parsers;
+
+/**
+ * The non-throwing parsers used by the forms and the import, on both valid
+ * and invalid input. The legacy variants are the exception-driven versions
+ * they replaced, kept here for comparison.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParsersBenchmark {
+
+	public String validInt = "123456";
+	public String invalidInt = "12a456";
+	public String validDouble = "4321.75";
+	public String invalidDouble = "4321,75";
+	public String validDate = "25/12/1990";
+	public String invalidDate = "1990-12-25";
+
+	@Benchmark
+	public Integer tryParseToIntValid() {
+		return Parsers.tryParseToInt(validInt);
+	}
+
+	@Benchmark
+	public Integer tryParseToIntInvalid() {
+		return Parsers.tryParseToInt(invalidInt);
+	}
+
+	@Benchmark
+	public Double tryParseToDoubleValid() {
+		return Parsers.tryParseToDouble(validDouble);
+	}
+
+	@Benchmark
+	public Double tryParseToDoubleInvalid() {
+		return Parsers.tryParseToDouble(invalidDouble);
+	}
+
+	@Benchmark
+	public Date tryParseToDateValid() {
+		return Parsers.tryParseToDate(validDate, "dd/MM/yyyy");
+	}
+
+	@Benchmark
+	public Date tryParseToDateInvalid() {
+		return Parsers.tryParseToDate(invalidDate, "dd/MM/yyyy");
+	}
+
+	@Benchmark
+	public Integer legacyTryParseToIntInvalid() {
+		try {
+			return Integer.parseInt(invalidInt);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	@Benchmark
+	public Double legacyTryParseToDoubleInvalid() {
+		try {
+			return Double.parseDouble(invalidDouble);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	@Benchmark
+	public Date legacyTryParseToDateValid() throws ParseException {
+		return new SimpleDateFormat("dd/MM/yyyy").parse(validDate);
+	}
+
+	@Benchmark
+	public Date legacyTryParseToDateInvalid() {
+		try {
+			return new SimpleDateFormat("dd/MM/yyyy").parse(invalidDate);
+		} catch (ParseException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package model.dao.impl;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.entities.Department;
+import model.entities.Seller;
+
+/**
+ * Result-set mapping on its own: {@code SellerDaoImplJDBC.instantiateSellers}
+ * against a hand-written mapper, over an in-memory result set, so no database
+ * time is included. Lives in the DAO package to reach the package-private
+ * mapper.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int rows;
+
+	@Param({ "20" })
+	public int departments;
+
+	private SimpleResultSet rs;
+	private final SellerDaoImplJDBC dao = new SellerDaoImplJDBC();
+
+	@Setup
+	public void setUp() {
+		rs = new SimpleResultSet();
+		rs.setAutoClose(false);
+		rs.addColumn("Id", Types.INTEGER, 10, 0);
+		rs.addColumn("Name", Types.VARCHAR, 60, 0);
+		rs.addColumn("Email", Types.VARCHAR, 100, 0);
+		rs.addColumn("BirthDate", Types.DATE, 10, 0);
+		rs.addColumn("BaseSalary", Types.DOUBLE, 17, 0);
+		rs.addColumn("DepartmentId", Types.INTEGER, 10, 0);
+		rs.addColumn("DepartmentName", Types.VARCHAR, 60, 0);
+		rs.addColumn("Version", Types.INTEGER, 10, 0);
+		Random random = new Random(42);
+		for (int i = 1; i <= rows; i++) {
+			int department = 1 + random.nextInt(departments);
+			rs.addRow(i, "Seller " + i, "seller" + i + "@example.com",
+					Date.valueOf(LocalDate.of(1950, 1, 1).plusDays(random.nextInt(20000))),
+					1000 + random.nextInt(900000) / 100.0, department, "Department " + department, 0);
+		}
+	}
+
+	/** The DAO's mapper, generated by {@link EntityMapper}. */
+	@Benchmark
+	public List<Seller> generated() throws SQLException {
+		rs.beforeFirst();
+		return dao.instantiateSellers(rs);
+	}
+
+	/** The same mapping written out by hand, as the DAO did before. */
+	@Benchmark
+	public List<Seller> handWritten() throws SQLException {
+		rs.beforeFirst();
+		List<Seller> list = new ArrayList<>();
+		Map<Integer, Department> departments = new HashMap<>();
+		while (rs.next()) {
+			int departmentId = rs.getInt(6);
+			Department d = departments.get(departmentId);
+			if (d == null) {
+				d = new Department(departmentId, rs.getString(7));
+				departments.put(departmentId, d);
+			}
+			Seller obj = new Seller(rs.getInt(1), rs.getString(2), rs.getString(3),
+					new java.util.Date(rs.getDate(4).getTime()), rs.getDouble(5), d);
+			obj.setVersion(rs.getInt(8));
+			list.add(obj);
+		}
+		return list;
+	}
+}
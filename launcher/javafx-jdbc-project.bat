@@ -0,0 +1,7 @@
+@echo off
+rem Starts the application from a runtime image built with "mvn clean package -Pdist".
+rem Uses the AppCDS archive produced by the -Pcds training run when it is present.
+set HOME_DIR=%~dp0..
+set CDS_OPTS=
+if exist "%HOME_DIR%\lib\app.jsa" set CDS_OPTS=-XX:SharedArchiveFile="%HOME_DIR%\lib\app.jsa" -Xshare:auto
+"%HOME_DIR%\bin\java" %CDS_OPTS% %JAVA_OPTS% -cp "%HOME_DIR%\lib\app\*" -m javafx_jdbc_project/application.Main %*
@@ -0,0 +1,8 @@
+-- Indexes backing SellerDao.search() and the keyset-paginated seller list.
+-- (Name, Id) also serves the NAME ordering used by findPage().
+
+CREATE INDEX idx_seller_name_id ON seller (Name, Id);
+CREATE INDEX idx_seller_email ON seller (Email);
+CREATE INDEX idx_seller_base_salary ON seller (BaseSalary);
+CREATE INDEX idx_seller_birth_date ON seller (BirthDate);
+CREATE INDEX idx_seller_department_name_id ON seller (DepartmentId, Name, Id);
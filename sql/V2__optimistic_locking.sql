@@ -0,0 +1,5 @@
+-- Row versions for optimistic locking. Every UPDATE checks the version it read
+-- and increments it, so concurrent edits are detected instead of overwritten.
+
+ALTER TABLE department ADD COLUMN Version INT NOT NULL DEFAULT 0;
+ALTER TABLE seller ADD COLUMN Version INT NOT NULL DEFAULT 0;
@@ -0,0 +1,15 @@
+-- Change log read by SellerDao.findChangedSince(). The DAOs add a row for every
+-- department and seller they insert (I), update (U) or delete (D), in the same
+-- transaction as the write; Seq orders the changes and ChangedAt lets old
+-- entries be pruned.
+
+CREATE TABLE change_log (
+  Seq BIGINT NOT NULL AUTO_INCREMENT,
+  TableName VARCHAR(30) NOT NULL,
+  RowId INT NOT NULL,
+  Op CHAR(1) NOT NULL,
+  ChangedAt TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+  PRIMARY KEY (Seq)
+);
+
+CREATE INDEX idx_change_log_changed_at ON change_log (ChangedAt);
@@ -0,0 +1,12 @@
+-- Journal entries applied by write-behind sync batches, inserted in the same
+-- transaction as the batch so a batch that committed isn't applied again after
+-- a crash. Each client keeps at most one batch worth of rows, under the id of
+-- its journal; rows of a journal that is never used again can be deleted.
+
+CREATE TABLE write_behind_applied (
+  JournalId CHAR(36) NOT NULL,
+  Seq BIGINT NOT NULL,
+  InsertedId INT NULL,
+  Conflict VARCHAR(500) NULL,
+  PRIMARY KEY (JournalId, Seq)
+);
@@ -1,13 +1,22 @@
 package application;
 	
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 
+import db.DB;
+import gui.MainViewController;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.layout.Border;
 import javafx.stage.Stage;
+import model.services.ServiceExecutor;
+import model.sync.WriteBehind;
 
 
 public class Main extends Application {
@@ -28,11 +37,60 @@ public class Main extends Application {
 			stage.setTitle("Sample JavaFX application");
 			stage.setScene(scene);
 			stage.show();
+
+			if (Boolean.getBoolean("app.startupTiming")) {
+				reportFirstFrame();
+			}
+			if (Boolean.getBoolean("app.training")) {
+				runTrainingSession(fxmlLoader.getController());
+			}
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 
+	@Override
+	public void stop() {
+		WriteBehind.shutdown();
+		ServiceExecutor.shutdown();
+		DB.closeConnection();
+	}
+
+	/**
+	 * Prints how long after JVM start the first frame was laid out; run with
+	 * -Dapp.startupTiming=true to compare startup with and without the CDS
+	 * archive.
+	 */
+	private void reportFirstFrame() {
+		scene.addPostLayoutPulseListener(new Runnable() {
+			private boolean reported;
+
+			@Override
+			public void run() {
+				if (reported) {
+					return;
+				}
+				reported = true;
+				Platform.runLater(() -> scene.removePostLayoutPulseListener(this));
+				ProcessHandle.current().info().startInstant().ifPresent(start -> System.out.println(
+						"Startup: first frame after " + Duration.between(start, Instant.now()).toMillis() + " ms"));
+			}
+		});
+	}
+
+	/**
+	 * Opens the seller and department views and exits. Used with
+	 * -XX:ArchiveClassesAtExit to record the classes of a typical session in
+	 * the AppCDS archive.
+	 */
+	private void runTrainingSession(MainViewController controller) {
+		Timeline training = new Timeline(
+				new KeyFrame(javafx.util.Duration.seconds(1), e -> controller.onMenuItemSellerAction()),
+				new KeyFrame(javafx.util.Duration.seconds(3), e -> controller.onMenuItemDepartmentAction()),
+				new KeyFrame(javafx.util.Duration.seconds(5), e -> Platform.exit()));
+		training.play();
+	}
+
 	public static Scene getScene() {
 		return scene;
 	}
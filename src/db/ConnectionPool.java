@@ -0,0 +1,220 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import db.exceptions.DbException;
+
+/**
+ * Bounded pool of physical connections. Callers borrow a connection with
+ * {@link #borrow()} and give it back by calling {@link Connection#close()} on
+ * the handle they received; the physical connection stays open and goes back to
+ * the idle queue.
+ */
+public class ConnectionPool {
+
+	private static final Logger LOG = Logger.getLogger(ConnectionPool.class.getName());
+
+	private final String url;
+	private final Properties connectionProps;
+	private final int minSize;
+	private final int maxSize;
+	private final long acquireTimeoutMillis;
+	private final long idleTimeoutMillis;
+	private final long validateAfterIdleMillis;
+	private final int validationTimeoutSeconds;
+	private final long leakDetectionThresholdMillis;
+	private final int statementCacheSize;
+
+	private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+	private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger total = new AtomicInteger();
+	private final Semaphore permits;
+	private final ScheduledExecutorService housekeeper;
+	private volatile boolean shutdown;
+
+	public ConnectionPool(Properties props, Dialect dialect) {
+		url = dialect.url(props);
+		connectionProps = dialect.connectionProperties(props);
+		minSize = DB.intProperty(props, "pool.minSize", 1);
+		maxSize = DB.intProperty(props, "pool.maxSize", 8);
+		acquireTimeoutMillis = DB.intProperty(props, "pool.acquireTimeoutMs", 10000);
+		idleTimeoutMillis = DB.intProperty(props, "pool.idleTimeoutMs", 300000);
+		validateAfterIdleMillis = DB.intProperty(props, "pool.validateAfterIdleMs", 1000);
+		validationTimeoutSeconds = DB.intProperty(props, "pool.validationTimeoutSec", 2);
+		leakDetectionThresholdMillis = DB.intProperty(props, "pool.leakDetectionThresholdMs", 60000);
+		statementCacheSize = DB.intProperty(props, "pool.statementCacheSize", 32);
+		if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+			throw new DbException("Invalid pool size: min = " + minSize + ", max = " + maxSize);
+		}
+		permits = new Semaphore(maxSize, true);
+
+		housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "db-pool-housekeeper");
+			t.setDaemon(true);
+			return t;
+		});
+		long period = Math.max(1000, Math.min(idleTimeoutMillis, 30000) / 2);
+		housekeeper.scheduleWithFixedDelay(this::housekeep, 0, period, TimeUnit.MILLISECONDS);
+	}
+
+	public Connection borrow() {
+		if (shutdown) {
+			throw new DbException("Connection pool is shut down");
+		}
+		try {
+			if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				throw new DbException("Timed out after " + acquireTimeoutMillis
+						+ " ms waiting for a database connection (pool size " + maxSize + ")");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DbException("Interrupted while waiting for a database connection");
+		}
+		try {
+			PooledConnection pc;
+			while ((pc = idle.pollFirst()) != null) {
+				if (isUsable(pc)) {
+					return lease(pc);
+				}
+				destroy(pc);
+			}
+			return lease(create());
+		} catch (RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	void release(PooledConnection pc) {
+		borrowed.remove(pc);
+		try {
+			if (pc.resetAfterUse()) {
+				pc.touch();
+				idle.offerFirst(pc);
+			} else {
+				destroy(pc);
+			}
+		} finally {
+			permits.release();
+		}
+		if (shutdown) {
+			closeIdle();
+		}
+	}
+
+	public int getActiveCount() {
+		return borrowed.size();
+	}
+
+	public int getIdleCount() {
+		return idle.size();
+	}
+
+	public int getTotalCount() {
+		return total.get();
+	}
+
+	public void shutdown() {
+		shutdown = true;
+		housekeeper.shutdownNow();
+		closeIdle();
+	}
+
+	private Connection lease(PooledConnection pc) {
+		borrowed.add(pc);
+		return pc.lease(leakDetectionThresholdMillis > 0);
+	}
+
+	private PooledConnection create() {
+		try {
+			Connection physical = DriverManager.getConnection(url, connectionProps);
+			total.incrementAndGet();
+			return new PooledConnection(this, physical, statementCacheSize);
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		}
+	}
+
+	private boolean isUsable(PooledConnection pc) {
+		if (pc.idleMillis() < validateAfterIdleMillis) {
+			return true;
+		}
+		try {
+			return pc.getPhysical().isValid(validationTimeoutSeconds);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private void destroy(PooledConnection pc) {
+		total.decrementAndGet();
+		pc.closePhysical();
+	}
+
+	private void closeIdle() {
+		PooledConnection pc;
+		while ((pc = idle.pollFirst()) != null) {
+			destroy(pc);
+		}
+	}
+
+	private void housekeep() {
+		try {
+			evictIdle();
+			fillToMinimum();
+			detectLeaks();
+		} catch (RuntimeException e) {
+			LOG.log(Level.WARNING, "Connection pool housekeeping failed", e);
+		}
+	}
+
+	private void evictIdle() {
+		if (idleTimeoutMillis <= 0) {
+			return;
+		}
+		for (PooledConnection pc : idle) {
+			if (total.get() <= minSize) {
+				return;
+			}
+			if (pc.idleMillis() > idleTimeoutMillis && idle.remove(pc)) {
+				destroy(pc);
+			}
+		}
+	}
+
+	private void fillToMinimum() {
+		while (!shutdown && total.get() < minSize && permits.tryAcquire()) {
+			try {
+				idle.offerLast(create());
+			} finally {
+				permits.release();
+			}
+		}
+	}
+
+	private void detectLeaks() {
+		if (leakDetectionThresholdMillis <= 0) {
+			return;
+		}
+		for (PooledConnection pc : borrowed) {
+			if (pc.borrowedMillis() > leakDetectionThresholdMillis && pc.markLeakReported()) {
+				LOG.log(Level.WARNING, "Connection held for " + pc.borrowedMillis()
+						+ " ms without being returned to the pool; possible leak", pc.getBorrowTrace());
+			}
+		}
+	}
+}
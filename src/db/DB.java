@@ -3,7 +3,6 @@ package db;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -13,10 +12,12 @@ import db.exceptions.DbException;
 
 public class DB {
 
-	private static Connection conn = null;
+	private static Properties props = null;
+	private static ConnectionPool pool = null;
+	private static Dialect dialect = null;
 
 	private static Properties loadProps() {
-		try (FileInputStream fs = new FileInputStream("db.properties")) {
+		try (FileInputStream fs = new FileInputStream(System.getProperty("db.config", "db.properties"))) {
 			Properties props = new Properties();
 			props.load(fs);
 			return props;
@@ -25,20 +26,88 @@ public class DB {
 		}
 	}
 
+	public static synchronized Properties getProperties() {
+		if (props == null) {
+			props = loadProps();
+		}
+		return props;
+	}
+
+	public static int getIntProperty(String key, int defaultValue) {
+		return intProperty(getProperties(), key, defaultValue);
+	}
+
+	static int intProperty(Properties props, String key, int defaultValue) {
+		String value = props.getProperty(key);
+		if (value == null || value.isBlank()) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			throw new DbException("Invalid value for " + key + ": " + value);
+		}
+	}
+
+	/** The backend named by {@code db.backend}, MySQL when unset. */
+	public static synchronized Dialect getDialect() {
+		if (dialect == null) {
+			dialect = Dialect.forName(getProperties().getProperty("db.backend", "mysql"));
+		}
+		return dialect;
+	}
+
+	public static synchronized ConnectionPool getPool() {
+		if (pool == null) {
+			pool = startPool(getProperties(), getDialect());
+		}
+		return pool;
+	}
+
+	private static ConnectionPool startPool(Properties props, Dialect dialect) {
+		ConnectionPool started = new ConnectionPool(props, dialect);
+		Connection conn = started.borrow();
+		boolean ready = false;
+		try {
+			dialect.bootstrap(conn);
+			ready = true;
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		} finally {
+			releaseConnection(conn);
+			if (!ready) {
+				started.shutdown();
+			}
+		}
+		return started;
+	}
+
+	/**
+	 * Borrows a connection from the pool. Every caller must hand it back with
+	 * {@link #releaseConnection(Connection)} once the operation is over. Inside
+	 * {@link TransactionManager#inTransaction} this is the transaction's
+	 * connection instead.
+	 */
 	public static Connection getConnection() {
-		if (conn == null) {
+		Connection conn = TransactionManager.currentConnection();
+		return conn != null ? conn : getPool().borrow();
+	}
+
+	/**
+	 * Rolls back after a failed write, keeping the original error: a failure
+	 * of the rollback itself is only printed.
+	 */
+	public static void rollback(Connection conn) {
+		if (conn != null) {
 			try {
-				Properties props = loadProps();
-				String url = props.getProperty("url");
-				conn = DriverManager.getConnection(url, props);
+				conn.rollback();
 			} catch (SQLException e) {
-				throw new DbException(e.getMessage());
+				e.printStackTrace();
 			}
 		}
-		return conn;
 	}
 
-	public static void closeConnection() {
+	public static void releaseConnection(Connection conn) {
 		if (conn != null) {
 			try {
 				conn.close();
@@ -48,6 +117,16 @@ public class DB {
 		}
 	}
 
+	/** Closes the pool; the next connection reloads the configuration. */
+	public static synchronized void closeConnection() {
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+		props = null;
+		dialect = null;
+	}
+
 	public static void closeStatement(PreparedStatement st) {
 		if (st != null) {
 			try {
@@ -0,0 +1,40 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+
+import db.exceptions.DbException;
+
+/**
+ * What differs between the databases the DAOs can run on, selected with
+ * {@code db.backend}. The DAO SQL sticks to what MySQL and H2 in MySQL mode
+ * both accept; opening connections, streaming reads and creating the schema
+ * go through here.
+ */
+public interface Dialect {
+
+	static Dialect forName(String backend) {
+		switch (backend.trim().toLowerCase()) {
+		case "mysql":
+			return new MySqlDialect();
+		case "h2":
+			return new H2Dialect();
+		default:
+			throw new DbException("Unknown db.backend: " + backend);
+		}
+	}
+
+	String getName();
+
+	String url(Properties props);
+
+	/** Properties handed to the driver with the url. */
+	Properties connectionProperties(Properties props);
+
+	/** Fetch size for a streamed read, given the configured {@code stream.fetchSize}. */
+	int streamingFetchSize(int configured);
+
+	/** Creates whatever part of the schema is missing; runs once when the pool starts. */
+	void bootstrap(Connection conn) throws SQLException;
+}
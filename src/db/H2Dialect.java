@@ -0,0 +1,74 @@
+package db;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+import db.exceptions.DbException;
+
+/**
+ * Embedded H2 database in MySQL mode, kept in a local file so the application
+ * works without a server. The file is {@code h2.path} (default
+ * {@code data/coursejdbc}, relative to the working directory) unless
+ * {@code url} is itself an H2 url; the tables are created on first use.
+ */
+public class H2Dialect implements Dialect {
+
+	private static final String OPTIONS = ";MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+
+	@Override
+	public String getName() {
+		return "h2";
+	}
+
+	@Override
+	public String url(Properties props) {
+		String url = props.getProperty("url", "");
+		if (url.startsWith("jdbc:h2:")) {
+			return url;
+		}
+		String path = props.getProperty("h2.path", "data/coursejdbc").trim();
+		return "jdbc:h2:file:" + Paths.get(path).toAbsolutePath() + OPTIONS;
+	}
+
+	/** Its own credentials, so the MySQL user and password don't leak into the local file. */
+	@Override
+	public Properties connectionProperties(Properties props) {
+		Properties connectionProps = new Properties();
+		connectionProps.setProperty("user", props.getProperty("h2.user", "sa"));
+		connectionProps.setProperty("password", props.getProperty("h2.password", ""));
+		return connectionProps;
+	}
+
+	@Override
+	public int streamingFetchSize(int configured) {
+		return Math.max(0, configured);
+	}
+
+	@Override
+	public void bootstrap(Connection conn) throws SQLException {
+		try (Statement st = conn.createStatement()) {
+			for (String sql : readSchema().split(";")) {
+				if (!sql.isBlank()) {
+					st.execute(sql);
+				}
+			}
+		}
+	}
+
+	private static String readSchema() {
+		try (InputStream in = H2Dialect.class.getResourceAsStream("schema-h2.sql")) {
+			if (in == null) {
+				throw new DbException("schema-h2.sql is missing from the application");
+			}
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new DbException(e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package db;
+
+import java.sql.Connection;
+import java.util.Properties;
+
+/**
+ * The MySQL server the application was written for. The schema is managed
+ * outside the application (see the scripts in {@code sql/}).
+ */
+public class MySqlDialect implements Dialect {
+
+	@Override
+	public String getName() {
+		return "mysql";
+	}
+
+	@Override
+	public String url(Properties props) {
+		return props.getProperty("url");
+	}
+
+	@Override
+	public Properties connectionProperties(Properties props) {
+		Properties connectionProps = new Properties();
+		for (String key : props.stringPropertyNames()) {
+			// dotted keys (pool.*, cache.*, ...) are application settings, not driver properties
+			if (!key.contains(".") && !key.equals("url")) {
+				connectionProps.setProperty(key, props.getProperty(key));
+			}
+		}
+		return connectionProps;
+	}
+
+	/** Connector/J only streams row by row when asked for {@code Integer.MIN_VALUE}. */
+	@Override
+	public int streamingFetchSize(int configured) {
+		return configured > 0 ? configured : Integer.MIN_VALUE;
+	}
+
+	@Override
+	public void bootstrap(Connection conn) {
+	}
+}
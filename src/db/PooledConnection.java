@@ -0,0 +1,149 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import db.metrics.DbMetrics;
+
+/**
+ * A physical connection owned by a {@link ConnectionPool}. Each borrow hands
+ * out a fresh proxy handle whose {@code close()} returns the connection to the
+ * pool; a handle can't be used again once it has been closed. Prepared
+ * statements go through a per-connection {@link StatementCache} and are
+ * instrumented by {@link DbMetrics}.
+ */
+class PooledConnection {
+
+	private static final Logger LOG = Logger.getLogger(PooledConnection.class.getName());
+
+	private final ConnectionPool pool;
+	private final Connection physical;
+	private final StatementCache statementCache;
+	private volatile long lastUsed = System.currentTimeMillis();
+	private volatile long borrowedAt;
+	private volatile Throwable borrowTrace;
+	private final AtomicBoolean leakReported = new AtomicBoolean();
+
+	PooledConnection(ConnectionPool pool, Connection physical, int statementCacheSize) {
+		this.pool = pool;
+		this.physical = physical;
+		this.statementCache = statementCacheSize > 0 ? new StatementCache(statementCacheSize) : null;
+	}
+
+	Connection getPhysical() {
+		return physical;
+	}
+
+	Connection lease(boolean traceBorrow) {
+		borrowedAt = System.currentTimeMillis();
+		borrowTrace = traceBorrow ? new Throwable("Connection borrowed here") : null;
+		leakReported.set(false);
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, new Handle());
+	}
+
+	void touch() {
+		lastUsed = System.currentTimeMillis();
+	}
+
+	long idleMillis() {
+		return System.currentTimeMillis() - lastUsed;
+	}
+
+	long borrowedMillis() {
+		return System.currentTimeMillis() - borrowedAt;
+	}
+
+	Throwable getBorrowTrace() {
+		return borrowTrace;
+	}
+
+	boolean markLeakReported() {
+		return leakReported.compareAndSet(false, true);
+	}
+
+	/**
+	 * Rolls back whatever the borrower left uncommitted and restores auto-commit,
+	 * so the next borrower starts from a clean state. Returns false when the
+	 * connection is no longer fit for reuse.
+	 */
+	boolean resetAfterUse() {
+		try {
+			if (physical.isClosed()) {
+				return false;
+			}
+			if (!physical.getAutoCommit()) {
+				physical.rollback();
+				physical.setAutoCommit(true);
+			}
+			physical.clearWarnings();
+			return true;
+		} catch (SQLException e) {
+			LOG.log(Level.FINE, "Discarding connection that failed to reset", e);
+			return false;
+		}
+	}
+
+	void closePhysical() {
+		if (statementCache != null) {
+			statementCache.closeAll();
+		}
+		try {
+			physical.close();
+		} catch (SQLException e) {
+			LOG.log(Level.FINE, "Error closing physical connection", e);
+		}
+	}
+
+	private class Handle implements InvocationHandler {
+
+		private boolean closed;
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "close":
+				if (!closed) {
+					closed = true;
+					pool.release(PooledConnection.this);
+				}
+				return null;
+			case "isClosed":
+				return closed || physical.isClosed();
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "Pooled[" + physical + "]";
+			default:
+				if (closed) {
+					throw new SQLException("Connection has already been returned to the pool");
+				}
+				Object result = null;
+				if (statementCache != null && method.getName().equals("prepareStatement")) {
+					result = statementCache.prepare(physical, (Connection) proxy, args);
+				}
+				if (result == null) {
+					try {
+						result = method.invoke(physical, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				}
+				if (method.getName().equals("prepareStatement")) {
+					return DbMetrics.instrument((PreparedStatement) result, (String) args[0]);
+				}
+				return result;
+			}
+		}
+	}
+}
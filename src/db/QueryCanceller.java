@@ -0,0 +1,67 @@
+package db;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Supplier;
+
+import db.exceptions.DbException;
+
+/**
+ * Lets another thread cancel the statement a piece of work is running. The
+ * work runs through {@link #run(Supplier)}; DAO methods that support
+ * cancellation register their statement with {@link #register(Statement)}
+ * before executing it and {@link #unregister()} before closing it.
+ */
+public class QueryCanceller {
+
+	private static final ThreadLocal<QueryCanceller> CURRENT = new ThreadLocal<>();
+
+	private Statement statement;
+	private boolean cancelled;
+
+	public <T> T run(Supplier<T> work) {
+		CURRENT.set(this);
+		try {
+			return work.get();
+		} finally {
+			unregister();
+			CURRENT.remove();
+		}
+	}
+
+	public synchronized void cancel() {
+		cancelled = true;
+		if (statement != null) {
+			try {
+				statement.cancel();
+			} catch (SQLException e) {
+				// the statement may have finished in the meantime
+			}
+		}
+	}
+
+	public synchronized boolean isCancelled() {
+		return cancelled;
+	}
+
+	public static void register(Statement st) {
+		QueryCanceller canceller = CURRENT.get();
+		if (canceller != null) {
+			synchronized (canceller) {
+				if (canceller.cancelled) {
+					throw new DbException("Query was cancelled");
+				}
+				canceller.statement = st;
+			}
+		}
+	}
+
+	public static void unregister() {
+		QueryCanceller canceller = CURRENT.get();
+		if (canceller != null) {
+			synchronized (canceller) {
+				canceller.statement = null;
+			}
+		}
+	}
+}
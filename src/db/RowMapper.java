@@ -0,0 +1,12 @@
+package db;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Turns the current row of a result set into an object.
+ */
+public interface RowMapper<T> {
+
+	T map(ResultSet rs) throws SQLException;
+}
@@ -0,0 +1,226 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * LRU cache of prepared statements for one physical connection, keyed by SQL
+ * text and statement options. A statement is taken out of the cache while a
+ * caller uses it and put back when the caller closes its handle, with its
+ * parameters and batch cleared and any fetch size, row limit or timeout the
+ * caller set restored; a statement whose other options were changed is closed
+ * instead. Every cached statement is closed with the connection.
+ */
+class StatementCache {
+
+	private static final Logger LOG = Logger.getLogger(StatementCache.class.getName());
+
+	/** Setters whose value is put back before a statement is reused, with the getter that reads it. */
+	private static final Map<String, String> RESTORED = Map.of("setFetchSize", "getFetchSize", "setFetchDirection",
+			"getFetchDirection", "setMaxRows", "getMaxRows", "setLargeMaxRows", "getLargeMaxRows", "setMaxFieldSize",
+			"getMaxFieldSize", "setQueryTimeout", "getQueryTimeout");
+
+	/** Options that can't be read back; a statement they were changed on isn't reused. */
+	private static final Set<String> NOT_RESTORED = Set.of("setEscapeProcessing", "setPoolable", "setCursorName",
+			"closeOnCompletion");
+
+	private final int maxSize;
+	private final Map<Key, PreparedStatement> statements;
+	private boolean closed;
+
+	StatementCache(int maxSize) {
+		this.maxSize = maxSize;
+		this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+				if (size() > StatementCache.this.maxSize) {
+					closeQuietly(eldest.getValue());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Returns a handle for the statement matching the arguments of one of the
+	 * {@code Connection.prepareStatement} overloads, preparing it on
+	 * {@code physical} on a miss. Returns null for overloads that aren't cached.
+	 */
+	PreparedStatement prepare(Connection physical, Connection handle, Object[] args) throws SQLException {
+		Key key = Key.of(args);
+		if (key == null) {
+			return null;
+		}
+		PreparedStatement st;
+		synchronized (this) {
+			st = statements.remove(key);
+		}
+		if (st == null || st.isClosed()) {
+			st = key.prepare(physical);
+		}
+		return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+				new Class<?>[] { PreparedStatement.class }, new Handle(key, st, handle));
+	}
+
+	synchronized void closeAll() {
+		closed = true;
+		for (PreparedStatement st : statements.values()) {
+			closeQuietly(st);
+		}
+		statements.clear();
+	}
+
+	private void giveBack(Key key, PreparedStatement st, Map<Method, Object> originals, boolean reusable) {
+		try {
+			if (reusable && !st.isClosed()) {
+				st.clearBatch();
+				st.clearParameters();
+				st.clearWarnings();
+				for (Map.Entry<Method, Object> original : originals.entrySet()) {
+					original.getKey().invoke(st, original.getValue());
+				}
+				synchronized (this) {
+					if (!closed && !statements.containsKey(key)) {
+						statements.put(key, st);
+						return;
+					}
+				}
+			}
+		} catch (SQLException | ReflectiveOperationException e) {
+			LOG.log(Level.FINE, "Discarding statement that failed to reset", e);
+		}
+		closeQuietly(st);
+	}
+
+	private static void closeQuietly(PreparedStatement st) {
+		try {
+			st.close();
+		} catch (SQLException e) {
+			LOG.log(Level.FINE, "Error closing cached statement", e);
+		}
+	}
+
+	private class Handle implements InvocationHandler {
+
+		private final Key key;
+		private final PreparedStatement st;
+		private final Connection connection;
+		private final Map<Method, Object> originals = new LinkedHashMap<>();
+		private boolean reusable = true;
+		private boolean closed;
+
+		Handle(Key key, PreparedStatement st, Connection connection) {
+			this.key = key;
+			this.st = st;
+			this.connection = connection;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "close":
+				if (!closed) {
+					closed = true;
+					giveBack(key, st, originals, reusable);
+				}
+				return null;
+			case "isClosed":
+				return closed || st.isClosed();
+			case "getConnection":
+				return connection;
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "Cached[" + st + "]";
+			default:
+				if (closed) {
+					throw new SQLException("Statement has already been closed");
+				}
+				try {
+					String getter = RESTORED.get(method.getName());
+					if (getter != null && !originals.containsKey(method)) {
+						originals.put(method, PreparedStatement.class.getMethod(getter).invoke(st));
+					} else if (NOT_RESTORED.contains(method.getName())) {
+						reusable = false;
+					}
+					return method.invoke(st, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+			}
+		}
+	}
+
+	private static class Key {
+
+		private final String sql;
+		private final int autoGeneratedKeys;
+		private final int resultSetType;
+		private final int resultSetConcurrency;
+
+		private Key(String sql, int autoGeneratedKeys, int resultSetType, int resultSetConcurrency) {
+			this.sql = sql;
+			this.autoGeneratedKeys = autoGeneratedKeys;
+			this.resultSetType = resultSetType;
+			this.resultSetConcurrency = resultSetConcurrency;
+		}
+
+		static Key of(Object[] args) {
+			if (args == null || !(args[0] instanceof String)) {
+				return null;
+			}
+			String sql = (String) args[0];
+			if (args.length == 1) {
+				return new Key(sql, -1, -1, -1);
+			}
+			if (args.length == 2 && args[1] instanceof Integer) {
+				return new Key(sql, (Integer) args[1], -1, -1);
+			}
+			if (args.length == 3 && args[1] instanceof Integer && args[2] instanceof Integer) {
+				return new Key(sql, -1, (Integer) args[1], (Integer) args[2]);
+			}
+			return null;
+		}
+
+		PreparedStatement prepare(Connection physical) throws SQLException {
+			if (autoGeneratedKeys != -1) {
+				return physical.prepareStatement(sql, autoGeneratedKeys);
+			}
+			if (resultSetType != -1) {
+				return physical.prepareStatement(sql, resultSetType, resultSetConcurrency);
+			}
+			return physical.prepareStatement(sql);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return sql.equals(other.sql) && autoGeneratedKeys == other.autoGeneratedKeys
+					&& resultSetType == other.resultSetType && resultSetConcurrency == other.resultSetConcurrency;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(sql, autoGeneratedKeys, resultSetType, resultSetConcurrency);
+		}
+	}
+}
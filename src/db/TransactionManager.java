@@ -0,0 +1,230 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import db.exceptions.DbException;
+
+/**
+ * Runs several DAO calls as one transaction on one connection.
+ * <p>
+ * While {@link #inTransaction(Supplier)} runs, {@link DB#getConnection()} on
+ * the same thread hands out the transaction's connection. DAO code keeps
+ * working unchanged: its {@code setAutoCommit}, {@code commit} and
+ * {@code close} calls are ignored, and a {@code rollback()} marks the whole
+ * transaction rollback-only. The transaction commits once when the outermost
+ * call returns and is rolled back if it throws, if anything marked it
+ * rollback-only, or if the commit itself fails.
+ * <p>
+ * Nested {@code inTransaction} calls join the running transaction;
+ * {@link #inSavepoint(Supplier)} gives a nested block that can fail on its own.
+ */
+public class TransactionManager {
+
+	private static final Logger LOG = Logger.getLogger(TransactionManager.class.getName());
+
+	private static final ThreadLocal<Transaction> CURRENT = new ThreadLocal<>();
+
+	public static <T> T inTransaction(Supplier<T> work) {
+		Transaction tx = CURRENT.get();
+		if (tx != null) {
+			return work.get();
+		}
+		tx = begin();
+		CURRENT.set(tx);
+		boolean committed = false;
+		try {
+			T result = work.get();
+			if (tx.rollbackOnly) {
+				throw new DbException("Transaction rolled back: an operation inside it failed");
+			}
+			tx.physical.commit();
+			committed = true;
+			return result;
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		} finally {
+			CURRENT.remove();
+			if (!committed) {
+				rollbackQuietly(tx.physical);
+			}
+			DB.releaseConnection(tx.physical);
+			tx.complete(committed);
+		}
+	}
+
+	public static void inTransaction(Runnable work) {
+		inTransaction(() -> {
+			work.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Runs {@code work} behind a savepoint of the current transaction, or in a
+	 * transaction of its own when none is running. If it throws, only its own
+	 * changes are rolled back and the exception is passed on, so the caller
+	 * can handle it and carry on with the rest of the transaction.
+	 */
+	public static <T> T inSavepoint(Supplier<T> work) {
+		Transaction tx = CURRENT.get();
+		if (tx == null) {
+			return inTransaction(work);
+		}
+		Savepoint savepoint;
+		try {
+			savepoint = tx.physical.setSavepoint();
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		}
+		boolean wasRollbackOnly = tx.rollbackOnly;
+		try {
+			T result = work.get();
+			tx.physical.releaseSavepoint(savepoint);
+			return result;
+		} catch (RuntimeException | Error e) {
+			try {
+				tx.physical.rollback(savepoint);
+				tx.rollbackOnly = wasRollbackOnly;
+			} catch (SQLException e1) {
+				tx.rollbackOnly = true;
+				e.addSuppressed(e1);
+			}
+			throw e;
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		}
+	}
+
+	public static void inSavepoint(Runnable work) {
+		inSavepoint(() -> {
+			work.run();
+			return null;
+		});
+	}
+
+	public static boolean isActive() {
+		return CURRENT.get() != null;
+	}
+
+	/** Makes the current transaction roll back instead of committing. */
+	public static void setRollbackOnly() {
+		current().rollbackOnly = true;
+	}
+
+	/**
+	 * Runs {@code action} once the current transaction has committed or rolled
+	 * back, with its outcome; runs it right away, as committed, when there is
+	 * no transaction.
+	 */
+	public static void afterCompletion(CompletionListener action) {
+		Transaction tx = CURRENT.get();
+		if (tx == null) {
+			action.onCompletion(true);
+		} else {
+			tx.listeners.add(action);
+		}
+	}
+
+	/** The connection DAO code should use on this thread, or null outside a transaction. */
+	static Connection currentConnection() {
+		Transaction tx = CURRENT.get();
+		return tx == null ? null : tx.handle;
+	}
+
+	private static Transaction current() {
+		Transaction tx = CURRENT.get();
+		if (tx == null) {
+			throw new IllegalStateException("No transaction is running on this thread");
+		}
+		return tx;
+	}
+
+	private static Transaction begin() {
+		Connection physical = DB.getConnection();
+		try {
+			physical.setAutoCommit(false);
+		} catch (SQLException e) {
+			DB.releaseConnection(physical);
+			throw new DbException(e.getMessage());
+		}
+		return new Transaction(physical);
+	}
+
+	private static void rollbackQuietly(Connection conn) {
+		try {
+			conn.rollback();
+		} catch (SQLException e) {
+			LOG.log(Level.WARNING, "Rollback failed", e);
+		}
+	}
+
+	public interface CompletionListener {
+		void onCompletion(boolean committed);
+	}
+
+	private static class Transaction implements InvocationHandler {
+
+		final Connection physical;
+		final Connection handle;
+		final List<CompletionListener> listeners = new ArrayList<>();
+		boolean rollbackOnly;
+
+		Transaction(Connection physical) {
+			this.physical = physical;
+			this.handle = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[] { Connection.class }, this);
+		}
+
+		void complete(boolean committed) {
+			for (CompletionListener listener : listeners) {
+				try {
+					listener.onCompletion(committed);
+				} catch (RuntimeException e) {
+					LOG.log(Level.WARNING, "Transaction listener failed", e);
+				}
+			}
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "close":
+			case "commit":
+			case "setAutoCommit":
+				return null;
+			case "getAutoCommit":
+				return false;
+			case "rollback":
+				if (args == null) {
+					rollbackOnly = true;
+					return null;
+				}
+				break;
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "Transactional[" + physical + "]";
+			default:
+				break;
+			}
+			try {
+				return method.invoke(physical, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+}
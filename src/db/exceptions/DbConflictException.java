@@ -0,0 +1,13 @@
+package db.exceptions;
+
+/**
+ * Thrown when an update finds that the row was changed by someone else since
+ * it was read, i.e. its version no longer matches.
+ */
+public class DbConflictException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	public DbConflictException(String message) {
+		super(message);
+	}
+}
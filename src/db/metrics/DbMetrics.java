@@ -0,0 +1,209 @@
+package db.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import db.DB;
+
+/**
+ * Latency, row and error metrics for DAO calls, plus a log of statements
+ * slower than {@code metrics.slowQueryMs} (500 by default; a negative value
+ * turns the log off). Everything is skipped when {@code metrics.enabled} is
+ * false.
+ */
+public class DbMetrics {
+
+	private static final Logger LOG = Logger.getLogger(DbMetrics.class.getName());
+
+	private static final Map<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+	private static final ThreadLocal<Call> CURRENT = new ThreadLocal<>();
+	private static final LongAdder slowQueries = new LongAdder();
+	private static volatile long slowQueryThresholdMillis;
+	private static volatile Boolean enabled = null;
+
+	public static boolean isEnabled() {
+		Boolean value = enabled;
+		return value != null ? value : init();
+	}
+
+	private static synchronized boolean init() {
+		if (enabled == null) {
+			enabled = !"false".equalsIgnoreCase(DB.getProperties().getProperty("metrics.enabled", "true").trim());
+			slowQueryThresholdMillis = DB.getIntProperty("metrics.slowQueryMs", 500);
+			if (enabled) {
+				registerMBean();
+			}
+		}
+		return enabled;
+	}
+
+	/**
+	 * Wraps {@code target} so every call through {@code type} is timed and
+	 * counted under "Type.method". Returns the target itself when metrics are
+	 * disabled.
+	 */
+	public static <T> T instrument(Class<T> type, T target) {
+		if (!isEnabled()) {
+			return target;
+		}
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+				new MeteredHandler(type.getSimpleName(), target)));
+	}
+
+	/**
+	 * Wraps a statement to time its executions, count the rows it reads or
+	 * writes and log it with its bind parameters when it is slow.
+	 */
+	public static PreparedStatement instrument(PreparedStatement st, String sql) {
+		if (st == null || !isEnabled()) {
+			return st;
+		}
+		return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+				new Class<?>[] { PreparedStatement.class }, new InstrumentedStatement(st, sql));
+	}
+
+	public static List<OperationStats> getOperationStats() {
+		List<OperationStats> list = new ArrayList<>();
+		for (OperationMetrics op : operations.values()) {
+			list.add(op.snapshot());
+		}
+		list.sort(Comparator.comparing(OperationStats::getName));
+		return list;
+	}
+
+	public static void reset() {
+		for (OperationMetrics op : operations.values()) {
+			op.reset();
+		}
+		slowQueries.reset();
+	}
+
+	public static long getSlowQueryThresholdMillis() {
+		return slowQueryThresholdMillis;
+	}
+
+	public static void setSlowQueryThresholdMillis(long thresholdMillis) {
+		slowQueryThresholdMillis = thresholdMillis;
+	}
+
+	public static long getSlowQueryCount() {
+		return slowQueries.sum();
+	}
+
+	static OperationMetrics operation(String name) {
+		return operations.computeIfAbsent(name, OperationMetrics::new);
+	}
+
+	/** The DAO call running on this thread, or null outside of one. */
+	static Call currentCall() {
+		return CURRENT.get();
+	}
+
+	static void slowQuery(long millis, String sql, String params) {
+		slowQueries.increment();
+		LOG.warning("Slow query (" + millis + " ms): " + sql + (params.isEmpty() ? "" : " with " + params));
+	}
+
+	private static void registerMBean() {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(new MXBeanImpl(),
+					new ObjectName("javafx_jdbc_project:type=DbMetrics"));
+		} catch (JMException e) {
+			LOG.log(Level.WARNING, "Could not register the metrics MXBean", e);
+		}
+	}
+
+	static class Call {
+
+		final OperationMetrics operation;
+		boolean failed;
+
+		Call(OperationMetrics operation) {
+			this.operation = operation;
+		}
+	}
+
+	private static class MeteredHandler implements InvocationHandler {
+
+		private final String prefix;
+		private final Object target;
+		private final Map<Method, OperationMetrics> byMethod = new ConcurrentHashMap<>();
+
+		MeteredHandler(String prefix, Object target) {
+			this.prefix = prefix;
+			this.target = target;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if (method.getDeclaringClass() == Object.class) {
+				try {
+					return method.invoke(target, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+			}
+			OperationMetrics op = byMethod.computeIfAbsent(method, m -> operation(prefix + "." + m.getName()));
+			Call outer = CURRENT.get();
+			Call call = new Call(op);
+			CURRENT.set(call);
+			long start = System.nanoTime();
+			try {
+				return method.invoke(target, args);
+			} catch (InvocationTargetException e) {
+				call.failed = true;
+				throw e.getCause();
+			} finally {
+				if (outer == null) {
+					CURRENT.remove();
+				} else {
+					CURRENT.set(outer);
+				}
+				op.record(System.nanoTime() - start, call.failed);
+			}
+		}
+	}
+
+	private static class MXBeanImpl implements DbMetricsMXBean {
+
+		@Override
+		public List<OperationStats> getOperations() {
+			return getOperationStats();
+		}
+
+		@Override
+		public long getSlowQueryThresholdMs() {
+			return getSlowQueryThresholdMillis();
+		}
+
+		@Override
+		public void setSlowQueryThresholdMs(long thresholdMs) {
+			setSlowQueryThresholdMillis(thresholdMs);
+		}
+
+		@Override
+		public long getSlowQueryCount() {
+			return DbMetrics.getSlowQueryCount();
+		}
+
+		@Override
+		public void reset() {
+			DbMetrics.reset();
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package db.metrics;
+
+import java.util.List;
+
+/**
+ * DAO metrics as seen from JMX, registered as
+ * {@code javafx_jdbc_project:type=DbMetrics}.
+ */
+public interface DbMetricsMXBean {
+
+	List<OperationStats> getOperations();
+
+	long getSlowQueryThresholdMs();
+
+	void setSlowQueryThresholdMs(long thresholdMs);
+
+	long getSlowQueryCount();
+
+	void reset();
+}
@@ -0,0 +1,173 @@
+package db.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.temporal.Temporal;
+import java.util.Date;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * Statement wrapper that times executions, remembers bind parameters for the
+ * slow-query log and counts rows on behalf of the DAO call that ran it. Rows
+ * read later, as with a stream, still count towards that call.
+ */
+class InstrumentedStatement implements InvocationHandler {
+
+	private static final int MAX_PARAM_LENGTH = 100;
+
+	private final PreparedStatement st;
+	private final String sql;
+	private final Map<Integer, Object> params = new TreeMap<>();
+	private int batchSize;
+
+	InstrumentedStatement(PreparedStatement st, String sql) {
+		this.st = st;
+		this.sql = sql;
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		String name = method.getName();
+		if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+			params.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+		} else if (name.equals("clearParameters")) {
+			params.clear();
+		} else if (name.equals("addBatch")) {
+			batchSize++;
+		} else if (name.equals("clearBatch")) {
+			batchSize = 0;
+		} else if (name.equals("equals")) {
+			return proxy == args[0];
+		} else if (name.equals("hashCode")) {
+			return System.identityHashCode(proxy);
+		} else if (name.startsWith("execute")) {
+			return execute(method, args);
+		} else if (name.equals("getResultSet")) {
+			return countRows((ResultSet) call(method, args), DbMetrics.currentCall());
+		}
+		return call(method, args);
+	}
+
+	private Object execute(Method method, Object[] args) throws Throwable {
+		DbMetrics.Call call = DbMetrics.currentCall();
+		long start = System.nanoTime();
+		Object result;
+		try {
+			result = call(method, args);
+		} catch (SQLException | RuntimeException e) {
+			if (call != null) {
+				call.failed = true;
+			}
+			throw e;
+		} finally {
+			long millis = (System.nanoTime() - start) / 1_000_000;
+			long threshold = DbMetrics.getSlowQueryThresholdMillis();
+			if (threshold >= 0 && millis >= threshold) {
+				DbMetrics.slowQuery(millis, sql, describeParams());
+			}
+			batchSize = method.getName().equals("executeBatch") ? 0 : batchSize;
+		}
+		if (call != null) {
+			if (result instanceof ResultSet) {
+				return countRows((ResultSet) result, call);
+			}
+			if (result instanceof Integer || result instanceof Long) {
+				call.operation.addRows(Math.max(0, ((Number) result).longValue()));
+			} else if (result instanceof int[]) {
+				for (int count : (int[]) result) {
+					// SUCCESS_NO_INFO still means one row went through
+					call.operation.addRows(count == PreparedStatement.SUCCESS_NO_INFO ? 1 : Math.max(0, count));
+				}
+			}
+		}
+		return result;
+	}
+
+	private Object call(Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(st, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	private String describeParams() {
+		StringJoiner joiner = new StringJoiner(", ", "[", "]");
+		for (Map.Entry<Integer, Object> entry : params.entrySet()) {
+			joiner.add(entry.getKey() + "=" + describe(entry.getValue()));
+		}
+		String described = params.isEmpty() ? "" : joiner.toString();
+		return batchSize > 0 ? described + " (last of a batch of " + batchSize + ")" : described;
+	}
+
+	private static String describe(Object value) {
+		if (value == null) {
+			return "NULL";
+		}
+		String text = value instanceof byte[] ? "<" + ((byte[]) value).length + " bytes>" : value.toString();
+		if (text.length() > MAX_PARAM_LENGTH) {
+			text = text.substring(0, MAX_PARAM_LENGTH) + "...";
+		}
+		return value instanceof String ? "'" + text + "'" : text;
+	}
+
+	private static ResultSet countRows(ResultSet rs, DbMetrics.Call call) {
+		if (rs == null || call == null) {
+			return rs;
+		}
+		OperationMetrics operation = call.operation;
+		return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+				(proxy, method, args) -> {
+					Object value;
+					try {
+						value = method.invoke(rs, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+					String name = method.getName();
+					if (name.equals("next")) {
+						if ((Boolean) value) {
+							operation.addRows(1);
+						}
+					} else if (name.startsWith("get") && args != null
+							&& (args[0] instanceof Integer || args[0] instanceof String)) {
+						operation.addBytes(sizeOf(value));
+					}
+					return value;
+				});
+	}
+
+	/** Rough in-memory size of a mapped column value. */
+	static long sizeOf(Object value) {
+		if (value == null) {
+			return 0;
+		}
+		if (value instanceof String) {
+			return 2L * ((String) value).length();
+		}
+		if (value instanceof byte[]) {
+			return ((byte[]) value).length;
+		}
+		if (value instanceof Long || value instanceof Double || value instanceof Date || value instanceof Temporal) {
+			return 8;
+		}
+		if (value instanceof Boolean || value instanceof Byte) {
+			return 1;
+		}
+		if (value instanceof Short) {
+			return 2;
+		}
+		if (value instanceof BigDecimal) {
+			return 16 + ((BigDecimal) value).unscaledValue().bitLength() / 8;
+		}
+		return 4;
+	}
+}
@@ -0,0 +1,53 @@
+package db.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for one DAO method: call latency, failed calls, rows read or
+ * written and an estimate of the bytes mapped out of result sets.
+ */
+public class OperationMetrics {
+
+	private final String name;
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder rows = new LongAdder();
+	private final LongAdder bytes = new LongAdder();
+
+	OperationMetrics(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	void record(long nanos, boolean failed) {
+		latency.record(nanos / 1000);
+		if (failed) {
+			errors.increment();
+		}
+	}
+
+	void addRows(long count) {
+		rows.add(count);
+	}
+
+	void addBytes(long count) {
+		bytes.add(count);
+	}
+
+	OperationStats snapshot() {
+		return new OperationStats(name, latency.getCount(), errors.sum(), rows.sum(), bytes.sum(),
+				latency.getMean() / 1000, latency.getValueAtPercentile(50) / 1000.0,
+				latency.getValueAtPercentile(90) / 1000.0, latency.getValueAtPercentile(99) / 1000.0,
+				latency.getValueAtPercentile(99.9) / 1000.0, latency.getMax() / 1000.0);
+	}
+
+	void reset() {
+		latency.reset();
+		errors.reset();
+		rows.reset();
+		bytes.reset();
+	}
+}
@@ -0,0 +1,84 @@
+package db.metrics;
+
+/**
+ * Snapshot of {@link OperationMetrics}, with latencies in milliseconds.
+ */
+public class OperationStats {
+
+	private final String name;
+	private final long calls;
+	private final long errors;
+	private final long rows;
+	private final long bytesMapped;
+	private final double meanMillis;
+	private final double p50Millis;
+	private final double p90Millis;
+	private final double p99Millis;
+	private final double p999Millis;
+	private final double maxMillis;
+
+	public OperationStats(String name, long calls, long errors, long rows, long bytesMapped, double meanMillis,
+			double p50Millis, double p90Millis, double p99Millis, double p999Millis, double maxMillis) {
+		this.name = name;
+		this.calls = calls;
+		this.errors = errors;
+		this.rows = rows;
+		this.bytesMapped = bytesMapped;
+		this.meanMillis = meanMillis;
+		this.p50Millis = p50Millis;
+		this.p90Millis = p90Millis;
+		this.p99Millis = p99Millis;
+		this.p999Millis = p999Millis;
+		this.maxMillis = maxMillis;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getCalls() {
+		return calls;
+	}
+
+	public long getErrors() {
+		return errors;
+	}
+
+	public long getRows() {
+		return rows;
+	}
+
+	public long getBytesMapped() {
+		return bytesMapped;
+	}
+
+	public double getMeanMillis() {
+		return meanMillis;
+	}
+
+	public double getP50Millis() {
+		return p50Millis;
+	}
+
+	public double getP90Millis() {
+		return p90Millis;
+	}
+
+	public double getP99Millis() {
+		return p99Millis;
+	}
+
+	public double getP999Millis() {
+		return p999Millis;
+	}
+
+	public double getMaxMillis() {
+		return maxMillis;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s: calls=%d, errors=%d, rows=%d, bytes=%d, p50=%.2fms, p99=%.2fms, max=%.2fms", name,
+				calls, errors, rows, bytesMapped, p50Millis, p99Millis, maxMillis);
+	}
+}
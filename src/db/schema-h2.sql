@@ -0,0 +1,46 @@
+-- Schema of the embedded H2 backend: the MySQL tables with the changes from
+-- sql/V1 to sql/V4 applied. Every statement is safe to run again.
+
+CREATE TABLE IF NOT EXISTS department (
+  Id INT NOT NULL AUTO_INCREMENT,
+  Name VARCHAR(60) DEFAULT NULL,
+  Version INT NOT NULL DEFAULT 0,
+  PRIMARY KEY (Id)
+);
+
+CREATE TABLE IF NOT EXISTS seller (
+  Id INT NOT NULL AUTO_INCREMENT,
+  Name VARCHAR(60) NOT NULL,
+  Email VARCHAR(100) NOT NULL,
+  BirthDate DATETIME NOT NULL,
+  BaseSalary DOUBLE NOT NULL,
+  DepartmentId INT NOT NULL,
+  Version INT NOT NULL DEFAULT 0,
+  PRIMARY KEY (Id),
+  FOREIGN KEY (DepartmentId) REFERENCES department (Id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_seller_name_id ON seller (Name, Id);
+CREATE INDEX IF NOT EXISTS idx_seller_email ON seller (Email);
+CREATE INDEX IF NOT EXISTS idx_seller_base_salary ON seller (BaseSalary);
+CREATE INDEX IF NOT EXISTS idx_seller_birth_date ON seller (BirthDate);
+CREATE INDEX IF NOT EXISTS idx_seller_department_name_id ON seller (DepartmentId, Name, Id);
+
+CREATE TABLE IF NOT EXISTS change_log (
+  Seq BIGINT NOT NULL AUTO_INCREMENT,
+  TableName VARCHAR(30) NOT NULL,
+  RowId INT NOT NULL,
+  Op CHAR(1) NOT NULL,
+  ChangedAt TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+  PRIMARY KEY (Seq)
+);
+
+CREATE INDEX IF NOT EXISTS idx_change_log_changed_at ON change_log (ChangedAt);
+
+CREATE TABLE IF NOT EXISTS write_behind_applied (
+  JournalId CHAR(36) NOT NULL,
+  Seq BIGINT NOT NULL,
+  InsertedId INT NULL,
+  Conflict VARCHAR(500) NULL,
+  PRIMARY KEY (JournalId, Seq)
+);
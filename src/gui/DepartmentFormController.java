@@ -4,10 +4,13 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.ResourceBundle;
 import java.util.Set;
 
-import db.exceptions.DbException;
+import db.exceptions.DbConflictException;
+import db.exceptions.EntityNotFoundException;
+import gui.listeners.DataChangeEvent;
 import gui.listeners.DataChangeListener;
 import gui.utils.Alerts;
 import gui.utils.Constraints;
@@ -17,18 +20,20 @@ import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
+import javafx.scene.control.ButtonType;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
 import model.dao.exceptions.ValidationException;
 import model.entities.Department;
 import model.services.DepartmentService;
+import model.services.Parsers;
 
 public class DepartmentFormController implements Initializable {
 
 	private Department obj;
 	private DepartmentService departmentService;
-	private List<DataChangeListener> dataChangeListeners = new ArrayList<>();
+	private List<DataChangeListener<Department>> dataChangeListeners = new ArrayList<>();
 
 	@FXML
 	private TextField textFieldId;
@@ -53,8 +58,10 @@ public class DepartmentFormController implements Initializable {
 		this.departmentService = departmentService;
 	}
 
-	public void subscribeDataChangeListener(DataChangeListener listener) {
-		dataChangeListeners.add(listener);
+	public void subscribeDataChangeListener(DataChangeListener<Department> listener) {
+		if (!dataChangeListeners.contains(listener)) {
+			dataChangeListeners.add(listener);
+		}
 	}
 
 	@FXML
@@ -73,14 +80,69 @@ public class DepartmentFormController implements Initializable {
 		}
 		try {
 			obj = getFormData();
-			departmentService.SaveOrUpdate(obj);
-			notifyDataChangeListeners();
-			Utils.currentStage(ae).close();
-		} catch (DbException e) {
-			Alerts.showAlert("Error savings object", e.getMessage(), AlertType.ERROR);
 		} catch (ValidationException e) {
 			setErrorMessage(e.getErrors());
+			return;
+		}
+		DataChangeEvent.Type type = obj.getId() == null ? DataChangeEvent.Type.INSERTED : DataChangeEvent.Type.UPDATED;
+		save(obj, type, Utils.currentStage(ae));
+	}
+
+	private void save(Department saved, DataChangeEvent.Type type, Stage stage) {
+		btSave.setDisable(true);
+		Utils.whenDoneOnFxThread(departmentService.saveOrUpdateAsync(saved), x -> {
+			notifyDataChangeListeners(new DataChangeEvent<>(type, saved, saved.getId()));
+			stage.close();
+		}, e -> {
+			btSave.setDisable(false);
+			if (e instanceof DbConflictException) {
+				resolveConflict(saved, stage);
+			} else if (e instanceof EntityNotFoundException) {
+				onDeletedElsewhere(saved, stage);
+			} else {
+				Alerts.showAlert("Error savings object", e.getMessage(), AlertType.ERROR);
+			}
+		});
+	}
+
+	/** Lets the user overwrite the newer department or reload it. */
+	private void resolveConflict(Department mine, Stage stage) {
+		ButtonType overwrite = new ButtonType("Overwrite");
+		ButtonType reload = new ButtonType("Reload");
+		Optional<ButtonType> choice = Alerts.showChoice("Conflicting change",
+				"Another user changed this department after you opened it. Overwrite their changes with yours, "
+						+ "or reload the current data and discard your edits?",
+				overwrite, reload, ButtonType.CANCEL);
+		if (choice.isEmpty() || choice.get() == ButtonType.CANCEL) {
+			return;
 		}
+		btSave.setDisable(true);
+		Utils.whenDoneOnFxThread(departmentService.findByIdAsync(mine.getId()), current -> {
+			btSave.setDisable(false);
+			if (current == null) {
+				Alerts.showAlert("Error savings object", "Could not load the current data", AlertType.ERROR);
+			} else if (choice.get() == overwrite) {
+				mine.setVersion(current.getVersion());
+				save(mine, DataChangeEvent.Type.UPDATED, stage);
+			} else {
+				obj = current;
+				updateFormData();
+				notifyDataChangeListeners(new DataChangeEvent<>(DataChangeEvent.Type.UPDATED, current, current.getId()));
+			}
+		}, e -> {
+			btSave.setDisable(false);
+			if (e instanceof EntityNotFoundException) {
+				onDeletedElsewhere(mine, stage);
+			} else {
+				Alerts.showAlert("Error savings object", e.getMessage(), AlertType.ERROR);
+			}
+		});
+	}
+
+	private void onDeletedElsewhere(Department mine, Stage stage) {
+		Alerts.showAlert("Conflicting change", "Another user deleted this department.", AlertType.WARNING);
+		notifyDataChangeListeners(new DataChangeEvent<>(DataChangeEvent.Type.DELETED, mine, mine.getId()));
+		stage.close();
 	}
 
 	private void setErrorMessage(Map<String, String> errors) {
@@ -88,14 +150,14 @@ public class DepartmentFormController implements Initializable {
 		labelErrorName.setText(fields.contains("name") ? errors.get("name") : "");
 	}
 
-	private void notifyDataChangeListeners() {
-		for (DataChangeListener listener : dataChangeListeners) {
-			listener.onDataChange();
+	private void notifyDataChangeListeners(DataChangeEvent<Department> event) {
+		for (DataChangeListener<Department> listener : dataChangeListeners) {
+			listener.onDataChange(event);
 		}
 	}
 
 	private Department getFormData() {
-		Integer id = Utils.tryParseToInt(textFieldId.getText());
+		Integer id = Parsers.tryParseToInt(textFieldId.getText());
 		String name = textFieldName.getText();
 
 		ValidationException ex = new ValidationException("Error validation");
@@ -105,7 +167,9 @@ public class DepartmentFormController implements Initializable {
 		if (ex.getErrors().size() > 0) {
 			throw ex;
 		}
-		return new Department(id, name);
+		Department department = new Department(id, name);
+		department.setVersion(obj.getVersion());
+		return department;
 	}
 
 	@Override
@@ -124,5 +188,8 @@ public class DepartmentFormController implements Initializable {
 		}
 		textFieldId.setText(String.valueOf(obj.getId()));
 		textFieldName.setText(obj.getName());
+		// the form is reused between dialogs, so clear what the last one left
+		setErrorMessage(Map.of());
+		btSave.setDisable(false);
 	}
 }
@@ -1,28 +1,34 @@
 package gui;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 
 import application.Main;
-import db.exceptions.DbIntegrityException;
+import gui.listeners.DataChangeEvent;
 import gui.listeners.DataChangeListener;
 import gui.utils.Alerts;
+import gui.utils.TableExport;
 import gui.utils.Utils;
+import gui.utils.ViewCache;
+import javafx.application.Platform;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.Label;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
@@ -32,8 +38,10 @@ import javafx.stage.Modality;
 import javafx.stage.Stage;
 import model.entities.Department;
 import model.services.DepartmentService;
+import model.sync.SyncListener;
+import model.sync.WriteBehind;
 
-public class DepartmentListController implements Initializable, DataChangeListener {
+public class DepartmentListController implements Initializable, DataChangeListener<Department> {
 
 	private DepartmentService departmentService;
 
@@ -55,14 +63,41 @@ public class DepartmentListController implements Initializable, DataChangeListen
 	@FXML
 	private Button btNew;
 
+	@FXML
+	private Button btExport;
+
+	private static final TableExport<Department> EXPORT = new TableExport<Department>()
+			.numberColumn("Id", obj -> String.valueOf(obj.getId()))
+			.column("Name", Department::getName);
+
 	private ObservableList<Department> obsList;
 
+	private CompletableFuture<List<Department>> pendingLoad;
+
+	private Stage dialogStage;
+
 	@FXML
 	public void onBtNewAction(ActionEvent ae) {
 		Department department = new Department();
 		createDialogForm(department, "/gui/DepartmentForm.fxml", Utils.currentStage(ae));
 	}
 
+	@FXML
+	public void onBtExportAction(ActionEvent ae) {
+		File file = Utils.chooseExportFile(Utils.currentStage(ae), "departments.csv");
+		if (file == null) {
+			return;
+		}
+		btExport.setDisable(true);
+		Utils.whenDoneOnFxThread(EXPORT.exportAsync(departmentService::streamAll, file.toPath()), count -> {
+			btExport.setDisable(false);
+			Alerts.showAlert("Export", count + " departments exported to " + file, AlertType.INFORMATION);
+		}, e -> {
+			btExport.setDisable(false);
+			Alerts.showAlert("Error exporting departments", e.getMessage(), AlertType.ERROR);
+		});
+	}
+
 	public void setDepartmentService(DepartmentService departmentService) {
 		this.departmentService = departmentService;
 	}
@@ -70,51 +105,90 @@ public class DepartmentListController implements Initializable, DataChangeListen
 	@Override
 	public void initialize(URL url, ResourceBundle rb) {
 		initializeNotes();
+		WriteBehind writeBehind = WriteBehind.get();
+		if (writeBehind != null) {
+			writeBehind.addDepartmentListener(new SyncListener<Department>() {
+				@Override
+				public void onInserted(Department entity, int temporaryId) {
+					Platform.runLater(() -> {
+						onDataChange(new DataChangeEvent<>(DataChangeEvent.Type.DELETED, entity, temporaryId));
+						onDataChange(new DataChangeEvent<>(DataChangeEvent.Type.INSERTED, entity, entity.getId()));
+					});
+				}
+			});
+		}
 	}
 
 	@Override
-	public void onDataChange() {
-		updateTableView();
+	public void onDataChange(DataChangeEvent<Department> event) {
+		if (obsList == null) {
+			return;
+		}
+		// departments are listed in insertion order, which follows the id
+		Utils.applyChange(obsList, event, Department::getId,
+				Comparator.comparing(Department::getId, Comparator.nullsLast(Comparator.naturalOrder())));
 	}
 
 	private void initializeNotes() {
 		tableColumnId.setCellValueFactory(new PropertyValueFactory<>("id"));
 		tableColumnName.setCellValueFactory(new PropertyValueFactory<>("name"));
+		initEditButtons();
+		initRemoveButtons();
 
-		Stage stage = (Stage) Main.getScene().getWindow();
-		tableViewDepartment.prefHeightProperty().bind(stage.heightProperty());
-		tableViewDepartment.prefWidthProperty().bind(stage.widthProperty());
+		Utils.runOnFxThread(() -> {
+			Stage stage = (Stage) Main.getScene().getWindow();
+			tableViewDepartment.prefHeightProperty().bind(stage.heightProperty());
+			tableViewDepartment.prefWidthProperty().bind(stage.widthProperty());
+		});
 	}
 
 	public void updateTableView() {
 		if (departmentService == null) {
 			throw new IllegalStateException("Service was null");
 		}
-		List<Department> list = departmentService.findAll();
-		obsList = FXCollections.observableArrayList(list);
-		tableViewDepartment.setItems(obsList);
-		initEditButtons();
-		initRemoveButtons();
+		if (pendingLoad != null) {
+			pendingLoad.cancel(false);
+		}
+		tableViewDepartment.setPlaceholder(new Label("Loading departments..."));
+		CompletableFuture<List<Department>> load = departmentService.findAllAsync();
+		pendingLoad = load;
+		Utils.whenDoneOnFxThread(load, list -> {
+			if (load != pendingLoad) {
+				return;
+			}
+			pendingLoad = null;
+			obsList = FXCollections.observableArrayList(list);
+			tableViewDepartment.setPlaceholder(new Label("No departments registered"));
+			tableViewDepartment.setItems(obsList);
+		}, e -> {
+			if (load != pendingLoad) {
+				return;
+			}
+			pendingLoad = null;
+			tableViewDepartment.setPlaceholder(new Label("Could not load departments"));
+			Alerts.showAlert("Error loading departments", e.getMessage(), AlertType.ERROR);
+		});
 	}
 
 	private void createDialogForm(Department obj, String path, Stage parentStage) {
 		try {
-			FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource(path));
-			Pane pane = fxmlLoader.load();
-			pane.setPrefSize(300, 200);
-
-			DepartmentFormController controller = fxmlLoader.getController();
+			ViewCache.View<DepartmentFormController> view = ViewCache.get(path);
+			DepartmentFormController controller = view.getController();
 			controller.setDepartment(obj);
 			controller.updateFormData();
 			controller.setDepartmentService(new DepartmentService());
 			controller.subscribeDataChangeListener(this);
 
-			Stage dialogStage = new Stage();
-			dialogStage.setTitle("Enter Department data");
-			dialogStage.setScene(new Scene(pane));
-			dialogStage.setResizable(false);
-			dialogStage.initOwner(parentStage);
-			dialogStage.initModality(Modality.WINDOW_MODAL);
+			if (dialogStage == null) {
+				Pane pane = (Pane) view.getRoot();
+				pane.setPrefSize(300, 200);
+				dialogStage = new Stage();
+				dialogStage.setTitle("Enter Department data");
+				dialogStage.setScene(new Scene(pane));
+				dialogStage.setResizable(false);
+				dialogStage.initOwner(parentStage);
+				dialogStage.initModality(Modality.WINDOW_MODAL);
+			}
 			dialogStage.showAndWait();
 		} catch (IOException e) {
 			Alerts.showAlert("IO Exception", e.getMessage(), AlertType.ERROR);
@@ -166,12 +240,9 @@ public class DepartmentListController implements Initializable, DataChangeListen
 			if (departmentService == null) {
 				throw new IllegalStateException("Service was null");
 			}
-			try {
-				departmentService.remove(item);
-				updateTableView();
-			} catch (DbIntegrityException e) {
-				Alerts.showAlert("Error removing object", e.getMessage(), AlertType.ERROR);
-			}
+			Utils.whenDoneOnFxThread(departmentService.removeAsync(item),
+					x -> onDataChange(new DataChangeEvent<>(DataChangeEvent.Type.DELETED, item, item.getId())),
+					e -> Alerts.showAlert("Error removing object", e.getMessage(), AlertType.ERROR));
 		}
 	}
 }
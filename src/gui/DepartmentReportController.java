@@ -0,0 +1,138 @@
+package gui;
+
+import java.net.URL;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+
+import application.Main;
+import gui.utils.Alerts;
+import gui.utils.Utils;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.Stage;
+import model.entities.DepartmentReport;
+import model.services.ReportService;
+
+public class DepartmentReportController implements Initializable {
+
+	private ReportService service;
+
+	private CompletableFuture<List<DepartmentReport>> pendingLoad;
+
+	@FXML
+	private TableView<DepartmentReport> tableViewReport;
+
+	@FXML
+	private TableColumn<DepartmentReport, String> tableColumnDepartment;
+
+	@FXML
+	private TableColumn<DepartmentReport, Long> tableColumnHeadcount;
+
+	@FXML
+	private TableColumn<DepartmentReport, Double> tableColumnTotal;
+
+	@FXML
+	private TableColumn<DepartmentReport, Double> tableColumnAverage;
+
+	@FXML
+	private TableColumn<DepartmentReport, Double> tableColumnMin;
+
+	@FXML
+	private TableColumn<DepartmentReport, Double> tableColumnMax;
+
+	@FXML
+	private TableColumn<DepartmentReport, ?> tableColumnAges;
+
+	@FXML
+	private Button btRefresh;
+
+	@FXML
+	private CheckBox checkBoxInMemory;
+
+	@FXML
+	private Label labelSummary;
+
+	public void setReportService(ReportService service) {
+		this.service = service;
+	}
+
+	@FXML
+	public void onBtRefreshAction() {
+		updateTableView();
+	}
+
+	@Override
+	public void initialize(URL url, ResourceBundle rb) {
+		initializeNodes();
+	}
+
+	private void initializeNodes() {
+		tableColumnDepartment.setCellValueFactory(new PropertyValueFactory<>("departmentName"));
+		tableColumnHeadcount.setCellValueFactory(new PropertyValueFactory<>("headcount"));
+		tableColumnTotal.setCellValueFactory(new PropertyValueFactory<>("totalSalary"));
+		Utils.formatTableColumnDouble(tableColumnTotal, 2);
+		tableColumnAverage.setCellValueFactory(new PropertyValueFactory<>("averageSalary"));
+		Utils.formatTableColumnDouble(tableColumnAverage, 2);
+		tableColumnMin.setCellValueFactory(new PropertyValueFactory<>("minSalary"));
+		Utils.formatTableColumnDouble(tableColumnMin, 2);
+		tableColumnMax.setCellValueFactory(new PropertyValueFactory<>("maxSalary"));
+		Utils.formatTableColumnDouble(tableColumnMax, 2);
+
+		for (int i = 0; i <= DepartmentReport.AGE_BOUNDS.length; i++) {
+			int bucket = i;
+			TableColumn<DepartmentReport, Long> column = new TableColumn<>(DepartmentReport.ageBucketLabel(bucket));
+			column.setPrefWidth(60.0);
+			column.setCellValueFactory(
+					cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getAgeBuckets()[bucket]));
+			tableColumnAges.getColumns().add(column);
+		}
+
+		Utils.runOnFxThread(() -> {
+			Stage stage = (Stage) Main.getScene().getWindow();
+			tableViewReport.prefHeightProperty().bind(stage.heightProperty());
+			tableViewReport.prefWidthProperty().bind(stage.widthProperty());
+		});
+	}
+
+	public void updateTableView() {
+		if (service == null) {
+			throw new IllegalStateException("Service was null");
+		}
+		if (pendingLoad != null) {
+			pendingLoad.cancel(false);
+		}
+		boolean inMemory = checkBoxInMemory.isSelected();
+		labelSummary.setText(inMemory ? "Loading sellers..." : "Running report...");
+		long start = System.nanoTime();
+		CompletableFuture<List<DepartmentReport>> load = inMemory ? service.departmentReportInMemoryAsync()
+				: service.departmentReportAsync();
+		pendingLoad = load;
+		Utils.whenDoneOnFxThread(load, list -> {
+			if (load != pendingLoad) {
+				return;
+			}
+			pendingLoad = null;
+			tableViewReport.setItems(FXCollections.observableArrayList(list));
+			long sellers = list.stream().mapToLong(DepartmentReport::getHeadcount).sum();
+			labelSummary.setText(String.format("%d sellers in %d departments, %s in %d ms", sellers, list.size(),
+					inMemory ? "computed in memory" : "computed by the database", (System.nanoTime() - start) / 1_000_000));
+		}, e -> {
+			if (load != pendingLoad) {
+				return;
+			}
+			pendingLoad = null;
+			labelSummary.setText("");
+			Alerts.showAlert("Error running report", e.getMessage(), AlertType.ERROR);
+		});
+	}
+}
@@ -0,0 +1,150 @@
+package gui;
+
+import java.net.URL;
+import java.util.ResourceBundle;
+
+import application.Main;
+import db.DB;
+import db.metrics.DbMetrics;
+import db.metrics.OperationStats;
+import gui.utils.Utils;
+import javafx.collections.FXCollections;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.Stage;
+import model.dao.FactoryDao;
+import model.dao.cache.CacheStats;
+
+public class DiagnosticsController implements Initializable {
+
+	@FXML
+	private TableView<OperationStats> tableViewOperations;
+
+	@FXML
+	private TableColumn<OperationStats, String> tableColumnName;
+
+	@FXML
+	private TableColumn<OperationStats, Long> tableColumnCalls;
+
+	@FXML
+	private TableColumn<OperationStats, Long> tableColumnErrors;
+
+	@FXML
+	private TableColumn<OperationStats, Long> tableColumnRows;
+
+	@FXML
+	private TableColumn<OperationStats, Long> tableColumnBytes;
+
+	@FXML
+	private TableColumn<OperationStats, Double> tableColumnP50;
+
+	@FXML
+	private TableColumn<OperationStats, Double> tableColumnP90;
+
+	@FXML
+	private TableColumn<OperationStats, Double> tableColumnP99;
+
+	@FXML
+	private TableColumn<OperationStats, Double> tableColumnMax;
+
+	@FXML
+	private TableView<CacheStats> tableViewCaches;
+
+	@FXML
+	private TableColumn<CacheStats, String> tableColumnCacheName;
+
+	@FXML
+	private TableColumn<CacheStats, Integer> tableColumnCacheSize;
+
+	@FXML
+	private TableColumn<CacheStats, Integer> tableColumnCacheMaxSize;
+
+	@FXML
+	private TableColumn<CacheStats, Long> tableColumnCacheHits;
+
+	@FXML
+	private TableColumn<CacheStats, Long> tableColumnCacheMisses;
+
+	@FXML
+	private TableColumn<CacheStats, Double> tableColumnCacheHitRate;
+
+	@FXML
+	private TableColumn<CacheStats, Long> tableColumnCacheEvictions;
+
+	@FXML
+	private Button btRefresh;
+
+	@FXML
+	private Button btReset;
+
+	@FXML
+	private Label labelSummary;
+
+	@FXML
+	public void onBtRefreshAction() {
+		updateTableView();
+	}
+
+	@FXML
+	public void onBtResetAction() {
+		DbMetrics.reset();
+		FactoryDao.resetCacheStats();
+		updateTableView();
+	}
+
+	@Override
+	public void initialize(URL url, ResourceBundle rb) {
+		initializeNodes();
+	}
+
+	private void initializeNodes() {
+		tableColumnName.setCellValueFactory(new PropertyValueFactory<>("name"));
+		tableColumnCalls.setCellValueFactory(new PropertyValueFactory<>("calls"));
+		tableColumnErrors.setCellValueFactory(new PropertyValueFactory<>("errors"));
+		tableColumnRows.setCellValueFactory(new PropertyValueFactory<>("rows"));
+		tableColumnBytes.setCellValueFactory(new PropertyValueFactory<>("bytesMapped"));
+		tableColumnP50.setCellValueFactory(new PropertyValueFactory<>("p50Millis"));
+		Utils.formatTableColumnDouble(tableColumnP50, 2);
+		tableColumnP90.setCellValueFactory(new PropertyValueFactory<>("p90Millis"));
+		Utils.formatTableColumnDouble(tableColumnP90, 2);
+		tableColumnP99.setCellValueFactory(new PropertyValueFactory<>("p99Millis"));
+		Utils.formatTableColumnDouble(tableColumnP99, 2);
+		tableColumnMax.setCellValueFactory(new PropertyValueFactory<>("maxMillis"));
+		Utils.formatTableColumnDouble(tableColumnMax, 2);
+
+		tableColumnCacheName.setCellValueFactory(new PropertyValueFactory<>("name"));
+		tableColumnCacheSize.setCellValueFactory(new PropertyValueFactory<>("size"));
+		tableColumnCacheMaxSize.setCellValueFactory(new PropertyValueFactory<>("maxSize"));
+		tableColumnCacheHits.setCellValueFactory(new PropertyValueFactory<>("hits"));
+		tableColumnCacheMisses.setCellValueFactory(new PropertyValueFactory<>("misses"));
+		tableColumnCacheHitRate.setCellValueFactory(new PropertyValueFactory<>("hitRate"));
+		Utils.formatTableColumnDouble(tableColumnCacheHitRate, 2);
+		tableColumnCacheEvictions.setCellValueFactory(new PropertyValueFactory<>("evictions"));
+		tableViewCaches.setPlaceholder(new Label("Caching is off (cache.*.maxSize=0)"));
+
+		Utils.runOnFxThread(() -> {
+			Stage stage = (Stage) Main.getScene().getWindow();
+			tableViewOperations.prefHeightProperty().bind(stage.heightProperty());
+			tableViewOperations.prefWidthProperty().bind(stage.widthProperty());
+		});
+	}
+
+	public void updateTableView() {
+		tableViewCaches.setItems(FXCollections.observableArrayList(FactoryDao.getCacheStats()));
+		if (!DbMetrics.isEnabled()) {
+			labelSummary.setText("Metrics are disabled (metrics.enabled=false)");
+			tableViewOperations.setItems(FXCollections.observableArrayList());
+			btReset.setDisable(true);
+			return;
+		}
+		tableViewOperations.setItems(FXCollections.observableArrayList(DbMetrics.getOperationStats()));
+		labelSummary.setText(String.format("Slow queries (>= %d ms): %d    Pool: %d active, %d idle",
+				DbMetrics.getSlowQueryThresholdMillis(), DbMetrics.getSlowQueryCount(), DB.getPool().getActiveCount(),
+				DB.getPool().getIdleCount()));
+	}
+}
@@ -2,22 +2,32 @@ package gui;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ResourceBundle;
 import java.util.function.Consumer;
 
 import application.Main;
 import gui.utils.Alerts;
+import gui.utils.ViewCache;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.MenuBar;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.layout.VBox;
+import model.entities.Department;
+import model.entities.Seller;
 import model.services.DepartmentService;
+import model.services.ReportService;
 import model.services.SellerService;
+import model.sync.SyncConflict;
+import model.sync.SyncListener;
+import model.sync.WriteBehind;
 
 public class MainViewController implements Initializable {
 
@@ -27,6 +37,12 @@ public class MainViewController implements Initializable {
 	@FXML
 	private MenuItem menuItemDepartment;
 
+	@FXML
+	private MenuItem menuItemDepartmentReport;
+
+	@FXML
+	private MenuItem menuItemDiagnostics;
+
 	@FXML
 	private MenuItem menuItemAbout;
 
@@ -46,6 +62,19 @@ public class MainViewController implements Initializable {
 		});
 	}
 
+	@FXML
+	public void onMenuItemDepartmentReportAction() {
+		loadView("/gui/DepartmentReport.fxml", (DepartmentReportController controller) -> {
+			controller.setReportService(new ReportService());
+			controller.updateTableView();
+		});
+	}
+
+	@FXML
+	public void onMenuItemDiagnosticsAction() {
+		loadView("/gui/Diagnostics.fxml", (DiagnosticsController controller) -> controller.updateTableView());
+	}
+
 	@FXML
 	public void onMenuItemAboutAction() {
 		loadView("/gui/About.fxml", x -> {});
@@ -53,22 +82,46 @@ public class MainViewController implements Initializable {
 
 	@Override
 	public void initialize(URL url, ResourceBundle rb) {
+		ViewCache.preload("/gui/SellerList.fxml", "/gui/DepartmentList.fxml", "/gui/SellerForm.fxml",
+				"/gui/DepartmentForm.fxml", "/gui/About.fxml");
+		WriteBehind writeBehind = WriteBehind.get();
+		if (writeBehind != null) {
+			writeBehind.addSellerListener(new SyncListener<Seller>() {
+				@Override
+				public void onConflict(SyncConflict<Seller> conflict) {
+					Platform.runLater(() -> showConflict(conflict, "seller '" + conflict.getEntity().getName() + "'"));
+				}
+			});
+			writeBehind.addDepartmentListener(new SyncListener<Department>() {
+				@Override
+				public void onConflict(SyncConflict<Department> conflict) {
+					Platform.runLater(
+							() -> showConflict(conflict, "department '" + conflict.getEntity().getName() + "'"));
+				}
+			});
+		}
+	}
+
+	/** A change that was already shown as saved turned out to be refused by the database. */
+	private void showConflict(SyncConflict<?> conflict, String what) {
+		Alerts.showAlert("Change not saved", (conflict.isDelete() ? "Deleting " : "Saving ") + what
+				+ " was refused by the database: " + conflict.getMessage(), AlertType.WARNING);
 	}
 
 	private synchronized <T> void loadView(String path, Consumer<T> instance) {
 		try {
-			FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource(path));
-			VBox vBox = fxmlLoader.load();
+			ViewCache.View<T> view = ViewCache.get(path);
 			
 			Scene mainScene = Main.getScene();
 			VBox mainVBox = (VBox) ((ScrollPane) mainScene.getRoot()).getContent();
 			MenuBar mainMenu = (MenuBar) mainVBox.getChildren().get(0);
 			
-			mainVBox.getChildren().clear();
-			mainVBox.getChildren().add(mainMenu);
-			mainVBox.getChildren().addAll(vBox.getChildren());
+			List<Node> children = new ArrayList<>();
+			children.add(mainMenu);
+			children.addAll(view.getChildren());
+			mainVBox.getChildren().setAll(children);
 			
-			T controller = fxmlLoader.getController();
+			T controller = view.getController();
 			instance.accept(controller);
 		} catch (IOException e) {
 			Alerts.showAlert("IO Exception", e.getMessage(), AlertType.ERROR);
@@ -8,10 +8,13 @@ import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 import java.util.ResourceBundle;
 import java.util.Set;
 
-import db.exceptions.DbException;
+import db.exceptions.DbConflictException;
+import db.exceptions.EntityNotFoundException;
+import gui.listeners.DataChangeEvent;
 import gui.listeners.DataChangeListener;
 import gui.utils.Alerts;
 import gui.utils.Constraints;
@@ -23,6 +26,7 @@ import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
+import javafx.scene.control.ButtonType;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
@@ -35,14 +39,16 @@ import model.dao.exceptions.ValidationException;
 import model.entities.Department;
 import model.entities.Seller;
 import model.services.DepartmentService;
+import model.services.Parsers;
 import model.services.SellerService;
+import model.services.SellerValidator;
 
 public class SellerFormController implements Initializable {
 
 	private Seller obj;
 	private SellerService sellerService;
 	private DepartmentService departmentService;
-	private List<DataChangeListener> dataChangeListeners = new ArrayList<>();
+	private List<DataChangeListener<Seller>> dataChangeListeners = new ArrayList<>();
 
 	@FXML
 	private TextField textFieldId;
@@ -101,14 +107,73 @@ public class SellerFormController implements Initializable {
 		}
 		try {
 			obj = getFormData();
-			sellerService.SaveOrUpdate(obj);
-			notifyDataChangeListener();
-			Utils.currentStage(ae).close();
-		} catch (DbException e) {
-			Alerts.showAlert("Error savign object", e.getMessage(), AlertType.ERROR);
 		} catch (ValidationException e) {
 			setErrorMessage(e.getErrors());
+			return;
 		}
+		DataChangeEvent.Type type = obj.getId() == null ? DataChangeEvent.Type.INSERTED : DataChangeEvent.Type.UPDATED;
+		save(obj, type, Utils.currentStage(ae));
+	}
+
+	private void save(Seller saved, DataChangeEvent.Type type, Stage stage) {
+		btSave.setDisable(true);
+		Utils.whenDoneOnFxThread(sellerService.saveOrUpdateAsync(saved), x -> {
+			notifyDataChangeListener(new DataChangeEvent<>(type, saved, saved.getId()));
+			stage.close();
+		}, e -> {
+			btSave.setDisable(false);
+			if (e instanceof DbConflictException) {
+				resolveConflict(saved, stage);
+			} else if (e instanceof EntityNotFoundException) {
+				onDeletedElsewhere(saved, stage);
+			} else {
+				Alerts.showAlert("Error savign object", e.getMessage(), AlertType.ERROR);
+			}
+		});
+	}
+
+	/**
+	 * Someone else saved this seller since the form was opened. Nothing is
+	 * locked meanwhile; the user either writes their values over the newer row
+	 * or drops their edits and loads it.
+	 */
+	private void resolveConflict(Seller mine, Stage stage) {
+		ButtonType overwrite = new ButtonType("Overwrite");
+		ButtonType reload = new ButtonType("Reload");
+		Optional<ButtonType> choice = Alerts.showChoice("Conflicting change",
+				"Another user changed this seller after you opened it. Overwrite their changes with yours, "
+						+ "or reload the current data and discard your edits?",
+				overwrite, reload, ButtonType.CANCEL);
+		if (choice.isEmpty() || choice.get() == ButtonType.CANCEL) {
+			return;
+		}
+		btSave.setDisable(true);
+		Utils.whenDoneOnFxThread(sellerService.findByIdAsync(mine.getId()), current -> {
+			btSave.setDisable(false);
+			if (current == null) {
+				Alerts.showAlert("Error savign object", "Could not load the current data", AlertType.ERROR);
+			} else if (choice.get() == overwrite) {
+				mine.setVersion(current.getVersion());
+				save(mine, DataChangeEvent.Type.UPDATED, stage);
+			} else {
+				obj = current;
+				updateFormData();
+				notifyDataChangeListener(new DataChangeEvent<>(DataChangeEvent.Type.UPDATED, current, current.getId()));
+			}
+		}, e -> {
+			btSave.setDisable(false);
+			if (e instanceof EntityNotFoundException) {
+				onDeletedElsewhere(mine, stage);
+			} else {
+				Alerts.showAlert("Error savign object", e.getMessage(), AlertType.ERROR);
+			}
+		});
+	}
+
+	private void onDeletedElsewhere(Seller mine, Stage stage) {
+		Alerts.showAlert("Conflicting change", "Another user deleted this seller.", AlertType.WARNING);
+		notifyDataChangeListener(new DataChangeEvent<>(DataChangeEvent.Type.DELETED, mine, mine.getId()));
+		stage.close();
 	}
 
 	private void setErrorMessage(Map<String, String> errors) {
@@ -120,32 +185,16 @@ public class SellerFormController implements Initializable {
 	}
 
 	private Seller getFormData() {
-		Integer id = Utils.tryParseToInt(textFieldId.getText());
+		Integer id = Parsers.tryParseToInt(textFieldId.getText());
 		String name = textFieldName.getText();
 		String email = textFieldEmail.getText();
-		Date birthDate = Utils.tryParseToDate(datePickerBirthDate.getEditor().getText(), datePickerBirthDate.getPromptText());
-		Double baseSalary = Utils.tryParseToDouble(textFieldBaseSalary.getText());
+		Date birthDate = Parsers.tryParseToDate(datePickerBirthDate.getEditor().getText(), datePickerBirthDate.getPromptText());
+		Double baseSalary = Parsers.tryParseToDouble(textFieldBaseSalary.getText());
 		Department department = comboBoxDepartments.getValue();
 
-		ValidationException ex = new ValidationException("Error validation");
-		String msg = "Field can't be empty";
-		if (name == null || name.isBlank()) {
-			ex.addError("name", msg);
-		}
-		if (email == null || email.isBlank()) {
-			ex.addError("email", msg);
-		}
-		if (birthDate == null) {
-			ex.addError("birthDate", msg);
-		}
-		if (baseSalary == null) {
-			ex.addError("baseSalary", msg);
-		}
-		if (ex.getErrors().size() > 0) {
-			throw ex;
-		}
-
-		return new Seller(id, name, email, birthDate, baseSalary, department);
+		Seller seller = SellerValidator.validate(id, name, email, birthDate, baseSalary, department);
+		seller.setVersion(obj.getVersion());
+		return seller;
 	}
 
 	@FXML
@@ -168,13 +217,15 @@ public class SellerFormController implements Initializable {
 		initializeComboBoxDepartment();
 	}
 
-	public void subscribeDataChangeListener(DataChangeListener listener) {
-		dataChangeListeners.add(listener);
+	public void subscribeDataChangeListener(DataChangeListener<Seller> listener) {
+		if (!dataChangeListeners.contains(listener)) {
+			dataChangeListeners.add(listener);
+		}
 	}
 	
-	private void notifyDataChangeListener() {
-		for (DataChangeListener listener : dataChangeListeners) {
-			listener.onDataChange();
+	private void notifyDataChangeListener(DataChangeEvent<Seller> event) {
+		for (DataChangeListener<Seller> listener : dataChangeListeners) {
+			listener.onDataChange(event);
 		}
 	}
 
@@ -189,7 +240,12 @@ public class SellerFormController implements Initializable {
 		textFieldBaseSalary.setText(String.format("%.2f", obj.getBaseSalary()));
 		if (obj.getBirthDate() != null) {
 			datePickerBirthDate.setValue(LocalDate.ofInstant(obj.getBirthDate().toInstant(), ZoneId.systemDefault()));
+		} else {
+			datePickerBirthDate.setValue(null);
 		}
+		// the form is reused between dialogs, so clear what the last one left
+		setErrorMessage(Map.of());
+		btSave.setDisable(false);
 		if (obj.getDepartment() == null) {
 			comboBoxDepartments.getSelectionModel().selectFirst();
 		} else {
@@ -201,9 +257,20 @@ public class SellerFormController implements Initializable {
 		if (departmentService == null) {
 			throw new IllegalStateException("Service was null");
 		}
-		List<Department> list = departmentService.findAll();
-		obsList = FXCollections.observableArrayList(list);
-		comboBoxDepartments.setItems(obsList);
+		comboBoxDepartments.setPromptText("Loading...");
+		comboBoxDepartments.setDisable(true);
+		Utils.whenDoneOnFxThread(departmentService.findAllAsync(), list -> {
+			obsList = FXCollections.observableArrayList(list);
+			comboBoxDepartments.setItems(obsList);
+			comboBoxDepartments.setPromptText(null);
+			comboBoxDepartments.setDisable(false);
+			if (comboBoxDepartments.getValue() == null) {
+				comboBoxDepartments.getSelectionModel().selectFirst();
+			}
+		}, e -> {
+			comboBoxDepartments.setPromptText("Unavailable");
+			Alerts.showAlert("Error loading departments", e.getMessage(), AlertType.ERROR);
+		});
 	}
 
 	private void initializeComboBoxDepartment() {
@@ -0,0 +1,117 @@
+package gui;
+
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.ResourceBundle;
+
+import gui.utils.Alerts;
+import gui.utils.Utils;
+import javafx.application.Platform;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import model.services.SellerImport;
+
+public class SellerImportController implements Initializable {
+
+	private SellerImport sellerImport;
+
+	private boolean running;
+
+	@FXML
+	private Label labelFile;
+
+	@FXML
+	private ProgressBar progressBar;
+
+	@FXML
+	private Label labelStatus;
+
+	@FXML
+	private Label labelErrorReport;
+
+	@FXML
+	private Button btCancel;
+
+	@FXML
+	private Button btClose;
+
+	@FXML
+	public void onBtCancelAction() {
+		cancel();
+	}
+
+	@FXML
+	public void onBtCloseAction(ActionEvent ae) {
+		Utils.currentStage(ae).close();
+	}
+
+	@Override
+	public void initialize(URL url, ResourceBundle rb) {
+	}
+
+	/**
+	 * Starts importing {@code source}; rejected lines are written next to it
+	 * as {@code <name>.errors.csv}. {@code onFinished} runs on the JavaFX
+	 * Application Thread once the import has stopped.
+	 */
+	public void start(Path source, Runnable onFinished) {
+		Path errorReport = source.resolveSibling(source.getFileName() + ".errors.csv");
+		sellerImport = new SellerImport(source, errorReport);
+		running = true;
+		labelFile.setText("Importing " + source.getFileName());
+		labelStatus.setText("Starting...");
+		labelErrorReport.setText("");
+		progressBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
+		btCancel.setDisable(false);
+		btClose.setDisable(true);
+
+		Utils.whenDoneOnFxThread(sellerImport.startAsync(progress -> Platform.runLater(() -> showProgress(progress))),
+				progress -> {
+					finish();
+					showProgress(progress);
+					labelStatus.setText((progress.isCancelled() ? "Cancelled: " : "Done: ") + labelStatus.getText());
+					if (progress.getRejected() > 0) {
+						labelErrorReport.setText("Rejected rows were written to " + errorReport);
+					}
+					onFinished.run();
+				}, e -> {
+					finish();
+					labelStatus.setText("Import failed");
+					Alerts.showAlert("Error importing sellers", e.getMessage(), AlertType.ERROR);
+					onFinished.run();
+				});
+	}
+
+	/** Asks a running import to stop after the chunk it is writing. */
+	public void cancel() {
+		if (running) {
+			sellerImport.cancel();
+			btCancel.setDisable(true);
+			labelStatus.setText("Cancelling...");
+		}
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+
+	private void finish() {
+		running = false;
+		btCancel.setDisable(true);
+		btClose.setDisable(false);
+	}
+
+	private void showProgress(SellerImport.Progress progress) {
+		if (running || progress.isDone()) {
+			progressBar.setProgress(progress.getFraction());
+			labelStatus.setText(String.format("%d rows read, %d imported, %d rejected (%.0f rows/s)",
+					progress.getRowsRead(), progress.getImported(), progress.getRejected(),
+					progress.getRowsPerSecond()));
+		}
+	}
+}
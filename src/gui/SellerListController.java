@@ -1,41 +1,72 @@
 package gui;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Path;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 
 import application.Main;
-import db.exceptions.DbIntegrityException;
+import db.DB;
+import db.exceptions.EntityNotFoundException;
+import gui.listeners.DataChangeEvent;
 import gui.listeners.DataChangeListener;
 import gui.utils.Alerts;
+import gui.utils.ChangePoller;
+import gui.utils.PageLoader;
+import gui.utils.PagedList;
+import gui.utils.SellerStoreList;
+import gui.utils.TableExport;
 import gui.utils.Utils;
+import gui.utils.ViewCache;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.Label;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.scene.control.ToggleButton;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.Pane;
+import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import model.dao.ChangeSet;
+import model.dao.ChangeToken;
+import model.dao.SellerColumn;
+import model.dao.SellerProjection;
+import model.dao.SellerSearchCriteria;
+import model.dao.SellerSort;
 import model.entities.Seller;
 import model.services.DepartmentService;
 import model.services.SellerService;
+import model.store.SellerRowView;
+import model.store.SellerStore;
+import model.sync.SyncListener;
+import model.sync.WriteBehind;
 
-public class SellerListController implements Initializable, DataChangeListener {
+public class SellerListController implements Initializable, DataChangeListener<Seller> {
 
 	private SellerService sellerService;
 
@@ -66,7 +97,57 @@ public class SellerListController implements Initializable, DataChangeListener {
 	@FXML
 	private Button btNew;
 
-	private ObservableList<Seller> obsList;
+	@FXML
+	private Button btImport;
+
+	@FXML
+	private Button btExport;
+
+	@FXML
+	private TextField textFieldSearch;
+
+	@FXML
+	private ToggleButton toggleShowAll;
+
+	private static final int PAGE_SIZE = 100;
+	private static final int MAX_CACHED_PAGES = 20;
+
+	/** The columns the table shows. */
+	private static final SellerProjection LIST_COLUMNS = SellerProjection.of(SellerColumn.NAME, SellerColumn.EMAIL,
+			SellerColumn.BIRTH_DATE, SellerColumn.BASE_SALARY);
+
+	/** Close to {@link SellerSort#NAME}; the database collation is case-insensitive. */
+	private static final Comparator<Seller> NAME_ORDER = Comparator
+			.comparing(Seller::getName, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+			.thenComparing(Seller::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+	private static final TableExport<Seller> EXPORT = new TableExport<Seller>()
+			.numberColumn("Id", obj -> String.valueOf(obj.getId()))
+			.column("Name", Seller::getName)
+			.column("Email", Seller::getEmail)
+			.column("BirthDate", obj -> Utils.formatDate(obj.getBirthDate(), "dd/MM/yyyy"))
+			.numberColumn("BaseSalary", obj -> Utils.formatDouble(obj.getBaseSalary(), 2, Locale.ROOT))
+			.column("Department", obj -> obj.getDepartment().getName());
+
+	private PagedList<Seller> obsList;
+
+	/** Every seller, held column by column, while "Show all" is selected. */
+	private SellerStoreList allList;
+
+	private ChangePoller<Seller> poller;
+
+	/** Rows this view removed itself, so the poller reporting them again is ignored. */
+	private final Set<Integer> removedHere = new HashSet<>();
+
+	private final PauseTransition searchDelay = new PauseTransition(Duration.millis(300));
+
+	private CompletableFuture<List<Seller>> pendingSearch;
+
+	private CompletableFuture<SellerStore> pendingLoadAll;
+
+	private Stage dialogStage;
+
+	private Stage importStage;
 
 	@FXML
 	public void onBtNewAction(ActionEvent ae) {
@@ -74,6 +155,47 @@ public class SellerListController implements Initializable, DataChangeListener {
 		createDialogForm(seller, "/gui/SellerForm.fxml", Utils.currentStage(ae));
 	}
 
+	@FXML
+	public void onBtImportAction(ActionEvent ae) {
+		Stage parentStage = Utils.currentStage(ae);
+		FileChooser chooser = new FileChooser();
+		chooser.setTitle("Import sellers");
+		chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+		File file = chooser.showOpenDialog(parentStage);
+		if (file != null) {
+			createImportDialog(file.toPath(), parentStage);
+		}
+	}
+
+	@FXML
+	public void onBtExportAction(ActionEvent ae) {
+		File file = Utils.chooseExportFile(Utils.currentStage(ae), "sellers.csv");
+		if (file == null) {
+			return;
+		}
+		btExport.setDisable(true);
+		Utils.whenDoneOnFxThread(EXPORT.exportAsync(sellerService::streamAll, file.toPath()), count -> {
+			btExport.setDisable(false);
+			Alerts.showAlert("Export", count + " sellers exported to " + file, AlertType.INFORMATION);
+		}, e -> {
+			btExport.setDisable(false);
+			Alerts.showAlert("Error exporting sellers", e.getMessage(), AlertType.ERROR);
+		});
+	}
+
+	@FXML
+	public void onToggleShowAllAction() {
+		searchDelay.stop();
+		cancelPendingSearch();
+		textFieldSearch.setDisable(toggleShowAll.isSelected());
+		if (toggleShowAll.isSelected()) {
+			loadAll();
+		} else {
+			allList = null;
+			runSearch();
+		}
+	}
+
 	public void setSellerService(SellerService sellerService) {
 		this.sellerService = sellerService;
 	}
@@ -81,11 +203,60 @@ public class SellerListController implements Initializable, DataChangeListener {
 	@Override
 	public void initialize(URL url, ResourceBundle rb) {
 		initializeNotes();
+		initializePoller();
+		WriteBehind writeBehind = WriteBehind.get();
+		if (writeBehind != null) {
+			writeBehind.addSellerListener(new SyncListener<Seller>() {
+				@Override
+				public void onInserted(Seller entity, int temporaryId) {
+					Platform.runLater(() -> {
+						onDataChange(new DataChangeEvent<>(DataChangeEvent.Type.DELETED, entity, temporaryId));
+						onDataChange(new DataChangeEvent<>(DataChangeEvent.Type.INSERTED, entity, entity.getId()));
+					});
+				}
+			});
+		}
 	}
 
 	@Override
-	public void onDataChange() {
-		updateTableView();
+	public void onDataChange(DataChangeEvent<Seller> event) {
+		if (event.getType() == DataChangeEvent.Type.DELETED) {
+			removedHere.add(event.getId());
+		}
+		merge(event);
+	}
+
+	/** Merges what other clients changed since the last poll. */
+	private void applyChanges(ChangeSet<Seller> changes) {
+		for (Seller seller : changes.getInserted()) {
+			merge(new DataChangeEvent<>(DataChangeEvent.Type.INSERTED, seller, seller.getId()));
+		}
+		for (Seller seller : changes.getUpdated()) {
+			merge(new DataChangeEvent<>(DataChangeEvent.Type.UPDATED, seller, seller.getId()));
+		}
+		for (Integer id : changes.getDeletedIds()) {
+			if (!removedHere.remove(id)) {
+				merge(new DataChangeEvent<>(DataChangeEvent.Type.DELETED, null, id));
+			}
+		}
+	}
+
+	private void merge(DataChangeEvent<Seller> event) {
+		if (obsList == null) {
+			return;
+		}
+		obsList.applyChange(event);
+		if (allList != null) {
+			allList.applyChange(event);
+		} else if (tableViewSeller.getItems() != obsList
+				&& (event.getType() != DataChangeEvent.Type.INSERTED || matchesSearch(event.getEntity()))) {
+			Utils.applyChange(tableViewSeller.getItems(), event, Seller::getId, NAME_ORDER);
+		}
+	}
+
+	private boolean matchesSearch(Seller seller) {
+		String prefix = textFieldSearch.getText().trim();
+		return seller.getName() != null && seller.getName().regionMatches(true, 0, prefix, 0, prefix.length());
 	}
 
 	private void initializeNotes() {
@@ -96,48 +267,199 @@ public class SellerListController implements Initializable, DataChangeListener {
 		Utils.formatTableColumnDate(tableColumnBirthDate, "dd/MM/yyyy");
 		tableColumnBaseSalary.setCellValueFactory(new PropertyValueFactory<>("baseSalary"));
 		Utils.formatTableColumnDouble(tableColumnBaseSalary, 2);
+		initEditButtons();
+		initRemoveButtons();
+
+		searchDelay.setOnFinished(e -> runSearch());
+		textFieldSearch.textProperty().addListener((obs, oldValue, newValue) -> {
+			cancelPendingSearch();
+			searchDelay.playFromStart();
+		});
 
-		Stage stage = (Stage) Main.getScene().getWindow();
-		tableViewSeller.prefHeightProperty().bind(stage.heightProperty());
-		tableViewSeller.prefWidthProperty().bind(stage.widthProperty());
+		Utils.runOnFxThread(() -> {
+			Stage stage = (Stage) Main.getScene().getWindow();
+			tableViewSeller.prefHeightProperty().bind(stage.heightProperty());
+			tableViewSeller.prefWidthProperty().bind(stage.widthProperty());
+		});
+	}
+
+	/**
+	 * Polls for changes while the list is on screen. A poll that finds too
+	 * many, or comes after the change log was pruned, reloads the list.
+	 */
+	private void initializePoller() {
+		poller = new ChangePoller<>(new ChangePoller.Source<Seller>() {
+			@Override
+			public ChangeToken currentToken() {
+				return sellerService.currentChangeToken();
+			}
+
+			@Override
+			public ChangeSet<Seller> changedSince(ChangeToken token) {
+				return sellerService.findChangedSince(token);
+			}
+		}, this::applyChanges, this::updateTableView, DB.getIntProperty("changes.pollMinMs", 1000),
+				DB.getIntProperty("changes.pollMaxMs", 30000), SellerService.getChangeRetentionMillis() / 2);
+		tableViewSeller.sceneProperty().addListener((obs, oldScene, newScene) -> {
+			if (newScene == null) {
+				poller.stop();
+			} else {
+				poller.start();
+			}
+		});
 	}
 
 	public void updateTableView() {
 		if (sellerService == null) {
 			throw new IllegalStateException("Service was null");
 		}
-		List<Seller> list = sellerService.findAll();
-		obsList = FXCollections.observableArrayList(list);
-		initEditButtons();
-		initRemoveButtons();
-		tableViewSeller.setItems(obsList);
+		removedHere.clear();
+		if (obsList == null) {
+			sellerService.pruneChangesAsync();
+			obsList = new PagedList<>(new SellerPageLoader(), Seller::getId, NAME_ORDER, PAGE_SIZE, MAX_CACHED_PAGES);
+			obsList.setOnLoadFailure(e -> Alerts.showAlert("Error loading sellers", e.getMessage(), AlertType.ERROR));
+			tableViewSeller.setItems(obsList);
+		}
+		if (toggleShowAll.isSelected()) {
+			loadAll();
+		} else if (isSearching()) {
+			runSearch();
+		} else {
+			tableViewSeller.setPlaceholder(new Label("Loading sellers..."));
+		}
+		obsList.refresh().whenComplete((count, e) -> {
+			if (e instanceof CancellationException || tableViewSeller.getItems() != obsList) {
+				return;
+			}
+			if (e != null) {
+				tableViewSeller.setPlaceholder(new Label("Could not load sellers"));
+				Alerts.showAlert("Error loading sellers", e.getMessage(), AlertType.ERROR);
+				return;
+			}
+			tableViewSeller.setPlaceholder(new Label("No sellers registered"));
+		});
+	}
+
+	/**
+	 * Loads every seller into a {@link SellerStoreList}, in id order. Rows are
+	 * read from the columnar store as the table shows them, so the whole table
+	 * costs a fraction of the heap of one {@code Seller} per row.
+	 */
+	private void loadAll() {
+		tableViewSeller.setPlaceholder(new Label("Loading sellers..."));
+		CompletableFuture<SellerStore> load = sellerService.findAllColumnarAsync();
+		pendingLoadAll = load;
+		Utils.whenDoneOnFxThread(load, store -> {
+			if (load != pendingLoadAll || !toggleShowAll.isSelected()) {
+				return;
+			}
+			if (allList == null) {
+				allList = new SellerStoreList(store);
+			} else {
+				allList.setStore(store);
+			}
+			tableViewSeller.setPlaceholder(new Label("No sellers registered"));
+			tableViewSeller.setItems(allList);
+		}, e -> {
+			if (load != pendingLoadAll || !toggleShowAll.isSelected()) {
+				return;
+			}
+			tableViewSeller.setPlaceholder(new Label("Could not load sellers"));
+			Alerts.showAlert("Error loading sellers", e.getMessage(), AlertType.ERROR);
+		});
+	}
+
+	private boolean isSearching() {
+		return textFieldSearch.getText() != null && !textFieldSearch.getText().isBlank();
+	}
+
+	private void runSearch() {
+		cancelPendingSearch();
+		if (!isSearching()) {
+			tableViewSeller.setPlaceholder(new Label("No sellers registered"));
+			tableViewSeller.setItems(obsList);
+			return;
+		}
+		SellerSearchCriteria criteria = new SellerSearchCriteria();
+		criteria.setNamePrefix(textFieldSearch.getText().trim());
+		criteria.setProjection(LIST_COLUMNS);
+		tableViewSeller.setPlaceholder(new Label("Searching..."));
+		CompletableFuture<List<Seller>> search = sellerService.searchAsync(criteria);
+		pendingSearch = search;
+		Utils.whenDoneOnFxThread(search, list -> {
+			if (search != pendingSearch) {
+				return;
+			}
+			pendingSearch = null;
+			tableViewSeller.setPlaceholder(new Label("No sellers found"));
+			tableViewSeller.setItems(FXCollections.observableArrayList(list == null ? List.of() : list));
+		}, e -> {
+			if (search != pendingSearch) {
+				return;
+			}
+			pendingSearch = null;
+			Alerts.showAlert("Error searching sellers", e.getMessage(), AlertType.ERROR);
+		});
+	}
+
+	private void cancelPendingSearch() {
+		if (pendingSearch != null) {
+			pendingSearch.cancel(false);
+			pendingSearch = null;
+		}
 	}
 
 	private void createDialogForm(Seller obj, String path, Stage parentStage) {
 		try {
-			FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource(path));
-			Pane pane = fxmlLoader.load();
-			pane.setPrefSize(300, 300);
-
-			SellerFormController controller = fxmlLoader.getController();
+			ViewCache.View<SellerFormController> view = ViewCache.get(path);
+			SellerFormController controller = view.getController();
 			controller.setSeller(obj);
 			controller.setServices(new SellerService(), new DepartmentService());
 			controller.loadAssociatedObjects();
 			controller.subscribeDataChangeListener(this);
 			controller.updateFormData();
 
-			Stage dialogStage = new Stage();
-			dialogStage.setTitle("Enter Seller data");
-			dialogStage.setScene(new Scene(pane));
-			dialogStage.setResizable(false);
-			dialogStage.initOwner(parentStage);
-			dialogStage.initModality(Modality.WINDOW_MODAL);
+			if (dialogStage == null) {
+				Pane pane = (Pane) view.getRoot();
+				pane.setPrefSize(300, 300);
+				dialogStage = new Stage();
+				dialogStage.setTitle("Enter Seller data");
+				dialogStage.setScene(new Scene(pane));
+				dialogStage.setResizable(false);
+				dialogStage.initOwner(parentStage);
+				dialogStage.initModality(Modality.WINDOW_MODAL);
+			}
 			dialogStage.showAndWait();
 		} catch (IOException e) {
 			Alerts.showAlert("IO Exception", e.getMessage(), AlertType.ERROR);
 		}
 	}
 
+	private void createImportDialog(Path source, Stage parentStage) {
+		try {
+			ViewCache.View<SellerImportController> view = ViewCache.get("/gui/SellerImport.fxml");
+			SellerImportController controller = view.getController();
+			if (importStage == null) {
+				importStage = new Stage();
+				importStage.setTitle("Import sellers");
+				importStage.setScene(new Scene((Pane) view.getRoot()));
+				importStage.setResizable(false);
+				importStage.initOwner(parentStage);
+				importStage.initModality(Modality.WINDOW_MODAL);
+				importStage.setOnCloseRequest(e -> {
+					if (controller.isRunning()) {
+						controller.cancel();
+						e.consume();
+					}
+				});
+			}
+			controller.start(source, this::updateTableView);
+			importStage.showAndWait();
+		} catch (IOException e) {
+			Alerts.showAlert("IO Exception", e.getMessage(), AlertType.ERROR);
+		}
+	}
+
 	private void initEditButtons() {
 		tableColumnEdit.setCellValueFactory(param -> new ReadOnlyObjectWrapper<>(param.getValue()));
 		tableColumnEdit.setCellFactory(param -> new TableCell<Seller, Seller>() {
@@ -152,11 +474,29 @@ public class SellerListController implements Initializable, DataChangeListener {
 				}
 				setGraphic(button);
 				setAlignment(Pos.CENTER);
-				button.setOnAction(ae -> createDialogForm(item, "/gui/SellerForm.fxml", Utils.currentStage(ae)));
+				button.setOnAction(ae -> editEntity(item, Utils.currentStage(ae)));
 			}
 		});
 	}
 
+	/** List rows only hold {@link #LIST_COLUMNS}, so the form gets the whole seller. */
+	private void editEntity(Seller row, Stage parentStage) {
+		Seller item = detached(row);
+		if (item.getDepartment() != null) {
+			createDialogForm(item, "/gui/SellerForm.fxml", parentStage);
+			return;
+		}
+		Utils.whenDoneOnFxThread(sellerService.findByIdAsync(item.getId()),
+				seller -> createDialogForm(seller, "/gui/SellerForm.fxml", parentStage), e -> {
+					if (e instanceof EntityNotFoundException) {
+						Alerts.showAlert("Edit", "Another user deleted this seller.", AlertType.WARNING);
+						onDataChange(new DataChangeEvent<>(DataChangeEvent.Type.DELETED, item, item.getId()));
+					} else {
+						Alerts.showAlert("Error loading seller", e.getMessage(), AlertType.ERROR);
+					}
+				});
+	}
+
 	private void initRemoveButtons() {
 		tableColumnRemove.setCellValueFactory(param -> new ReadOnlyObjectWrapper<>(param.getValue()));
 		tableColumnRemove.setCellFactory(param -> new TableCell<Seller, Seller>() {
@@ -176,19 +516,40 @@ public class SellerListController implements Initializable, DataChangeListener {
 		});
 	}
 
-	private void removeEntity(Seller item) {
+	private void removeEntity(Seller row) {
+		Seller item = detached(row);
 		Optional<ButtonType> result = Alerts.showConfirmation("Confirmation", "Are you sure to delete?");
 
 		if (result.get().equals(ButtonType.OK)) {
 			if (sellerService == null) {
 				throw new IllegalStateException("Service was null");
 			}
-			try {
-				sellerService.remove(item);
-				updateTableView();
-			} catch (DbIntegrityException e) {
-				Alerts.showAlert("Error removing object", e.getMessage(), AlertType.ERROR);
-			}
+			Utils.whenDoneOnFxThread(sellerService.removeAsync(item),
+					x -> onDataChange(new DataChangeEvent<>(DataChangeEvent.Type.DELETED, item, item.getId())),
+					e -> Alerts.showAlert("Error removing object", e.getMessage(), AlertType.ERROR));
+		}
+	}
+
+	/** A copy of a row of {@link #allList}, which can be edited and outlives the row. */
+	private static Seller detached(Seller row) {
+		return row instanceof SellerRowView ? ((SellerRowView) row).toSeller() : row;
+	}
+
+	private class SellerPageLoader implements PageLoader<Seller> {
+
+		@Override
+		public int count() {
+			return poller.load(sellerService::count);
+		}
+
+		@Override
+		public List<Seller> loadPage(Seller afterKey, int limit) {
+			return sellerService.findPage(afterKey, limit, SellerSort.NAME, LIST_COLUMNS);
+		}
+
+		@Override
+		public List<Seller> loadPageAt(int offset, int limit) {
+			return sellerService.findPageAt(offset, limit, SellerSort.NAME, LIST_COLUMNS);
 		}
 	}
 }
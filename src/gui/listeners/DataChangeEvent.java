@@ -0,0 +1,39 @@
+package gui.listeners;
+
+/**
+ * A single row that was inserted, updated or deleted, so a list can patch that
+ * row instead of loading everything again.
+ */
+public class DataChangeEvent<T> {
+
+	public enum Type {
+		INSERTED, UPDATED, DELETED
+	}
+
+	private final Type type;
+	private final T entity;
+	private final Integer id;
+
+	public DataChangeEvent(Type type, T entity, Integer id) {
+		this.type = type;
+		this.entity = entity;
+		this.id = id;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public T getEntity() {
+		return entity;
+	}
+
+	public Integer getId() {
+		return id;
+	}
+
+	@Override
+	public String toString() {
+		return type + "[id=" + id + "]";
+	}
+}
@@ -23,4 +23,11 @@ public class Alerts {
 		alert.setContentText(content);
 		return alert.showAndWait();
 	}
+
+	public static Optional<ButtonType> showChoice(String title, String content, ButtonType... buttons) {
+		Alert alert = new Alert(AlertType.WARNING, content, buttons);
+		alert.setTitle(title);
+		alert.setHeaderText(null);
+		return alert.showAndWait();
+	}
 }
@@ -0,0 +1,179 @@
+package gui.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javafx.animation.PauseTransition;
+import javafx.util.Duration;
+import model.dao.ChangeSet;
+import model.dao.ChangeToken;
+import model.services.ServiceExecutor;
+
+/**
+ * Keeps a list current by asking for the rows changed since the last poll, so
+ * staying up to date costs the changed rows rather than the whole table. The
+ * interval drops back to the minimum after a poll that found changes and
+ * doubles, up to the maximum, after one that found nothing or failed.
+ * <p>
+ * The list's own loads go through {@link #load(Supplier)}, which takes a token
+ * just before them; polling continues from there, and a poll that overlaps a
+ * load is thrown away, as the load already covers it.
+ * <p>
+ * Must only be used from the JavaFX Application Thread, except for
+ * {@code load}.
+ */
+public class ChangePoller<T> {
+
+	private static final Logger LOG = Logger.getLogger(ChangePoller.class.getName());
+
+	/** Called from worker threads. */
+	public interface Source<T> {
+
+		ChangeToken currentToken();
+
+		ChangeSet<T> changedSince(ChangeToken token);
+	}
+
+	private final Source<T> source;
+	private final Consumer<ChangeSet<T>> onChanges;
+	private final Runnable onReloadRequired;
+	private final long minIntervalMillis;
+	private final long maxIntervalMillis;
+	private final long maxAgeMillis;
+	private final PauseTransition timer = new PauseTransition();
+	private final AtomicLong loads = new AtomicLong();
+
+	private ChangeToken token;
+	private long tokenLoad;
+	private long tokenTime;
+	private long intervalMillis;
+	private boolean running;
+	private int generation;
+
+	/**
+	 * @param maxAgeMillis how long a token stays usable; a poll after a longer
+	 *                     pause asks for a reload instead, as the changes in
+	 *                     between may have been pruned
+	 */
+	public ChangePoller(Source<T> source, Consumer<ChangeSet<T>> onChanges, Runnable onReloadRequired,
+			long minIntervalMillis, long maxIntervalMillis, long maxAgeMillis) {
+		this.source = source;
+		this.onChanges = onChanges;
+		this.onReloadRequired = onReloadRequired;
+		this.minIntervalMillis = Math.max(100, minIntervalMillis);
+		this.maxIntervalMillis = Math.max(this.minIntervalMillis, maxIntervalMillis);
+		this.maxAgeMillis = maxAgeMillis;
+		this.intervalMillis = this.minIntervalMillis;
+		timer.setOnFinished(e -> poll());
+	}
+
+	public void start() {
+		if (running) {
+			return;
+		}
+		running = true;
+		intervalMillis = minIntervalMillis;
+		schedule(0);
+	}
+
+	public void stop() {
+		running = false;
+		generation++;
+		timer.stop();
+	}
+
+	/**
+	 * Runs a load of the whole list, on the calling worker thread, and polls
+	 * from just before it afterwards.
+	 */
+	public <R> R load(Supplier<R> loader) {
+		long load = loads.incrementAndGet();
+		ChangeToken before = null;
+		try {
+			before = source.currentToken();
+		} catch (RuntimeException e) {
+			// the list still loads, it just isn't kept current until the next load
+			LOG.log(Level.WARNING, "Could not read the change log", e);
+		}
+		ChangeToken from = before;
+		try {
+			return loader.get();
+		} finally {
+			long time = System.nanoTime();
+			Utils.runOnFxThread(() -> restart(from, load, time));
+		}
+	}
+
+	private void restart(ChangeToken newToken, long load, long time) {
+		if (load < tokenLoad) {
+			return;
+		}
+		token = newToken;
+		tokenLoad = load;
+		tokenTime = time;
+		generation++;
+		intervalMillis = minIntervalMillis;
+		if (running) {
+			schedule(intervalMillis);
+		}
+	}
+
+	private void schedule(long delayMillis) {
+		timer.stop();
+		timer.setDuration(Duration.millis(delayMillis));
+		timer.playFromStart();
+	}
+
+	private void poll() {
+		if (!running || token == null) {
+			return;
+		}
+		if (System.nanoTime() - tokenTime > maxAgeMillis * 1_000_000) {
+			token = null;
+			onReloadRequired.run();
+			return;
+		}
+		int gen = generation;
+		long load = loads.get();
+		ChangeToken from = token;
+		CompletableFuture<ChangeSet<T>> poll = CompletableFuture.supplyAsync(() -> source.changedSince(from),
+				ServiceExecutor.get());
+		Utils.whenDoneOnFxThread(poll, changes -> {
+			if (gen != generation || load != loads.get()) {
+				return;
+			}
+			if (changes.isReloadRequired()) {
+				token = null;
+				onReloadRequired.run();
+				return;
+			}
+			token = changes.getToken();
+			tokenTime = System.nanoTime();
+			if (changes.isEmpty()) {
+				backOff();
+			} else {
+				intervalMillis = minIntervalMillis;
+				onChanges.accept(changes);
+			}
+			if (running) {
+				schedule(intervalMillis);
+			}
+		}, e -> {
+			if (gen != generation) {
+				return;
+			}
+			backOff();
+			if (running) {
+				schedule(intervalMillis);
+			}
+		});
+	}
+
+	private void backOff() {
+		intervalMillis = Math.min(maxIntervalMillis, intervalMillis * 2);
+	}
+}
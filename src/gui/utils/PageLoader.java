@@ -0,0 +1,23 @@
+package gui.utils;
+
+import java.util.List;
+
+/**
+ * Source of pages for a {@link PagedList}. Called from worker threads.
+ */
+public interface PageLoader<T> {
+
+	int count();
+
+	/**
+	 * Loads the page that follows {@code afterKey}, or the first page when it
+	 * is null.
+	 */
+	List<T> loadPage(T afterKey, int limit);
+
+	/**
+	 * Loads a page by position, used when the list jumps to a page whose
+	 * preceding key isn't known.
+	 */
+	List<T> loadPageAt(int offset, int limit);
+}
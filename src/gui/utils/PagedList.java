@@ -0,0 +1,352 @@
+package gui.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import gui.listeners.DataChangeEvent;
+import javafx.collections.ObservableListBase;
+import model.services.ServiceExecutor;
+
+/**
+ * Read-only list that loads its rows a page at a time as a TableView asks for
+ * them. Rows that aren't loaded yet read as null and are filled in by a change
+ * event once their page arrives. Only the last {@code maxCachedPages} pages
+ * used are kept; the last row of every page seen is remembered so the next
+ * page can be fetched by seeking from it. Single-row changes made elsewhere can
+ * be patched into the loaded pages with {@link #applyChange(DataChangeEvent)}.
+ * <p>
+ * Must only be used from the JavaFX Application Thread.
+ */
+public class PagedList<T> extends ObservableListBase<T> {
+
+	private final PageLoader<T> loader;
+	private final Function<? super T, ?> idOf;
+	private final Comparator<? super T> order;
+	private final int pageSize;
+	private final Map<Integer, List<T>> pages;
+	private final NavigableMap<Integer, T> lastKeys = new TreeMap<>();
+	private final Set<Integer> pending = new HashSet<>();
+	private final Set<Integer> failed = new HashSet<>();
+	private Consumer<Throwable> onLoadFailure = e -> {};
+	private int size;
+	private int generation;
+	private int epoch;
+
+	/**
+	 * @param idOf  identifies a row, so changed rows can be found again
+	 * @param order the order the loader returns rows in
+	 */
+	public PagedList(PageLoader<T> loader, Function<? super T, ?> idOf, Comparator<? super T> order, int pageSize,
+			int maxCachedPages) {
+		this.loader = loader;
+		this.idOf = idOf;
+		this.order = order;
+		this.pageSize = pageSize;
+		this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+				return size() > maxCachedPages;
+			}
+		};
+	}
+
+	public void setOnLoadFailure(Consumer<Throwable> onLoadFailure) {
+		this.onLoadFailure = onLoadFailure;
+	}
+
+	/**
+	 * Drops every cached page and re-counts the rows. The returned future
+	 * completes on the JavaFX Application Thread with the new size, and is
+	 * cancelled if another refresh supersedes it.
+	 */
+	public CompletableFuture<Integer> refresh() {
+		int gen = ++generation;
+		epoch++;
+		pages.clear();
+		lastKeys.clear();
+		pending.clear();
+		failed.clear();
+		CompletableFuture<Integer> done = new CompletableFuture<>();
+		Utils.whenDoneOnFxThread(CompletableFuture.supplyAsync(loader::count, ServiceExecutor.get()), count -> {
+			if (gen != generation) {
+				done.cancel(false);
+				return;
+			}
+			resize(count);
+			done.complete(count);
+		}, e -> {
+			if (gen != generation) {
+				done.cancel(false);
+				return;
+			}
+			resize(0);
+			done.completeExceptionally(e);
+		});
+		return done;
+	}
+
+	@Override
+	public T get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+		}
+		int page = index / pageSize;
+		List<T> rows = pages.get(page);
+		if (rows == null) {
+			requestPage(page);
+			return null;
+		}
+		int offset = index % pageSize;
+		return offset < rows.size() ? rows.get(offset) : null;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	private void requestPage(int page) {
+		if (failed.contains(page) || !pending.add(page)) {
+			return;
+		}
+		int ep = epoch;
+		T afterKey = page == 0 ? null : lastKeys.get(page - 1);
+		boolean seek = page == 0 || afterKey != null;
+		CompletableFuture<List<T>> load = CompletableFuture.supplyAsync(
+				() -> seek ? loader.loadPage(afterKey, pageSize) : loader.loadPageAt(page * pageSize, pageSize),
+				ServiceExecutor.get());
+		Utils.whenDoneOnFxThread(load, rows -> {
+			if (ep != epoch) {
+				return;
+			}
+			pending.remove(page);
+			if (rows == null) {
+				failed.add(page);
+				return;
+			}
+			putPage(page, rows);
+		}, e -> {
+			if (ep != epoch) {
+				return;
+			}
+			pending.remove(page);
+			failed.add(page);
+			onLoadFailure.accept(e);
+		});
+	}
+
+	/**
+	 * Patches the loaded pages with a row changed elsewhere, without going back
+	 * to the database. An inserted or deleted row shifts the rows after it;
+	 * loaded pages that follow it directly are shifted in memory, the rest are
+	 * dropped and load again when they are next shown. Only when the row falls
+	 * among rows that aren't loaded, so its index can't be known, is the whole
+	 * list refreshed. An inserted row that is already loaded is updated.
+	 */
+	public void applyChange(DataChangeEvent<T> event) {
+		T row = event.getEntity();
+		int index = indexOfId(event.getId());
+		switch (event.getType()) {
+		case INSERTED:
+			if (index < 0) {
+				insert(row);
+			} else {
+				update(index, row);
+			}
+			break;
+		case UPDATED:
+			// a row that isn't loaded will be read fresh when it is shown
+			if (index >= 0) {
+				update(index, row);
+			}
+			break;
+		default:
+			if (index < 0) {
+				refreshAfterChange();
+			} else {
+				removeAt(index);
+			}
+		}
+	}
+
+	private void update(int index, T row) {
+		if (inOrder(index, row)) {
+			replace(index, row);
+		} else {
+			removeAt(index);
+			insert(row);
+		}
+	}
+
+	private int indexOfId(Object id) {
+		for (Map.Entry<Integer, List<T>> entry : pages.entrySet()) {
+			List<T> rows = entry.getValue();
+			for (int i = 0; i < rows.size(); i++) {
+				if (Objects.equals(idOf.apply(rows.get(i)), id)) {
+					return entry.getKey() * pageSize + i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private T cachedRow(int index) {
+		List<T> rows = pages.get(index / pageSize);
+		int offset = index % pageSize;
+		return rows != null && offset < rows.size() ? rows.get(offset) : null;
+	}
+
+	private boolean inOrder(int index, T row) {
+		T previous = index > 0 ? cachedRow(index - 1) : null;
+		T next = index < size - 1 ? cachedRow(index + 1) : null;
+		return (previous == null || order.compare(previous, row) <= 0)
+				&& (next == null || order.compare(row, next) <= 0);
+	}
+
+	/**
+	 * Where {@code row} belongs, or -1 when that falls among rows that aren't
+	 * loaded.
+	 */
+	private int insertionIndex(T row) {
+		if (size == 0) {
+			return 0;
+		}
+		for (int page : new TreeSet<>(pages.keySet())) {
+			List<T> rows = pages.get(page);
+			int start = page * pageSize;
+			int pos = Collections.binarySearch(rows, row, order);
+			pos = pos < 0 ? -pos - 1 : pos;
+			if (pos == rows.size()) {
+				if (start + rows.size() == size) {
+					return size;
+				}
+				continue;
+			}
+			if (pos > 0 || page == 0) {
+				return start + pos;
+			}
+			T before = lastKeys.get(page - 1);
+			return before != null && order.compare(before, row) <= 0 ? start : -1;
+		}
+		return -1;
+	}
+
+	private void replace(int index, T row) {
+		int page = index / pageSize;
+		List<T> rows = pages.get(page);
+		T old = rows.set(index % pageSize, row);
+		if (index % pageSize == rows.size() - 1) {
+			lastKeys.put(page, row);
+		}
+		beginChange();
+		nextSet(index, old);
+		endChange();
+	}
+
+	private void insert(T row) {
+		int index = insertionIndex(row);
+		if (index < 0) {
+			refreshAfterChange();
+			return;
+		}
+		shift(index, row);
+		beginChange();
+		nextAdd(index, index + 1);
+		endChange();
+	}
+
+	private void removeAt(int index) {
+		T removed = shift(index, null);
+		beginChange();
+		nextRemove(index, removed);
+		endChange();
+	}
+
+	/**
+	 * Inserts {@code inserted} at {@code index}, or removes the row there when it
+	 * is null, and re-splits the run of loaded pages from that page on. A page
+	 * left short, other than the last one, is dropped along with every page
+	 * after the run. Returns the removed row.
+	 */
+	private T shift(int index, T inserted) {
+		int firstPage = index / pageSize;
+		List<T> run = new ArrayList<>();
+		for (int page = firstPage; pages.containsKey(page); page++) {
+			run.addAll(pages.get(page));
+		}
+		T removed = null;
+		if (inserted != null) {
+			run.add(index - firstPage * pageSize, inserted);
+			size++;
+		} else {
+			removed = run.remove(index - firstPage * pageSize);
+			size--;
+		}
+		pages.keySet().removeIf(page -> page >= firstPage);
+		lastKeys.tailMap(firstPage, true).clear();
+		// loads already under way would land at shifted indexes
+		epoch++;
+		pending.clear();
+		failed.clear();
+		for (int from = 0, page = firstPage; from < run.size(); from += pageSize, page++) {
+			List<T> rows = new ArrayList<>(run.subList(from, Math.min(from + pageSize, run.size())));
+			if (rows.size() < pageSize && page * pageSize + rows.size() != size) {
+				break;
+			}
+			pages.put(page, rows);
+			lastKeys.put(page, rows.get(rows.size() - 1));
+		}
+		return removed;
+	}
+
+	private void refreshAfterChange() {
+		refresh().whenComplete((count, e) -> {
+			if (e != null && !(e instanceof CancellationException)) {
+				onLoadFailure.accept(e);
+			}
+		});
+	}
+
+	private void putPage(int page, List<T> rows) {
+		rows = new ArrayList<>(rows);
+		pages.put(page, rows);
+		if (!rows.isEmpty()) {
+			lastKeys.put(page, rows.get(rows.size() - 1));
+		}
+		int from = page * pageSize;
+		int to = Math.min(from + pageSize, size);
+		if (from < to) {
+			beginChange();
+			nextReplace(from, to, Collections.nCopies(to - from, null));
+			endChange();
+		}
+	}
+
+	private void resize(int newSize) {
+		beginChange();
+		if (size > 0) {
+			nextRemove(0, Collections.nCopies(size, null));
+		}
+		size = newSize;
+		if (newSize > 0) {
+			nextAdd(0, newSize);
+		}
+		endChange();
+	}
+}
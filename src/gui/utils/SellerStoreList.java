@@ -0,0 +1,87 @@
+package gui.utils;
+
+import java.util.List;
+
+import gui.listeners.DataChangeEvent;
+import javafx.collections.ObservableListBase;
+import model.entities.Seller;
+import model.store.SellerRowView;
+import model.store.SellerStore;
+
+/**
+ * Read-only list over a {@link SellerStore} for tables that hold the whole
+ * seller table in memory. Items are {@link SellerRowView}s created as the
+ * table asks for them, so only the visible rows exist as objects. Rows keep
+ * the store's order, which is by id.
+ * <p>
+ * Must only be used from the JavaFX Application Thread.
+ */
+public class SellerStoreList extends ObservableListBase<Seller> {
+
+	private SellerStore store;
+
+	public SellerStoreList() {
+		this(new SellerStore(16));
+	}
+
+	public SellerStoreList(SellerStore store) {
+		this.store = store;
+	}
+
+	public SellerStore getStore() {
+		return store;
+	}
+
+	/** Replaces every row with the contents of {@code store}. */
+	public void setStore(SellerStore store) {
+		List<Seller> removed = new SellerStoreList(this.store);
+		this.store = store;
+		beginChange();
+		nextReplace(0, size(), removed);
+		endChange();
+	}
+
+	@Override
+	public Seller get(int index) {
+		return new SellerRowView(store, index);
+	}
+
+	@Override
+	public int size() {
+		return store.size();
+	}
+
+	/** Copies a single-row change made elsewhere into the store. */
+	public void applyChange(DataChangeEvent<Seller> event) {
+		Integer id = event.getId();
+		int row = id == null ? -1 : store.indexOfId(id);
+		switch (event.getType()) {
+		case INSERTED:
+			if (row < 0) {
+				row = store.add(event.getEntity());
+				beginChange();
+				nextAdd(row, row + 1);
+				endChange();
+			}
+			break;
+		case UPDATED:
+			if (row >= 0) {
+				Seller old = store.toSeller(row);
+				store.set(row, event.getEntity());
+				beginChange();
+				nextSet(row, old);
+				endChange();
+			}
+			break;
+		case DELETED:
+			if (row >= 0) {
+				Seller old = store.toSeller(row);
+				store.remove(row);
+				beginChange();
+				nextRemove(row, old);
+				endChange();
+			}
+			break;
+		}
+	}
+}
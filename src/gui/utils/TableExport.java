@@ -0,0 +1,168 @@
+package gui.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import model.services.Csv;
+import model.services.ServiceExecutor;
+
+/**
+ * Writes rows from a stream to a CSV or JSON file, one row at a time, so the
+ * memory used doesn't depend on the number of rows. The format follows the
+ * file name: {@code .json} for a JSON array of objects, anything else for CSV
+ * with a header row, and a trailing {@code .gz} adds gzip compression.
+ * <p>
+ * Column values are given as text, formatted the way the table shows them.
+ * The file is written under a temporary name and only moved into place once
+ * complete.
+ */
+public class TableExport<T> {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final List<String> headers = new ArrayList<>();
+	private final List<Function<? super T, String>> values = new ArrayList<>();
+	private final List<Boolean> numeric = new ArrayList<>();
+
+	public TableExport<T> column(String header, Function<? super T, String> value) {
+		return add(header, value, false);
+	}
+
+	/** A column written unquoted in JSON; its text must be a JSON number. */
+	public TableExport<T> numberColumn(String header, Function<? super T, String> value) {
+		return add(header, value, true);
+	}
+
+	/**
+	 * Exports on a service worker and completes with the number of rows
+	 * written. The stream is opened and closed by the worker.
+	 */
+	public CompletableFuture<Long> exportAsync(Supplier<Stream<T>> rows, Path target) {
+		return CompletableFuture.supplyAsync(() -> {
+			try (Stream<T> stream = rows.get()) {
+				return export(stream, target);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, ServiceExecutor.get());
+	}
+
+	public long export(Stream<T> rows, Path target) throws IOException {
+		String name = target.getFileName().toString().toLowerCase();
+		boolean gzip = name.endsWith(".gz");
+		boolean json = (gzip ? name.substring(0, name.length() - 3) : name).endsWith(".json");
+		Path part = target.resolveSibling(target.getFileName() + ".part");
+		long count;
+		try (OutputStream file = Files.newOutputStream(part);
+				OutputStream out = gzip ? new GZIPOutputStream(file, BUFFER_SIZE) : file;
+				Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+			count = json ? writeJson(rows, writer) : writeCsv(rows, writer);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(part);
+			throw e;
+		}
+		Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+		return count;
+	}
+
+	private TableExport<T> add(String header, Function<? super T, String> value, boolean isNumber) {
+		headers.add(header);
+		values.add(value);
+		numeric.add(isNumber);
+		return this;
+	}
+
+	private long writeCsv(Stream<T> rows, Writer writer) throws IOException {
+		for (int c = 0; c < headers.size(); c++) {
+			writer.write(c == 0 ? "" : ",");
+			writer.write(Csv.quote(headers.get(c)));
+		}
+		writer.write("\r\n");
+		long count = 0;
+		Iterator<T> it = rows.iterator();
+		while (it.hasNext()) {
+			T row = it.next();
+			for (int c = 0; c < values.size(); c++) {
+				writer.write(c == 0 ? "" : ",");
+				writer.write(Csv.quote(values.get(c).apply(row)));
+			}
+			writer.write("\r\n");
+			count++;
+		}
+		return count;
+	}
+
+	private long writeJson(Stream<T> rows, Writer writer) throws IOException {
+		writer.write("[");
+		long count = 0;
+		Iterator<T> it = rows.iterator();
+		while (it.hasNext()) {
+			T row = it.next();
+			writer.write(count == 0 ? "\n  {" : ",\n  {");
+			for (int c = 0; c < values.size(); c++) {
+				writer.write(c == 0 ? "" : ", ");
+				writeJsonString(writer, headers.get(c));
+				writer.write(": ");
+				String value = values.get(c).apply(row);
+				if (value == null) {
+					writer.write("null");
+				} else if (numeric.get(c)) {
+					writer.write(value);
+				} else {
+					writeJsonString(writer, value);
+				}
+			}
+			writer.write("}");
+			count++;
+		}
+		writer.write(count == 0 ? "]\n" : "\n]\n");
+		return count;
+	}
+
+	private static void writeJsonString(Writer writer, String value) throws IOException {
+		writer.write('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				writer.write("\\\"");
+				break;
+			case '\\':
+				writer.write("\\\\");
+				break;
+			case '\n':
+				writer.write("\\n");
+				break;
+			case '\r':
+				writer.write("\\r");
+				break;
+			case '\t':
+				writer.write("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					writer.write(String.format("\\u%04x", (int) c));
+				} else {
+					writer.write(c);
+				}
+			}
+		}
+		writer.write('"');
+	}
+}
@@ -1,83 +1,265 @@
 package gui.utils;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.io.File;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+import gui.listeners.DataChangeEvent;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.scene.Node;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.util.StringConverter;
 
 public class Utils {
 
+	private static final Map<String, DateTimeFormatter> DATE_FORMATTERS = new ConcurrentHashMap<>();
+
+	private static final int MAX_CACHED_DECIMALS = 8;
+
+	private static final ThreadLocal<Map<Locale, DecimalFormat[]>> DECIMAL_FORMATS = ThreadLocal
+			.withInitial(HashMap::new);
+
 	public static Stage currentStage(ActionEvent ae) {
 		return (Stage) ((Node) ae.getSource()).getScene().getWindow();
 	}
 
-	public static Integer tryParseToInt(String str) {
-		try {
-			return Integer.parseInt(str);
-		} catch (NumberFormatException e) {
-			return null;
+	/**
+	 * Hands the outcome of a background task to the JavaFX Application Thread.
+	 * Nothing is called back when the future was cancelled, so a superseded
+	 * load can simply be cancelled and forgotten.
+	 */
+	public static <T> void whenDoneOnFxThread(CompletableFuture<T> future, Consumer<T> onSuccess,
+			Consumer<Throwable> onFailure) {
+		future.whenComplete((result, ex) -> {
+			if (future.isCancelled()) {
+				return;
+			}
+			Platform.runLater(() -> {
+				if (future.isCancelled()) {
+					return;
+				}
+				if (ex == null) {
+					onSuccess.accept(result);
+				} else {
+					onFailure.accept(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+				}
+			});
+		});
+	}
+
+	/**
+	 * Runs the action right away on the JavaFX Application Thread, or queues it
+	 * there when called from a view that is being preloaded in the background.
+	 */
+	public static void runOnFxThread(Runnable action) {
+		if (Platform.isFxApplicationThread()) {
+			action.run();
+		} else {
+			Platform.runLater(action);
 		}
 	}
 
-	public static Double tryParseToDouble(String str) {
-		try {
-			return Double.parseDouble(str);
-		} catch (NumberFormatException e) {
-			return null;
+	/**
+	 * Patches a list kept sorted by {@code order} with a single change, matching
+	 * rows by id. An updated row stays where it is unless its new values move it
+	 * out of order, and an inserted row that is already there is updated.
+	 * Returns false when there was no row to update or delete.
+	 */
+	public static <T> boolean applyChange(List<T> rows, DataChangeEvent<T> event, Function<? super T, ?> idOf,
+			Comparator<? super T> order) {
+		T entity = event.getEntity();
+		int index = -1;
+		for (int i = 0; i < rows.size(); i++) {
+			if (Objects.equals(idOf.apply(rows.get(i)), event.getId())) {
+				index = i;
+				break;
+			}
+		}
+		switch (event.getType()) {
+		case INSERTED:
+			if (index < 0) {
+				insertSorted(rows, entity, order);
+			} else {
+				updateSorted(rows, index, entity, order);
+			}
+			return true;
+		case UPDATED:
+			if (index < 0) {
+				return false;
+			}
+			updateSorted(rows, index, entity, order);
+			return true;
+		default:
+			if (index < 0) {
+				return false;
+			}
+			rows.remove(index);
+			return true;
 		}
 	}
 
-	public static Date tryParseToDate(String strDate, String pattern) {
-		SimpleDateFormat df = new SimpleDateFormat(pattern);
-		try {
-			return df.parse(strDate);
-		} catch (ParseException e) {
+	private static <T> void updateSorted(List<T> rows, int index, T entity, Comparator<? super T> order) {
+		if ((index == 0 || order.compare(rows.get(index - 1), entity) <= 0)
+				&& (index == rows.size() - 1 || order.compare(entity, rows.get(index + 1)) <= 0)) {
+			rows.set(index, entity);
+		} else {
+			rows.remove(index);
+			insertSorted(rows, entity, order);
+		}
+	}
+
+	private static <T> void insertSorted(List<T> rows, T entity, Comparator<? super T> order) {
+		int pos = Collections.binarySearch(rows, entity, order);
+		rows.add(pos < 0 ? -pos - 1 : pos, entity);
+	}
+
+	/**
+	 * The formatter for {@code pattern}, created once and shared. Formatting
+	 * and parsing with it is thread-safe; it formats in the system time zone.
+	 */
+	public static DateTimeFormatter dateFormatter(String pattern) {
+		return DATE_FORMATTERS.computeIfAbsent(pattern,
+				p -> DateTimeFormatter.ofPattern(p).withZone(ZoneId.systemDefault()));
+	}
+
+	/**
+	 * A formatter with exactly {@code decimalPlaces} decimals, rounding half
+	 * up and without grouping. Not thread-safe: create one per column or per
+	 * thread.
+	 */
+	public static DecimalFormat decimalFormat(int decimalPlaces, Locale locale) {
+		DecimalFormat df = new DecimalFormat("0", DecimalFormatSymbols.getInstance(locale));
+		df.setMinimumFractionDigits(decimalPlaces);
+		df.setMaximumFractionDigits(decimalPlaces);
+		df.setRoundingMode(RoundingMode.HALF_UP);
+		df.setGroupingUsed(false);
+		return df;
+	}
+
+	/** Formats a date in the system time zone. Returns null for a null date. */
+	public static String formatDate(Date date, String pattern) {
+		return date == null ? null : dateFormatter(pattern).format(Instant.ofEpochMilli(date.getTime()));
+	}
+
+	/**
+	 * Formats a number with a fixed number of decimals from any thread, using
+	 * one cached formatter per thread. Returns null for null.
+	 */
+	public static String formatDouble(Double value, int decimalPlaces, Locale locale) {
+		if (value == null) {
 			return null;
 		}
+		Map<Locale, DecimalFormat[]> byLocale = DECIMAL_FORMATS.get();
+		DecimalFormat[] byDecimals = byLocale.computeIfAbsent(locale, l -> new DecimalFormat[MAX_CACHED_DECIMALS]);
+		if (decimalPlaces >= MAX_CACHED_DECIMALS) {
+			return decimalFormat(decimalPlaces, locale).format(value);
+		}
+		if (byDecimals[decimalPlaces] == null) {
+			byDecimals[decimalPlaces] = decimalFormat(decimalPlaces, locale);
+		}
+		return byDecimals[decimalPlaces].format(value);
 	}
 
+	/**
+	 * Cells keep the text of the last date they showed, so repainting the same
+	 * row doesn't format it again.
+	 */
 	public static <T> void formatTableColumnDate(TableColumn<T, Date> tableColumn, String pattern) {
+		DateTimeFormatter df = dateFormatter(pattern);
 		tableColumn.setCellFactory(cell -> new TableCell<T, Date>() {
-			private final SimpleDateFormat df = new SimpleDateFormat(pattern);
+			private long lastTime;
+			private String lastText;
 
 			@Override
 			protected void updateItem(Date item, boolean empty) {
 				super.updateItem(item, empty);
-				if (empty) {
+				if (empty || item == null) {
 					setText(null);
 					return;
 				}
-				setText(df.format(item));
+				if (lastText == null || item.getTime() != lastTime) {
+					lastTime = item.getTime();
+					lastText = df.format(Instant.ofEpochMilli(lastTime));
+				}
+				setText(lastText);
 			}
 		});
 	}
 
+	/**
+	 * Formats the column with one precompiled formatter shared by its cells,
+	 * which all run on the JavaFX Application Thread. Like the date column,
+	 * cells remember the last value they formatted.
+	 */
 	public static <T> void formatTableColumnDouble(TableColumn<T, Double> tableColumn, int decimalPlaces) {
+		DecimalFormat df = decimalFormat(decimalPlaces, Locale.getDefault());
 		tableColumn.setCellFactory(cell -> new TableCell<T, Double>() {
+			private double lastValue;
+			private String lastText;
+
 			@Override
 			protected void updateItem(Double value, boolean empty) {
-				if (empty) {
+				super.updateItem(value, empty);
+				if (empty || value == null) {
 					setText(null);
 					return;
 				}
-				setText(String.format("%." + decimalPlaces + "f", value));
+				if (lastText == null || Double.compare(value, lastValue) != 0) {
+					lastValue = value;
+					lastText = df.format(lastValue);
+				}
+				setText(lastText);
 			};
 		});
 	}
 
+	/**
+	 * Asks where to save an export; the extension picked in the dialog is
+	 * added when the name has none. Returns null if the user cancels.
+	 */
+	public static File chooseExportFile(Stage owner, String initialName) {
+		FileChooser chooser = new FileChooser();
+		chooser.setTitle("Export");
+		chooser.setInitialFileName(initialName);
+		chooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("CSV", "*.csv"),
+				new FileChooser.ExtensionFilter("CSV, gzip", "*.csv.gz"),
+				new FileChooser.ExtensionFilter("JSON", "*.json"),
+				new FileChooser.ExtensionFilter("JSON, gzip", "*.json.gz"));
+		File file = chooser.showSaveDialog(owner);
+		if (file == null || file.getName().contains(".")) {
+			return file;
+		}
+		String extension = chooser.getSelectedExtensionFilter().getExtensions().get(0).substring(1);
+		return new File(file.getParentFile(), file.getName() + extension);
+	}
+
 	public static void formatDatePicker(DatePicker datePicker, String pattern) {
 		datePicker.setPromptText(pattern);
 		datePicker.setConverter(new StringConverter<LocalDate>() {
-			private DateTimeFormatter df = DateTimeFormatter.ofPattern(pattern);
+			private DateTimeFormatter df = dateFormatter(pattern);
 
 			@Override
 			public String toString(LocalDate date) {
@@ -0,0 +1,106 @@
+package gui.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+
+/**
+ * Loads each FXML view once and hands out the same node graph and controller
+ * on every later request. Views can be preloaded on a background thread, which
+ * is allowed as long as the nodes aren't attached to a showing scene yet.
+ */
+public class ViewCache {
+
+	private static final Map<String, CompletableFuture<View<?>>> views = new ConcurrentHashMap<>();
+
+	private static final ExecutorService preloader = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "view-preloader");
+		t.setDaemon(true);
+		return t;
+	});
+
+	/**
+	 * Starts loading the given views in the background, in order. Views that are
+	 * already loaded or loading are skipped.
+	 */
+	public static void preload(String... paths) {
+		for (String path : paths) {
+			views.computeIfAbsent(path, p -> CompletableFuture.supplyAsync(() -> load(p), preloader));
+		}
+	}
+
+	/**
+	 * Returns the view for {@code path}, loading it on the calling thread if it
+	 * hasn't been requested before and waiting for it if it is being preloaded.
+	 * A view that failed to load is tried again on the next call.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <C> View<C> get(String path) throws IOException {
+		CompletableFuture<View<?>> future = views.computeIfAbsent(path,
+				p -> CompletableFuture.completedFuture(load(p)));
+		try {
+			return (View<C>) future.join();
+		} catch (CompletionException | UncheckedIOException e) {
+			views.remove(path, future);
+			Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+			if (cause instanceof UncheckedIOException) {
+				throw ((UncheckedIOException) cause).getCause();
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw e;
+		}
+	}
+
+	private static View<?> load(String path) {
+		try {
+			FXMLLoader fxmlLoader = new FXMLLoader(ViewCache.class.getResource(path));
+			fxmlLoader.setClassLoader(ViewCache.class.getClassLoader());
+			Parent root = fxmlLoader.load();
+			return new View<>(root, fxmlLoader.getController());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public static class View<C> {
+
+		private final Parent root;
+		private final List<Node> children;
+		private final C controller;
+
+		private View(Parent root, C controller) {
+			this.root = root;
+			this.children = List.copyOf(root.getChildrenUnmodifiable());
+			this.controller = controller;
+		}
+
+		public Parent getRoot() {
+			return root;
+		}
+
+		/**
+		 * The root's children as they were when the view was loaded. The main
+		 * window moves them into its own layout, so the root itself may be
+		 * empty afterwards.
+		 */
+		public List<Node> getChildren() {
+			return children;
+		}
+
+		public C getController() {
+			return controller;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package model.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a batch write. Rows are sent in chunks; a chunk that fails is
+ * rolled back as a whole and reported in {@link #getFailures()}, while the
+ * other chunks are still written. A versioned update is the exception: rows
+ * another user changed or deleted update nothing, and are reported as a
+ * failure of their own while the rest of their chunk is written.
+ */
+public class BatchResult<T> {
+
+	private final List<T> succeeded = new ArrayList<>();
+	private final List<Failure<T>> failures = new ArrayList<>();
+
+	public void addSucceeded(List<T> rows) {
+		succeeded.addAll(rows);
+	}
+
+	public void addFailure(Failure<T> failure) {
+		failures.add(failure);
+	}
+
+	/**
+	 * Rows that were written, in input order. Inserted rows carry their
+	 * generated id.
+	 */
+	public List<T> getSucceeded() {
+		return Collections.unmodifiableList(succeeded);
+	}
+
+	public List<Failure<T>> getFailures() {
+		return Collections.unmodifiableList(failures);
+	}
+
+	public boolean hasFailures() {
+		return !failures.isEmpty();
+	}
+
+	public static class Failure<T> {
+
+		private final int chunk;
+		private final List<T> rows;
+		private final List<T> rejected;
+		private final String message;
+
+		public Failure(int chunk, List<T> rows, List<T> rejected, String message) {
+			this.chunk = chunk;
+			this.rows = rows;
+			this.rejected = rejected;
+			this.message = message;
+		}
+
+		public int getChunk() {
+			return chunk;
+		}
+
+		/**
+		 * The rows of the chunk that were not written: all of them when the
+		 * chunk was rolled back, or only the stale ones of a versioned update,
+		 * whose other rows are in {@link BatchResult#getSucceeded()}.
+		 */
+		public List<T> getRows() {
+			return rows;
+		}
+
+		/**
+		 * Rows the driver reported as the cause of the failure. Empty when the
+		 * driver doesn't say which statement failed.
+		 */
+		public List<T> getRejected() {
+			return rejected;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+	}
+}
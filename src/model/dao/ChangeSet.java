@@ -0,0 +1,92 @@
+package model.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Rows changed since a {@link ChangeToken}, each reported once with its current
+ * values, and the token to ask from next time. A row inserted and deleted in
+ * the same interval isn't reported at all.
+ */
+public class ChangeSet<T> {
+
+	private final List<T> inserted = new ArrayList<>();
+	private final List<T> updated = new ArrayList<>();
+	private final List<Integer> deletedIds = new ArrayList<>();
+	private final List<Integer> departmentIds = new ArrayList<>();
+	private final ChangeToken token;
+	private final boolean reloadRequired;
+
+	public ChangeSet(ChangeToken token) {
+		this(token, false);
+	}
+
+	private ChangeSet(ChangeToken token, boolean reloadRequired) {
+		this.token = token;
+		this.reloadRequired = reloadRequired;
+	}
+
+	/**
+	 * A change set that only says there were too many changes to list; the
+	 * caller should load everything again and start over from
+	 * {@link SellerDao#currentChangeToken()}.
+	 */
+	public static <T> ChangeSet<T> reloadRequired() {
+		return new ChangeSet<>(null, true);
+	}
+
+	public void addInserted(T row) {
+		inserted.add(row);
+	}
+
+	public void addUpdated(T row) {
+		updated.add(row);
+	}
+
+	public void addDeleted(Integer id) {
+		deletedIds.add(id);
+	}
+
+	/** Notes a department that was inserted, updated or deleted. */
+	public void addChangedDepartment(Integer id) {
+		departmentIds.add(id);
+	}
+
+	public List<T> getInserted() {
+		return Collections.unmodifiableList(inserted);
+	}
+
+	public List<T> getUpdated() {
+		return Collections.unmodifiableList(updated);
+	}
+
+	public List<Integer> getDeletedIds() {
+		return Collections.unmodifiableList(deletedIds);
+	}
+
+	/**
+	 * Departments written in the same interval. Sellers of an updated
+	 * department are also reported as updated.
+	 */
+	public List<Integer> getChangedDepartmentIds() {
+		return Collections.unmodifiableList(departmentIds);
+	}
+
+	/** Where to continue from; null when a reload is required. */
+	public ChangeToken getToken() {
+		return token;
+	}
+
+	public boolean isReloadRequired() {
+		return reloadRequired;
+	}
+
+	public boolean isEmpty() {
+		return inserted.isEmpty() && updated.isEmpty() && deletedIds.isEmpty();
+	}
+
+	public int size() {
+		return inserted.size() + updated.size() + deletedIds.size();
+	}
+}
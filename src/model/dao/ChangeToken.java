@@ -0,0 +1,46 @@
+package model.dao;
+
+import java.util.Arrays;
+
+/**
+ * Position in the change log. Change numbers are handed out when a write
+ * happens but become visible when it commits, so a longer transaction can show
+ * up after later numbers have been read. The token therefore keeps the number
+ * up to which everything has been read, plus the numbers above it that were
+ * already returned, and {@link SellerDao#findChangedSince} fills the gaps in as
+ * they commit.
+ * <p>
+ * Immutable.
+ */
+public final class ChangeToken {
+
+	private final long complete;
+	private final long[] seen;
+
+	/**
+	 * @param complete every change up to and including this one has been read
+	 * @param seen     changes after {@code complete} that were read too
+	 */
+	public ChangeToken(long complete, long[] seen) {
+		this.complete = complete;
+		this.seen = seen.clone();
+		Arrays.sort(this.seen);
+	}
+
+	public long getComplete() {
+		return complete;
+	}
+
+	public int getSeenCount() {
+		return seen.length;
+	}
+
+	public boolean isSeen(long seq) {
+		return seq <= complete || Arrays.binarySearch(seen, seq) >= 0;
+	}
+
+	@Override
+	public String toString() {
+		return "ChangeToken[" + complete + (seen.length == 0 ? "" : " + " + Arrays.toString(seen)) + "]";
+	}
+}
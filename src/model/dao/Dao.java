@@ -1,6 +1,9 @@
 package model.dao;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface Dao<T, I> {
 
@@ -13,4 +16,20 @@ public interface Dao<T, I> {
 	T findById(I id);
 	
 	List<T> findAll();
+
+	BatchResult<T> insertAll(Collection<T> list);
+
+	BatchResult<T> updateAll(Collection<T> list);
+
+	/**
+	 * Streams every row from a forward-only cursor without loading the table
+	 * into memory. The stream holds a database connection until it is closed.
+	 */
+	Stream<T> streamAll();
+
+	default void forEach(Consumer<T> action) {
+		try (Stream<T> stream = streamAll()) {
+			stream.forEach(action);
+		}
+	}
 }
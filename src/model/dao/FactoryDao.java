@@ -1,16 +1,82 @@
 package model.dao;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
 import db.DB;
+import db.metrics.DbMetrics;
+import model.dao.cache.CacheStats;
+import model.dao.cache.CachingDepartmentDao;
+import model.dao.cache.CachingSellerDao;
+import model.dao.cache.EntityCache;
 import model.dao.impl.DepartmentDaoImplJDBC;
 import model.dao.impl.SellerDaoImplJDBC;
+import model.entities.Department;
+import model.entities.Seller;
 
 public class FactoryDao {
 
+	private static EntityCache<Integer, Department> departmentCache = null;
+	private static EntityCache<Integer, Seller> sellerCache = null;
+
 	public static DepartmentDao createDepartmentDao() {
-		return new DepartmentDaoImplJDBC(DB.getConnection());
+		DepartmentDao dao = DbMetrics.instrument(DepartmentDao.class, new DepartmentDaoImplJDBC());
+		EntityCache<Integer, Department> cache = getDepartmentCache();
+		if (cache == null) {
+			return dao;
+		}
+		EntityCache<Integer, Seller> dependent = getSellerCache();
+		return dependent == null ? new CachingDepartmentDao(dao, cache) : new CachingDepartmentDao(dao, cache, dependent);
 	}
 
 	public static SellerDao createSellerDao() {
-		return new SellerDaoImplJDBC(DB.getConnection());
+		SellerDao dao = DbMetrics.instrument(SellerDao.class, new SellerDaoImplJDBC());
+		EntityCache<Integer, Seller> cache = getSellerCache();
+		return cache == null ? dao : new CachingSellerDao(dao, cache, getDepartmentCache());
+	}
+
+	public static synchronized List<CacheStats> getCacheStats() {
+		List<CacheStats> list = new ArrayList<>();
+		if (departmentCache != null) {
+			list.add(departmentCache.getStats());
+		}
+		if (sellerCache != null) {
+			list.add(sellerCache.getStats());
+		}
+		return list;
+	}
+
+	public static synchronized void resetCacheStats() {
+		if (departmentCache != null) {
+			departmentCache.resetStats();
+		}
+		if (sellerCache != null) {
+			sellerCache.resetStats();
+		}
+	}
+
+	private static synchronized EntityCache<Integer, Department> getDepartmentCache() {
+		if (departmentCache == null) {
+			departmentCache = createCache("department", 1000, 600000, Department::getId);
+		}
+		return departmentCache;
+	}
+
+	private static synchronized EntityCache<Integer, Seller> getSellerCache() {
+		if (sellerCache == null) {
+			sellerCache = createCache("seller", 10000, 60000, Seller::getId);
+		}
+		return sellerCache;
+	}
+
+	private static <T> EntityCache<Integer, T> createCache(String name, int defaultMaxSize, int defaultTtlMillis,
+			Function<T, Integer> idOf) {
+		int maxSize = DB.getIntProperty("cache." + name + ".maxSize", defaultMaxSize);
+		if (maxSize <= 0) {
+			return null;
+		}
+		int ttlMillis = DB.getIntProperty("cache." + name + ".ttlMs", defaultTtlMillis);
+		return new EntityCache<>(name, maxSize, ttlMillis, idOf);
 	}
 }
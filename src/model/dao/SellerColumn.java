@@ -0,0 +1,15 @@
+package model.dao;
+
+/**
+ * Seller fields a query can be limited to with a {@link SellerProjection}.
+ * {@code DEPARTMENT} is the department's id and name.
+ */
+public enum SellerColumn {
+	ID,
+	NAME,
+	EMAIL,
+	BIRTH_DATE,
+	BASE_SALARY,
+	DEPARTMENT,
+	VERSION
+}
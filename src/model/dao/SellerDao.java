@@ -1,11 +1,76 @@
 package model.dao;
 
+import java.time.LocalDate;
+import java.util.Date;
 import java.util.List;
 
 import model.entities.Department;
+import model.entities.DepartmentReport;
 import model.entities.Seller;
+import model.store.SellerStore;
 
 public interface SellerDao extends Dao<Seller, Integer> {
 	
 	List<Seller> findByDepartment(Department department);
+
+	/**
+	 * Returns at most {@code limit} sellers that come after {@code afterKey} in
+	 * the given order, or the first page when {@code afterKey} is null.
+	 */
+	default List<Seller> findPage(Seller afterKey, int limit, SellerSort sort) {
+		return findPage(afterKey, limit, sort, SellerProjection.ALL);
+	}
+
+	/**
+	 * Like {@link #findPage(Seller, int, SellerSort)}, reading only the columns
+	 * of {@code projection}; the fields of the others are left null.
+	 */
+	List<Seller> findPage(Seller afterKey, int limit, SellerSort sort, SellerProjection projection);
+
+	/**
+	 * Offset-based fallback for jumping to a page whose preceding key isn't
+	 * known yet; following pages should seek from its last row.
+	 */
+	default List<Seller> findPageAt(int offset, int limit, SellerSort sort) {
+		return findPageAt(offset, limit, sort, SellerProjection.ALL);
+	}
+
+	List<Seller> findPageAt(int offset, int limit, SellerSort sort, SellerProjection projection);
+
+	int count();
+
+	List<Seller> search(SellerSearchCriteria criteria);
+
+	/**
+	 * Loads the whole table into a column store, reading values straight from
+	 * the cursor without creating a {@link Seller} per row.
+	 */
+	SellerStore findAllColumnar();
+
+	/**
+	 * Aggregates every department in one GROUP BY query, ages taken as of
+	 * {@code asOf}. Departments without sellers are included with a zero
+	 * headcount.
+	 */
+	List<DepartmentReport> reportByDepartment(LocalDate asOf);
+
+	/**
+	 * Where the change log stands now. Taken before loading the table, it
+	 * makes {@link #findChangedSince} return whatever changed from then on.
+	 */
+	ChangeToken currentChangeToken();
+
+	/**
+	 * Sellers inserted, updated or deleted since {@code token}, renamed
+	 * departments counting as updates to their sellers. When more than
+	 * {@code changes.maxRows} rows changed the result only says the table
+	 * should be loaded again.
+	 */
+	ChangeSet<Seller> findChangedSince(ChangeToken token);
+
+	/**
+	 * Drops change log entries written before {@code before}; a client that
+	 * last polled earlier than that has to load everything again.
+	 */
+	int pruneChanges(Date before);
 }
@@ -0,0 +1,62 @@
+package model.dao;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The seller columns a view or use case reads. Columns left out are null in
+ * the returned sellers, so a seller read through a projection without
+ * {@code DEPARTMENT} and {@code VERSION} must be loaded in full before it is
+ * edited. The id is always read.
+ * <p>
+ * Immutable; projections with the same columns are equal.
+ */
+public final class SellerProjection {
+
+	public static final SellerProjection ALL = new SellerProjection(EnumSet.allOf(SellerColumn.class));
+
+	private final Set<SellerColumn> columns;
+
+	private SellerProjection(EnumSet<SellerColumn> columns) {
+		columns.add(SellerColumn.ID);
+		this.columns = Collections.unmodifiableSet(columns);
+	}
+
+	public static SellerProjection of(SellerColumn first, SellerColumn... rest) {
+		return new SellerProjection(EnumSet.of(first, rest));
+	}
+
+	public boolean includes(SellerColumn column) {
+		return columns.contains(column);
+	}
+
+	/** This projection with {@code column} added. */
+	public SellerProjection with(SellerColumn column) {
+		if (includes(column)) {
+			return this;
+		}
+		EnumSet<SellerColumn> more = EnumSet.copyOf(columns);
+		more.add(column);
+		return new SellerProjection(more);
+	}
+
+	public Set<SellerColumn> getColumns() {
+		return columns;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof SellerProjection && columns.equals(((SellerProjection) obj).columns);
+	}
+
+	@Override
+	public int hashCode() {
+		return columns.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return "SellerProjection" + columns;
+	}
+}
@@ -0,0 +1,104 @@
+package model.dao;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Filters for {@link SellerDao#search(SellerSearchCriteria)}. Unset fields
+ * don't restrict the result.
+ */
+public class SellerSearchCriteria {
+
+	private String namePrefix;
+	private String emailPrefix;
+	private Double minBaseSalary;
+	private Double maxBaseSalary;
+	private Date birthDateFrom;
+	private Date birthDateTo;
+	private Set<Integer> departmentIds = new HashSet<>();
+	private SellerSort sort = SellerSort.NAME;
+	private int limit = 500;
+	private SellerProjection projection = SellerProjection.ALL;
+
+	public String getNamePrefix() {
+		return namePrefix;
+	}
+
+	public void setNamePrefix(String namePrefix) {
+		this.namePrefix = namePrefix;
+	}
+
+	public String getEmailPrefix() {
+		return emailPrefix;
+	}
+
+	public void setEmailPrefix(String emailPrefix) {
+		this.emailPrefix = emailPrefix;
+	}
+
+	public Double getMinBaseSalary() {
+		return minBaseSalary;
+	}
+
+	public void setMinBaseSalary(Double minBaseSalary) {
+		this.minBaseSalary = minBaseSalary;
+	}
+
+	public Double getMaxBaseSalary() {
+		return maxBaseSalary;
+	}
+
+	public void setMaxBaseSalary(Double maxBaseSalary) {
+		this.maxBaseSalary = maxBaseSalary;
+	}
+
+	public Date getBirthDateFrom() {
+		return birthDateFrom;
+	}
+
+	public void setBirthDateFrom(Date birthDateFrom) {
+		this.birthDateFrom = birthDateFrom;
+	}
+
+	public Date getBirthDateTo() {
+		return birthDateTo;
+	}
+
+	public void setBirthDateTo(Date birthDateTo) {
+		this.birthDateTo = birthDateTo;
+	}
+
+	public Set<Integer> getDepartmentIds() {
+		return departmentIds;
+	}
+
+	public void setDepartmentIds(Set<Integer> departmentIds) {
+		this.departmentIds = departmentIds;
+	}
+
+	public SellerSort getSort() {
+		return sort;
+	}
+
+	public void setSort(SellerSort sort) {
+		this.sort = sort;
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	public void setLimit(int limit) {
+		this.limit = limit;
+	}
+
+	/** The columns to read for each match. */
+	public SellerProjection getProjection() {
+		return projection;
+	}
+
+	public void setProjection(SellerProjection projection) {
+		this.projection = projection;
+	}
+}
@@ -0,0 +1,11 @@
+package model.dao;
+
+/**
+ * Orderings supported by the keyset-paginated seller queries. Every ordering
+ * ends with the seller id, so the last row of a page is always a unique key to
+ * seek from.
+ */
+public enum SellerSort {
+	ID,
+	NAME
+}
@@ -0,0 +1,55 @@
+package model.dao.cache;
+
+public class CacheStats {
+
+	private final String name;
+	private final long hits;
+	private final long misses;
+	private final long evictions;
+	private final int size;
+	private final int maxSize;
+
+	public CacheStats(String name, long hits, long misses, long evictions, int size, int maxSize) {
+		this.name = name;
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+		this.size = size;
+		this.maxSize = maxSize;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public long getEvictions() {
+		return evictions;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public double getHitRate() {
+		long requests = hits + misses;
+		return requests == 0 ? 0.0 : (double) hits / requests;
+	}
+
+	@Override
+	public String toString() {
+		return name + " {hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", size=" + size
+				+ "/" + maxSize + ", hitRate=" + String.format("%.2f", getHitRate()) + "}";
+	}
+}
@@ -0,0 +1,134 @@
+package model.dao.cache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import db.TransactionManager;
+import model.dao.BatchResult;
+import model.dao.Dao;
+
+/**
+ * Read-through cache in front of a {@link Dao}. Writes go straight to the
+ * delegate and then invalidate the written entity, the cached table and any
+ * dependent cache whose entries embed this entity, and once more when the
+ * surrounding transaction, if any, ends.
+ */
+public abstract class CachingDao<T, I> implements Dao<T, I> {
+
+	private final Dao<T, I> delegate;
+	protected final EntityCache<I, T> cache;
+	private final EntityCache<?, ?>[] dependents;
+
+	protected CachingDao(Dao<T, I> delegate, EntityCache<I, T> cache, EntityCache<?, ?>... dependents) {
+		this.delegate = delegate;
+		this.cache = cache;
+		this.dependents = dependents;
+	}
+
+	@Override
+	public void insert(T obj) {
+		try {
+			delegate.insert(obj);
+		} finally {
+			cache.invalidateAll();
+			invalidateDependents();
+			invalidateAfterTransaction();
+		}
+	}
+
+	@Override
+	public void update(T obj) {
+		try {
+			delegate.update(obj);
+		} finally {
+			cache.invalidateEntity(obj);
+			invalidateDependents();
+			invalidateAfterTransaction();
+		}
+	}
+
+	@Override
+	public void deleteById(I id) {
+		try {
+			delegate.deleteById(id);
+		} finally {
+			cache.invalidate(id);
+			invalidateDependents();
+			invalidateAfterTransaction();
+		}
+	}
+
+	@Override
+	public T findById(I id) {
+		T obj = cache.get(id);
+		if (obj == null) {
+			long version = cache.version();
+			obj = delegate.findById(id);
+			cache.put(obj, version);
+		}
+		return obj;
+	}
+
+	@Override
+	public List<T> findAll() {
+		List<T> list = cache.getAll();
+		if (list == null) {
+			long version = cache.version();
+			list = delegate.findAll();
+			cache.putAll(list, version);
+		}
+		return list;
+	}
+
+	@Override
+	public BatchResult<T> insertAll(Collection<T> list) {
+		try {
+			return delegate.insertAll(list);
+		} finally {
+			cache.invalidateAll();
+			invalidateDependents();
+			invalidateAfterTransaction();
+		}
+	}
+
+	@Override
+	public BatchResult<T> updateAll(Collection<T> list) {
+		try {
+			return delegate.updateAll(list);
+		} finally {
+			cache.invalidateAll();
+			invalidateDependents();
+			invalidateAfterTransaction();
+		}
+	}
+
+	@Override
+	public Stream<T> streamAll() {
+		return delegate.streamAll();
+	}
+
+	public CacheStats getStats() {
+		return cache.getStats();
+	}
+
+	/**
+	 * Inside a transaction, other threads can cache the committed rows and
+	 * this one its uncommitted writes until the transaction ends, so
+	 * everything is dropped again once it has.
+	 */
+	private void invalidateAfterTransaction() {
+		if (TransactionManager.isActive()) {
+			TransactionManager.afterCompletion(committed -> {
+				cache.invalidateAll();
+				invalidateDependents();
+			});
+		}
+	}
+
+	private void invalidateDependents() {
+		for (EntityCache<?, ?> dependent : dependents) {
+			dependent.invalidateAll();
+		}
+	}
+}
@@ -0,0 +1,12 @@
+package model.dao.cache;
+
+import model.dao.DepartmentDao;
+import model.entities.Department;
+
+public class CachingDepartmentDao extends CachingDao<Department, Integer> implements DepartmentDao {
+
+	public CachingDepartmentDao(DepartmentDao delegate, EntityCache<Integer, Department> cache,
+			EntityCache<?, ?>... dependents) {
+		super(delegate, cache, dependents);
+	}
+}
@@ -0,0 +1,103 @@
+package model.dao.cache;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+
+import model.dao.ChangeSet;
+import model.dao.ChangeToken;
+import model.dao.SellerDao;
+import model.dao.SellerProjection;
+import model.dao.SellerSearchCriteria;
+import model.dao.SellerSort;
+import model.entities.Department;
+import model.entities.DepartmentReport;
+import model.entities.Seller;
+import model.store.SellerStore;
+
+/**
+ * Caches sellers by id and the full table; page and per-department queries
+ * always go to the database. Changes other clients made, as they come back
+ * from {@link #findChangedSince}, drop the rows they touch, from the
+ * department cache too when one is given.
+ */
+public class CachingSellerDao extends CachingDao<Seller, Integer> implements SellerDao {
+
+	private final SellerDao delegate;
+	private final EntityCache<Integer, Department> departmentCache;
+
+	public CachingSellerDao(SellerDao delegate, EntityCache<Integer, Seller> cache) {
+		this(delegate, cache, null);
+	}
+
+	public CachingSellerDao(SellerDao delegate, EntityCache<Integer, Seller> cache,
+			EntityCache<Integer, Department> departmentCache) {
+		super(delegate, cache);
+		this.delegate = delegate;
+		this.departmentCache = departmentCache;
+	}
+
+	@Override
+	public List<Seller> findByDepartment(Department department) {
+		return delegate.findByDepartment(department);
+	}
+
+	@Override
+	public List<Seller> findPage(Seller afterKey, int limit, SellerSort sort, SellerProjection projection) {
+		return delegate.findPage(afterKey, limit, sort, projection);
+	}
+
+	@Override
+	public List<Seller> findPageAt(int offset, int limit, SellerSort sort, SellerProjection projection) {
+		return delegate.findPageAt(offset, limit, sort, projection);
+	}
+
+	@Override
+	public int count() {
+		return delegate.count();
+	}
+
+	@Override
+	public List<Seller> search(SellerSearchCriteria criteria) {
+		return delegate.search(criteria);
+	}
+
+	@Override
+	public SellerStore findAllColumnar() {
+		return delegate.findAllColumnar();
+	}
+
+	@Override
+	public List<DepartmentReport> reportByDepartment(LocalDate asOf) {
+		return delegate.reportByDepartment(asOf);
+	}
+
+	@Override
+	public ChangeToken currentChangeToken() {
+		return delegate.currentChangeToken();
+	}
+
+	@Override
+	public ChangeSet<Seller> findChangedSince(ChangeToken token) {
+		ChangeSet<Seller> changes = delegate.findChangedSince(token);
+		if (changes.isReloadRequired()) {
+			cache.invalidateAll();
+			if (departmentCache != null) {
+				departmentCache.invalidateAll();
+			}
+			return changes;
+		}
+		changes.getInserted().forEach(cache::invalidateEntity);
+		changes.getUpdated().forEach(cache::invalidateEntity);
+		changes.getDeletedIds().forEach(cache::invalidate);
+		if (departmentCache != null) {
+			changes.getChangedDepartmentIds().forEach(departmentCache::invalidate);
+		}
+		return changes;
+	}
+
+	@Override
+	public int pruneChanges(Date before) {
+		return delegate.pruneChanges(before);
+	}
+}
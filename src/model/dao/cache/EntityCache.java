@@ -0,0 +1,139 @@
+package model.dao.cache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Size-bounded LRU cache of entities keyed by id, with a time to live for
+ * every entry. Besides single entities it can hold the full table as returned
+ * by {@code findAll()}. Any write bumps a version number so a load that raced
+ * with the write can't put stale data back.
+ */
+public class EntityCache<I, T> {
+
+	private final String name;
+	private final int maxSize;
+	private final long ttlMillis;
+	private final Function<T, I> idOf;
+	private final Map<I, CacheEntry<T>> entries;
+
+	private CacheEntry<List<T>> all;
+	private long version;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	public EntityCache(String name, int maxSize, long ttlMillis, Function<T, I> idOf) {
+		this.name = name;
+		this.maxSize = maxSize;
+		this.ttlMillis = ttlMillis;
+		this.idOf = idOf;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<I, CacheEntry<T>> eldest) {
+				if (size() > EntityCache.this.maxSize) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	public synchronized T get(I id) {
+		CacheEntry<T> entry = entries.get(id);
+		if (entry == null || entry.isExpired()) {
+			if (entry != null) {
+				entries.remove(id);
+				evictions++;
+			}
+			misses++;
+			return null;
+		}
+		hits++;
+		return entry.value;
+	}
+
+	/**
+	 * Returns a copy of the cached table, or null when it isn't cached.
+	 */
+	public synchronized List<T> getAll() {
+		if (all == null || all.isExpired()) {
+			if (all != null) {
+				all = null;
+				evictions++;
+			}
+			misses++;
+			return null;
+		}
+		hits++;
+		return new ArrayList<>(all.value);
+	}
+
+	public synchronized long version() {
+		return version;
+	}
+
+	public synchronized void put(T obj, long loadedAtVersion) {
+		if (obj != null && loadedAtVersion == version) {
+			entries.put(idOf.apply(obj), new CacheEntry<>(obj, ttlMillis));
+		}
+	}
+
+	public synchronized void putAll(List<T> list, long loadedAtVersion) {
+		if (list == null || loadedAtVersion != version) {
+			return;
+		}
+		all = list.size() <= maxSize ? new CacheEntry<>(new ArrayList<>(list), ttlMillis) : null;
+		for (T obj : list) {
+			entries.put(idOf.apply(obj), new CacheEntry<>(obj, ttlMillis));
+		}
+	}
+
+	public synchronized void invalidate(I id) {
+		version++;
+		entries.remove(id);
+		all = null;
+	}
+
+	public synchronized void invalidateEntity(T obj) {
+		invalidate(idOf.apply(obj));
+	}
+
+	public synchronized void invalidateAll() {
+		version++;
+		entries.clear();
+		all = null;
+	}
+
+	public synchronized CacheStats getStats() {
+		return new CacheStats(name, hits, misses, evictions, entries.size(), maxSize);
+	}
+
+	/** Zeroes the hit, miss and eviction counts; the entries are kept. */
+	public synchronized void resetStats() {
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+	}
+
+	private static class CacheEntry<V> {
+
+		private final V value;
+		private final long expiresAt;
+
+		CacheEntry(V value, long ttlMillis) {
+			this.value = value;
+			this.expiresAt = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+		}
+
+		boolean isExpired() {
+			return System.currentTimeMillis() > expiresAt;
+		}
+	}
+}
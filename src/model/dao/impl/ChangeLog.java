@@ -0,0 +1,229 @@
+package model.dao.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import db.DB;
+import model.dao.ChangeToken;
+
+/**
+ * The {@code change_log} table: one row per written department or seller,
+ * numbered in write order and inserted in the same transaction as the write,
+ * so it commits or rolls back with it. Readers ask for the rows after a
+ * {@link ChangeToken} instead of reloading whole tables.
+ * <p>
+ * A number missing from the sequence is a write that hasn't committed yet, or
+ * one that rolled back. It is waited for until the rows after it are
+ * {@link #GAP_TIMEOUT_MILLIS} old; a transaction open longer than that can
+ * have its change missed by clients that polled in the meantime.
+ */
+class ChangeLog {
+
+	static final String INSERT = "I";
+	static final String UPDATE = "U";
+	static final String DELETE = "D";
+
+	static final long GAP_TIMEOUT_MILLIS = 30_000;
+
+	private static final String INSERT_SQL = "INSERT INTO change_log (TableName, RowId, Op) VALUES (?, ?, ?)";
+
+	/** Records the rows of a batch chunk that were written. */
+	interface Recorder<T> {
+		void record(Connection conn, List<T> rows) throws SQLException;
+	}
+
+	static <T> Recorder<T> recorder(String table, String op, Function<T, Integer> idOf) {
+		return (conn, rows) -> {
+			if (rows.isEmpty()) {
+				return;
+			}
+			PreparedStatement st = null;
+			try {
+				st = conn.prepareStatement(INSERT_SQL);
+				for (T row : rows) {
+					st.setString(1, table);
+					st.setInt(2, idOf.apply(row));
+					st.setString(3, op);
+					st.addBatch();
+				}
+				st.executeBatch();
+			} finally {
+				DB.closeStatement(st);
+			}
+		};
+	}
+
+	static void record(Connection conn, String table, String op, int id) throws SQLException {
+		PreparedStatement st = null;
+		try {
+			st = conn.prepareStatement(INSERT_SQL);
+			st.setString(1, table);
+			st.setInt(2, id);
+			st.setString(3, op);
+			st.executeUpdate();
+		} finally {
+			DB.closeStatement(st);
+		}
+	}
+
+	/**
+	 * A token for the current end of the log: rows older than the gap timeout
+	 * count as read, and so do the newer rows already committed, leaving out
+	 * only the gaps among them.
+	 */
+	static ChangeToken currentToken(Connection conn) throws SQLException {
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			st = conn.prepareStatement("SELECT CURRENT_TIMESTAMP(3)");
+			rs = st.executeQuery();
+			rs.next();
+			Timestamp cutoff = new Timestamp(rs.getTimestamp(1).getTime() - GAP_TIMEOUT_MILLIS);
+			DB.closeResultSet(rs);
+			DB.closeStatement(st);
+
+			st = conn.prepareStatement("SELECT MAX(Seq) FROM change_log WHERE ChangedAt < ?");
+			st.setTimestamp(1, cutoff);
+			rs = st.executeQuery();
+			rs.next();
+			long complete = rs.getLong(1);
+			DB.closeResultSet(rs);
+			DB.closeStatement(st);
+
+			st = conn.prepareStatement("SELECT Seq FROM change_log WHERE Seq > ? ORDER BY Seq");
+			st.setLong(1, complete);
+			rs = st.executeQuery();
+			List<Long> seen = new ArrayList<>();
+			while (rs.next()) {
+				long seq = rs.getLong(1);
+				if (seen.isEmpty() && seq == complete + 1) {
+					complete = seq;
+				} else {
+					seen.add(seq);
+				}
+			}
+			return new ChangeToken(complete, toArray(seen));
+		} finally {
+			DB.closeResultSet(rs);
+			DB.closeStatement(st);
+		}
+	}
+
+	/**
+	 * Reads the rows after {@code token} that it hasn't seen yet. When there are
+	 * more than {@code limit}, none are returned and the result is truncated.
+	 */
+	static Changes read(Connection conn, ChangeToken token, int limit) throws SQLException {
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			st = conn.prepareStatement("SELECT Seq, TableName, RowId, Op, ChangedAt, CURRENT_TIMESTAMP(3) "
+					+ "FROM change_log WHERE Seq > ? ORDER BY Seq LIMIT ?");
+			st.setLong(1, token.getComplete());
+			// rows already seen come back too, so leave room for them
+			st.setInt(2, limit + 1 + token.getSeenCount());
+			rs = st.executeQuery();
+			Changes changes = new Changes();
+			long complete = token.getComplete();
+			List<Long> seen = new ArrayList<>();
+			int fresh = 0;
+			while (rs.next()) {
+				long seq = rs.getLong(1);
+				boolean old = rs.getTimestamp(5).getTime() < rs.getTimestamp(6).getTime() - GAP_TIMEOUT_MILLIS;
+				if (seen.isEmpty() && (seq == complete + 1 || old)) {
+					complete = seq;
+				} else {
+					seen.add(seq);
+				}
+				if (token.isSeen(seq)) {
+					continue;
+				}
+				if (++fresh > limit) {
+					changes.truncated = true;
+					return changes;
+				}
+				changes.add(rs.getString(2), rs.getInt(3), rs.getString(4));
+			}
+			changes.token = new ChangeToken(complete, toArray(seen));
+			return changes;
+		} finally {
+			DB.closeResultSet(rs);
+			DB.closeStatement(st);
+		}
+	}
+
+	static int prune(Connection conn, Timestamp before) throws SQLException {
+		PreparedStatement st = null;
+		try {
+			st = conn.prepareStatement("DELETE FROM change_log WHERE ChangedAt < ?");
+			st.setTimestamp(1, before);
+			return st.executeUpdate();
+		} finally {
+			DB.closeStatement(st);
+		}
+	}
+
+	private static long[] toArray(List<Long> list) {
+		long[] array = new long[list.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = list.get(i);
+		}
+		return array;
+	}
+
+	/** What happened to one row over the interval read. */
+	static class RowChange {
+
+		boolean inserted;
+		boolean deleted;
+	}
+
+	static class Changes {
+
+		private final Map<String, Map<Integer, RowChange>> tables = new LinkedHashMap<>();
+		private ChangeToken token;
+		private boolean truncated;
+
+		private void add(String table, int id, String op) {
+			RowChange change = tables.computeIfAbsent(table, t -> new LinkedHashMap<>()).computeIfAbsent(id,
+					i -> new RowChange());
+			change.inserted |= INSERT.equals(op);
+			change.deleted = DELETE.equals(op);
+		}
+
+		/** Rows of {@code table} that changed, in the order of their first change. */
+		Map<Integer, RowChange> rows(String table) {
+			Map<Integer, RowChange> rows = tables.get(table);
+			return rows == null ? new LinkedHashMap<>() : rows;
+		}
+
+		/** Rows of {@code table} that were updated and still exist. */
+		Set<Integer> updated(String table) {
+			Set<Integer> ids = new LinkedHashSet<>();
+			for (Map.Entry<Integer, RowChange> row : rows(table).entrySet()) {
+				if (!row.getValue().inserted && !row.getValue().deleted) {
+					ids.add(row.getKey());
+				}
+			}
+			return ids;
+		}
+
+		ChangeToken getToken() {
+			return token;
+		}
+
+		boolean isTruncated() {
+			return truncated;
+		}
+	}
+}
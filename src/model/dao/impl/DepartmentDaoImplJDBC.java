@@ -6,28 +6,29 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLIntegrityConstraintViolationException;
 import java.sql.Statement;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import db.DB;
 import db.exceptions.DbException;
 import db.exceptions.DbIntegrityException;
 import db.exceptions.EntityNotFoundException;
+import model.dao.BatchResult;
 import model.dao.DepartmentDao;
 import model.entities.Department;
 
 public class DepartmentDaoImplJDBC implements DepartmentDao {
 
-	private Connection conn;
-
-	public DepartmentDaoImplJDBC(Connection conn) {
-		this.conn = conn;
-	}
+	private static final String SELECT = "SELECT Id, Name, Version FROM department";
+	private static final EntityMapper<Department> MAPPER = EntityMapper.of(Department.class, "Id", "Name", "Version");
 
 	@Override
 	public void insert(Department obj) {
+		Connection conn = null;
 		PreparedStatement st = null;
 		try {
+			conn = DB.getConnection();
 			conn.setAutoCommit(false);
 			st = conn.prepareStatement("INSERT INTO department (Name) " + "VALUES (?)",
 					Statement.RETURN_GENERATED_KEYS);
@@ -35,83 +36,102 @@ public class DepartmentDaoImplJDBC implements DepartmentDao {
 			int rows = st.executeUpdate();
 			if (rows > 0) {
 				ResultSet rs = st.getGeneratedKeys();
-				if (rs.next()) {
-					int id = rs.getInt(1);
-					obj.setId(id);
+				boolean hasKey = rs.next();
+				int id = hasKey ? rs.getInt(1) : 0;
+				DB.closeResultSet(rs);
+				if (!hasKey) {
+					conn.rollback();
+					throw new DbException("Unexpected error: no generated key");
 				}
+				ChangeLog.record(conn, "department", ChangeLog.INSERT, id);
 				conn.commit();
+				obj.setId(id);
+				obj.setVersion(0);
 			} else {
 				conn.rollback();
 				throw new DbException("Unexpected error: no rows affected");
 			}
 		} catch (SQLException e) {
-			e.printStackTrace();
+			DB.rollback(conn);
+			throw new DbException(e.getMessage());
 		} finally {
 			DB.closeStatement(st);
+			DB.releaseConnection(conn);
 		}
 	}
 
 	@Override
 	public void update(Department obj) {
+		Connection conn = null;
 		PreparedStatement st = null;
 		try {
+			conn = DB.getConnection();
 			conn.setAutoCommit(false);
-			st = conn.prepareStatement("UPDATE department SET Name = ? WHERE department.id = ?;");
+			st = conn.prepareStatement("UPDATE department SET Name = ?, Version = Version + 1 "
+					+ "WHERE department.id = ? AND department.Version = ?;");
+			int version = OptimisticLock.versionOf(obj.getVersion());
 			st.setString(1, obj.getName());
 			st.setInt(2, obj.getId());
+			st.setInt(3, version);
 			int rows = st.executeUpdate();
 			if (rows > 0) {
+				ChangeLog.record(conn, "department", ChangeLog.UPDATE, obj.getId());
 				conn.commit();
+				obj.setVersion(version + 1);
 			} else {
 				conn.rollback();
-				throw new DbException("Unexpected error: no rows affected");
+				throw OptimisticLock.conflict(conn, "department", "Department", obj.getId());
 			}
 		} catch (SQLException e) {
-			e.printStackTrace();
+			DB.rollback(conn);
+			throw new DbException(e.getMessage());
 		} finally {
 			DB.closeStatement(st);
+			DB.releaseConnection(conn);
 		}
 	}
 
 	@Override
 	public void deleteById(Integer id) {
+		Connection conn = null;
 		PreparedStatement st = null;
 		try {
+			conn = DB.getConnection();
 			conn.setAutoCommit(false);
 			st = conn.prepareStatement("DELETE FROM department WHERE department.id = ?;");
 			st.setInt(1, id);
 			int rows = st.executeUpdate();
 			if (rows > 0) {
+				ChangeLog.record(conn, "department", ChangeLog.DELETE, id);
 				conn.commit();
 			} else {
 				conn.rollback();
 				throw new DbException("Unexpected error: no rows affected");
 			}
 		} catch (SQLException e) {
-			try {
-				conn.rollback();
-			} catch (SQLException e1) {
-				e1.printStackTrace();
-			}
-			if (e.getClass() == SQLIntegrityConstraintViolationException.class) {
+			DB.rollback(conn);
+			if (e instanceof SQLIntegrityConstraintViolationException) {
 				throw new DbIntegrityException(e.getMessage());
 			}
-			e.printStackTrace();
+			throw new DbException(e.getMessage());
 		} finally {
 			DB.closeStatement(st);
+			DB.releaseConnection(conn);
 		}
 	}
 
 	@Override
 	public Department findById(Integer id) {
+		Connection conn = null;
 		PreparedStatement st = null;
 		ResultSet rs = null;
 		try {
-			st = conn.prepareStatement("SELECT * FROM department WHERE department.Id = ?;");
+			conn = DB.getConnection();
+			st = conn.prepareStatement(SELECT + " WHERE Id = ?");
 			st.setInt(1, id);
 			rs = st.executeQuery();
 			if (rs.next()) {
-				return instantiateDepartment(rs);
+				return MAPPER.newRowMapper().map(rs);
 			} else {
 				throw new EntityNotFoundException("Department with Id = " + id + " was not found");
 			}
@@ -120,32 +140,51 @@ public class DepartmentDaoImplJDBC implements DepartmentDao {
 		} finally {
 			DB.closeResultSet(rs);
 			DB.closeStatement(st);
+			DB.releaseConnection(conn);
 		}
 		return null;
 	}
 
 	@Override
 	public List<Department> findAll() {
+		Connection conn = null;
 		PreparedStatement st = null;
 		ResultSet rs = null;
 		try {
-			st = conn.prepareStatement("SELECT * FROM department;");
+			conn = DB.getConnection();
+			st = conn.prepareStatement(SELECT);
 			rs = st.executeQuery();
-			List<Department> list = new ArrayList<>();
-			while (rs.next()) {
-				list.add(instantiateDepartment(rs));
-			}
-			return list;
+			return MAPPER.mapAll(rs);
 		} catch (SQLException e) {
 			e.printStackTrace();
 		} finally {
 			DB.closeResultSet(rs);
 			DB.closeStatement(st);
+			DB.releaseConnection(conn);
 		}
 		return null;
 	}
 
-	private Department instantiateDepartment(ResultSet rs) throws SQLException {
-		return new Department(rs.getInt("Id"), rs.getString("Name"));
+	@Override
+	public BatchResult<Department> insertAll(Collection<Department> list) {
+		return JdbcBatch.execute("INSERT INTO department (Name) VALUES (?)", list,
+				(st, obj) -> st.setString(1, obj.getName()), Department::setId,
+				ChangeLog.recorder("department", ChangeLog.INSERT, Department::getId));
+	}
+
+	@Override
+	public BatchResult<Department> updateAll(Collection<Department> list) {
+		return JdbcBatch.executeVersioned("UPDATE department SET Name = ?, Version = Version + 1 "
+				+ "WHERE department.id = ? AND department.Version = ?", list, (st, obj) -> {
+					st.setString(1, obj.getName());
+					st.setInt(2, obj.getId());
+					st.setInt(3, OptimisticLock.versionOf(obj.getVersion()));
+				}, obj -> obj.setVersion(OptimisticLock.versionOf(obj.getVersion()) + 1),
+				ChangeLog.recorder("department", ChangeLog.UPDATE, Department::getId));
+	}
+
+	@Override
+	public Stream<Department> streamAll() {
+		return JdbcStream.stream(SELECT, MAPPER.newRowMapper());
 	}
 }
@@ -0,0 +1,260 @@
+package model.dao.impl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import db.RowMapper;
+
+/**
+ * Maps result set columns to the properties of an entity, read by position
+ * with the primitive getters. When the mapper is made, the constructor, the
+ * getters and the setters are composed into one {@link MethodHandle} per row,
+ * which the JIT compiles much like a hand-written mapper: nothing is looked up
+ * by reflection or by column name per row.
+ * <p>
+ * Properties are given in column order, by the name of their getter and
+ * setter: {@code "BaseSalary"} is {@code getBaseSalary}/{@code setBaseSalary}.
+ * A dotted name such as {@code "Department.Name"} is a property of a referenced
+ * entity, which needs its {@code Id} selected too. Rows referring to the same
+ * id share one instance, and a null id leaves the reference null.
+ * <p>
+ * Supports {@code String}, {@code java.util.Date} read as an SQL DATE, and
+ * {@code Integer}, {@code Long} and {@code Double}, boxed or primitive; a NULL
+ * in a boxed property stays null. Immutable and thread-safe, while the
+ * {@link RowMapper}s it hands out are for one result at a time.
+ */
+final class EntityMapper<T> {
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	private static final MethodHandle GET_INTEGER = helper("getInteger", Integer.class, int.class);
+	private static final MethodHandle GET_LONG = helper("getLong", Long.class, int.class);
+	private static final MethodHandle GET_DOUBLE = helper("getDouble", Double.class, int.class);
+	private static final MethodHandle GET_DATE = helper("getDate", java.util.Date.class, int.class);
+	private static final MethodHandle REFERENCED = helper("referenced", Object.class, Map[].class, int.class,
+			int.class, MethodHandle.class);
+
+	/**
+	 * {@code (ResultSet, Map[])Object}; the maps hold the referenced entities
+	 * read so far, one per reference.
+	 */
+	private final MethodHandle row;
+	private final int references;
+
+	static <T> EntityMapper<T> of(Class<T> type, String... properties) {
+		int[] positions = new int[properties.length];
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = i + 1;
+		}
+		return new EntityMapper<>(type, properties, positions, new int[1]);
+	}
+
+	/**
+	 * @param slots holds the next free index into the maps of referenced
+	 *              entities, shared with the mappers of those entities
+	 */
+	private EntityMapper(Class<T> type, String[] properties, int[] positions, int[] slots) {
+		List<MethodHandle> steps = new ArrayList<>();
+		Map<String, List<Integer>> referenced = new LinkedHashMap<>();
+		for (int i = 0; i < properties.length; i++) {
+			int dot = properties[i].indexOf('.');
+			if (dot < 0) {
+				steps.add(column(type, properties[i], positions[i]));
+			} else {
+				referenced.computeIfAbsent(properties[i].substring(0, dot), p -> new ArrayList<>()).add(i);
+			}
+		}
+		for (Map.Entry<String, List<Integer>> reference : referenced.entrySet()) {
+			steps.add(reference(type, reference.getKey(), reference.getValue(), properties, positions, slots));
+		}
+		references = slots[0];
+		// (Object, ResultSet, Map[])Object: runs the steps on the new object, then returns it
+		MethodHandle body = MethodHandles.dropArguments(MethodHandles.identity(Object.class), 1, ResultSet.class,
+				Map[].class);
+		for (int i = steps.size() - 1; i >= 0; i--) {
+			body = MethodHandles.foldArguments(body, steps.get(i));
+		}
+		row = MethodHandles.foldArguments(body,
+				MethodHandles.dropArguments(constructor(type), 0, ResultSet.class, Map[].class));
+	}
+
+	/** A mapper for one result; rows it maps share their referenced entities. */
+	RowMapper<T> newRowMapper() {
+		@SuppressWarnings("rawtypes")
+		Map[] shared = new Map[references];
+		for (int i = 0; i < shared.length; i++) {
+			shared[i] = new HashMap<>();
+		}
+		return rs -> mapRow(rs, shared);
+	}
+
+	List<T> mapAll(ResultSet rs) throws SQLException {
+		RowMapper<T> mapper = newRowMapper();
+		List<T> list = new ArrayList<>();
+		while (rs.next()) {
+			list.add(mapper.map(rs));
+		}
+		return list;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private T mapRow(ResultSet rs, Map[] shared) throws SQLException {
+		try {
+			return (T) (Object) row.invokeExact(rs, shared);
+		} catch (SQLException | RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/** {@code (Object, ResultSet, Map[])void}, setting one property from its column. */
+	private static MethodHandle column(Class<?> type, String property, int position) {
+		Class<?> propertyType = propertyType(type, property);
+		MethodHandle getter;
+		if (propertyType == int.class) {
+			getter = resultSetGetter("getInt", int.class);
+		} else if (propertyType == long.class) {
+			getter = resultSetGetter("getLong", long.class);
+		} else if (propertyType == double.class) {
+			getter = resultSetGetter("getDouble", double.class);
+		} else if (propertyType == String.class) {
+			getter = resultSetGetter("getString", String.class);
+		} else if (propertyType == Integer.class) {
+			getter = GET_INTEGER;
+		} else if (propertyType == Long.class) {
+			getter = GET_LONG;
+		} else if (propertyType == Double.class) {
+			getter = GET_DOUBLE;
+		} else if (propertyType == java.util.Date.class) {
+			getter = GET_DATE;
+		} else {
+			throw new IllegalArgumentException(
+					"Unsupported type " + propertyType.getName() + " of " + type.getSimpleName() + "." + property);
+		}
+		MethodHandle read = MethodHandles.insertArguments(getter, 1, position);
+		MethodHandle set = MethodHandles.filterArguments(setter(type, property, propertyType), 1, read);
+		return MethodHandles.dropArguments(set, 2, Map[].class);
+	}
+
+	/** {@code (Object, ResultSet, Map[])void}, setting a referenced entity. */
+	private static MethodHandle reference(Class<?> type, String property, List<Integer> indexes,
+			String[] properties, int[] positions, int[] slots) {
+		String[] nested = new String[indexes.size()];
+		int[] nestedPositions = new int[nested.length];
+		int idPosition = 0;
+		for (int i = 0; i < nested.length; i++) {
+			nested[i] = properties[indexes.get(i)].substring(property.length() + 1);
+			nestedPositions[i] = positions[indexes.get(i)];
+			if (nested[i].equals("Id")) {
+				idPosition = nestedPositions[i];
+			}
+		}
+		if (idPosition == 0) {
+			throw new IllegalArgumentException(type.getSimpleName() + "." + property + " is mapped without its Id");
+		}
+		Class<?> referencedType = propertyType(type, property);
+		int slot = slots[0]++;
+		EntityMapper<?> mapper = new EntityMapper<>(referencedType, nested, nestedPositions, slots);
+		MethodHandle read = MethodHandles.insertArguments(REFERENCED, 2, slot, idPosition, mapper.row);
+		MethodHandle set = setter(type, property, referencedType)
+				.asType(MethodType.methodType(void.class, Object.class, Object.class));
+		return MethodHandles.collectArguments(set, 1, read);
+	}
+
+	@SuppressWarnings("unused")
+	private static Integer getInteger(ResultSet rs, int position) throws SQLException {
+		int value = rs.getInt(position);
+		return rs.wasNull() ? null : value;
+	}
+
+	@SuppressWarnings("unused")
+	private static Long getLong(ResultSet rs, int position) throws SQLException {
+		long value = rs.getLong(position);
+		return rs.wasNull() ? null : value;
+	}
+
+	@SuppressWarnings("unused")
+	private static Double getDouble(ResultSet rs, int position) throws SQLException {
+		double value = rs.getDouble(position);
+		return rs.wasNull() ? null : value;
+	}
+
+	@SuppressWarnings("unused")
+	private static java.util.Date getDate(ResultSet rs, int position) throws SQLException {
+		Date date = rs.getDate(position);
+		return date == null ? null : new java.util.Date(date.getTime());
+	}
+
+	@SuppressWarnings({ "unused", "unchecked", "rawtypes" })
+	private static Object referenced(ResultSet rs, Map[] shared, int slot, int idPosition, MethodHandle row)
+			throws Throwable {
+		int id = rs.getInt(idPosition);
+		if (rs.wasNull()) {
+			return null;
+		}
+		Object obj = shared[slot].get(id);
+		if (obj == null) {
+			obj = (Object) row.invokeExact(rs, shared);
+			shared[slot].put(id, obj);
+		}
+		return obj;
+	}
+
+	private static Class<?> propertyType(Class<?> type, String property) {
+		try {
+			return type.getMethod("get" + property).getReturnType();
+		} catch (NoSuchMethodException e) {
+			throw new IllegalArgumentException(type.getSimpleName() + " has no property " + property);
+		}
+	}
+
+	/** {@code (Object, propertyType)void}. */
+	private static MethodHandle setter(Class<?> type, String property, Class<?> propertyType) {
+		try {
+			return LOOKUP.findVirtual(type, "set" + property, MethodType.methodType(void.class, propertyType))
+					.asType(MethodType.methodType(void.class, Object.class, propertyType));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new IllegalArgumentException(type.getSimpleName() + " has no setter for " + property);
+		}
+	}
+
+	/** {@code ()Object}. */
+	private static MethodHandle constructor(Class<?> type) {
+		try {
+			return LOOKUP.findConstructor(type, MethodType.methodType(void.class))
+					.asType(MethodType.methodType(Object.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new IllegalArgumentException(type.getSimpleName() + " has no public no-arg constructor");
+		}
+	}
+
+	/** {@code (ResultSet, int)returnType}. */
+	private static MethodHandle resultSetGetter(String name, Class<?> returnType) {
+		try {
+			return LOOKUP.findVirtual(ResultSet.class, name, MethodType.methodType(returnType, int.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static MethodHandle helper(String name, Class<?> returnType, Class<?>... parameterTypes) {
+		Class<?>[] types = new Class<?>[parameterTypes.length + 1];
+		types[0] = ResultSet.class;
+		System.arraycopy(parameterTypes, 0, types, 1, parameterTypes.length);
+		try {
+			return LOOKUP.findStatic(EntityMapper.class, name, MethodType.methodType(returnType, types));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
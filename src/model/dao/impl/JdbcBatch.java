@@ -0,0 +1,167 @@
+package model.dao.impl;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import db.DB;
+import db.exceptions.DbException;
+import model.dao.BatchResult;
+
+/**
+ * Runs one statement over many rows with addBatch/executeBatch. Rows are sent
+ * in chunks of {@code batch.size}, each chunk behind its own savepoint, and the
+ * transaction is committed every {@code batch.commitInterval} chunks. The
+ * rows a chunk wrote are added to the change log inside its savepoint.
+ */
+class JdbcBatch {
+
+	interface Binder<T> {
+		void bind(PreparedStatement st, T obj) throws SQLException;
+	}
+
+	static <T> BatchResult<T> execute(String sql, Collection<T> list, Binder<T> binder,
+			BiConsumer<T, Integer> keySetter, ChangeLog.Recorder<T> changes) {
+		return run(sql, list, binder, keySetter, null, changes);
+	}
+
+	/**
+	 * Runs a version-checked update. Rows the database reports as not updated
+	 * were changed or deleted by someone else; they are returned as a failure
+	 * while the rest of their chunk is kept, and {@code onUpdated} is called for
+	 * every row that went through. A driver that reports
+	 * {@code SUCCESS_NO_INFO} can't tell them apart, so those rows count as
+	 * updated.
+	 */
+	static <T> BatchResult<T> executeVersioned(String sql, Collection<T> list, Binder<T> binder,
+			Consumer<T> onUpdated, ChangeLog.Recorder<T> changes) {
+		return run(sql, list, binder, null, onUpdated, changes);
+	}
+
+	private static <T> BatchResult<T> run(String sql, Collection<T> list, Binder<T> binder,
+			BiConsumer<T, Integer> keySetter, Consumer<T> onUpdated, ChangeLog.Recorder<T> changes) {
+		int batchSize = Math.max(1, DB.getIntProperty("batch.size", 500));
+		int commitInterval = Math.max(1, DB.getIntProperty("batch.commitInterval", 10));
+		BatchResult<T> result = new BatchResult<>();
+		Connection conn = null;
+		PreparedStatement st = null;
+		try {
+			conn = DB.getConnection();
+			conn.setAutoCommit(false);
+			st = keySetter != null ? conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+					: conn.prepareStatement(sql);
+			List<T> chunk = new ArrayList<>(Math.min(batchSize, list.size()));
+			int chunkIndex = 0;
+			int uncommitted = 0;
+			Iterator<T> it = list.iterator();
+			while (it.hasNext()) {
+				chunk.add(it.next());
+				if (chunk.size() == batchSize || !it.hasNext()) {
+					executeChunk(conn, st, chunk, chunkIndex++, binder, keySetter, onUpdated, changes, result);
+					if (++uncommitted >= commitInterval) {
+						conn.commit();
+						uncommitted = 0;
+					}
+					chunk = new ArrayList<>(batchSize);
+				}
+			}
+			conn.commit();
+			return result;
+		} catch (SQLException e) {
+			try {
+				if (conn != null) {
+					conn.rollback();
+				}
+			} catch (SQLException e1) {
+				e1.printStackTrace();
+			}
+			throw new DbException(e.getMessage());
+		} finally {
+			DB.closeStatement(st);
+			DB.releaseConnection(conn);
+		}
+	}
+
+	private static <T> void executeChunk(Connection conn, PreparedStatement st, List<T> chunk, int chunkIndex,
+			Binder<T> binder, BiConsumer<T, Integer> keySetter, Consumer<T> onUpdated, ChangeLog.Recorder<T> changes,
+			BatchResult<T> result) throws SQLException {
+		Savepoint savepoint = conn.setSavepoint();
+		int bound = 0;
+		try {
+			for (T obj : chunk) {
+				binder.bind(st, obj);
+				st.addBatch();
+				bound++;
+			}
+			int[] counts = st.executeBatch();
+			if (onUpdated != null) {
+				List<T> updated = new ArrayList<>(chunk.size());
+				List<T> stale = new ArrayList<>();
+				for (int i = 0; i < chunk.size(); i++) {
+					(i < counts.length && counts[i] == 0 ? stale : updated).add(chunk.get(i));
+				}
+				changes.record(conn, updated);
+				conn.releaseSavepoint(savepoint);
+				updated.forEach(onUpdated);
+				result.addSucceeded(updated);
+				if (!stale.isEmpty()) {
+					result.addFailure(new BatchResult.Failure<>(chunkIndex, stale, stale,
+							"Rows were changed or deleted by another user"));
+				}
+				return;
+			}
+			if (keySetter != null) {
+				ResultSet keys = st.getGeneratedKeys();
+				int i = 0;
+				while (keys.next() && i < chunk.size()) {
+					keySetter.accept(chunk.get(i++), keys.getInt(1));
+				}
+				DB.closeResultSet(keys);
+			}
+			changes.record(conn, chunk);
+			conn.releaseSavepoint(savepoint);
+			result.addSucceeded(chunk);
+		} catch (SQLException e) {
+			st.clearBatch();
+			conn.rollback(savepoint);
+			result.addFailure(new BatchResult.Failure<>(chunkIndex, chunk, rejectedRows(e, chunk), e.getMessage()));
+		} catch (RuntimeException e) {
+			// typically a row the binder can't handle, such as one without a department;
+			// the rows queued before it must not stay on the statement, which is reused
+			st.clearBatch();
+			conn.rollback(savepoint);
+			List<T> rejected = bound < chunk.size() ? Collections.singletonList(chunk.get(bound))
+					: Collections.emptyList();
+			result.addFailure(new BatchResult.Failure<>(chunkIndex, chunk, rejected,
+					e.getMessage() != null ? e.getMessage() : e.toString()));
+		}
+	}
+
+	private static <T> List<T> rejectedRows(SQLException e, List<T> chunk) {
+		List<T> rejected = new ArrayList<>();
+		if (e instanceof BatchUpdateException) {
+			int[] counts = ((BatchUpdateException) e).getUpdateCounts();
+			for (int i = 0; i < counts.length && i < chunk.size(); i++) {
+				if (counts[i] == Statement.EXECUTE_FAILED) {
+					rejected.add(chunk.get(i));
+				}
+			}
+			// drivers that stop at the first error return only the counts before it
+			if (rejected.isEmpty() && counts.length < chunk.size()) {
+				rejected.add(chunk.get(counts.length));
+			}
+		}
+		return rejected;
+	}
+}
@@ -0,0 +1,98 @@
+package model.dao.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import db.DB;
+import db.RowMapper;
+import db.exceptions.DbException;
+
+/**
+ * Lazily maps a forward-only, read-only result set into a {@link Stream}. The
+ * connection stays borrowed until the stream is closed or fully consumed, so
+ * callers must close it, typically with try-with-resources.
+ * <p>
+ * The fetch size comes from {@code stream.fetchSize}; zero or less leaves it
+ * to the backend's dialect, which for MySQL means streaming rows one at a time
+ * instead of buffering the whole result.
+ */
+class JdbcStream {
+
+	static <T> Stream<T> stream(String sql, RowMapper<T> mapper) {
+		Connection conn = DB.getConnection();
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			st = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			setFetchSize(st);
+			rs = st.executeQuery();
+		} catch (SQLException e) {
+			DB.closeResultSet(rs);
+			DB.closeStatement(st);
+			DB.releaseConnection(conn);
+			throw new DbException(e.getMessage());
+		}
+		RowSpliterator<T> spliterator = new RowSpliterator<>(conn, st, rs, mapper);
+		return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+	}
+
+	/** Applies {@code stream.fetchSize} to a forward-only, read-only statement. */
+	static void setFetchSize(PreparedStatement st) throws SQLException {
+		st.setFetchSize(DB.getDialect().streamingFetchSize(DB.getIntProperty("stream.fetchSize", 0)));
+	}
+
+	private static class RowSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+		private final Connection conn;
+		private final PreparedStatement st;
+		private final ResultSet rs;
+		private final RowMapper<T> mapper;
+		private boolean closed;
+
+		RowSpliterator(Connection conn, PreparedStatement st, ResultSet rs, RowMapper<T> mapper) {
+			super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+			this.conn = conn;
+			this.st = st;
+			this.rs = rs;
+			this.mapper = mapper;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			if (closed) {
+				return false;
+			}
+			try {
+				if (!rs.next()) {
+					close();
+					return false;
+				}
+				action.accept(mapper.map(rs));
+				return true;
+			} catch (SQLException e) {
+				close();
+				throw new DbException(e.getMessage());
+			}
+		}
+
+		void close() {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			try {
+				DB.closeResultSet(rs);
+				DB.closeStatement(st);
+			} finally {
+				DB.releaseConnection(conn);
+			}
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package model.dao.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import db.DB;
+import db.exceptions.DbConflictException;
+import db.exceptions.EntityNotFoundException;
+
+/**
+ * Helpers for updates guarded by {@code WHERE Id = ? AND Version = ?}.
+ */
+class OptimisticLock {
+
+	static int versionOf(Integer version) {
+		return version == null ? 0 : version;
+	}
+
+	/**
+	 * Explains an update that matched no row: the row was either deleted or
+	 * updated by someone else in the meantime.
+	 */
+	static RuntimeException conflict(Connection conn, String table, String entity, Integer id) throws SQLException {
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			st = conn.prepareStatement("SELECT Version FROM " + table + " WHERE Id = ?");
+			st.setInt(1, id);
+			rs = st.executeQuery();
+			if (!rs.next()) {
+				return new EntityNotFoundException(entity + " with Id = " + id + " was deleted by another user");
+			}
+			return new DbConflictException(
+					entity + " with Id = " + id + " was changed by another user (now at version " + rs.getInt(1) + ")");
+		} finally {
+			DB.closeResultSet(rs);
+			DB.closeStatement(st);
+		}
+	}
+}
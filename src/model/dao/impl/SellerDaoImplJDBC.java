@@ -7,125 +7,146 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLIntegrityConstraintViolationException;
 import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.stream.Stream;
 
 import db.DB;
+import db.QueryCanceller;
 import db.exceptions.DbException;
 import db.exceptions.DbIntegrityException;
 import db.exceptions.EntityNotFoundException;
+import model.dao.BatchResult;
+import model.dao.ChangeSet;
+import model.dao.ChangeToken;
+import model.dao.SellerColumn;
 import model.dao.SellerDao;
+import model.dao.SellerProjection;
+import model.dao.SellerSearchCriteria;
+import model.dao.SellerSort;
 import model.entities.Department;
+import model.entities.DepartmentReport;
 import model.entities.Seller;
+import model.store.SellerStore;
 
 public class SellerDaoImplJDBC implements SellerDao {
 
-	private Connection conn;
-
-	public SellerDaoImplJDBC(Connection conn) {
-		this.conn = conn;
-	}
-
 	@Override
 	public void insert(Seller obj) {
+		Connection conn = null;
 		PreparedStatement st = null;
 		try {
+			conn = DB.getConnection();
 			conn.setAutoCommit(false);
 			st = conn.prepareStatement("INSERT INTO seller (Name, Email, BirthDate, BaseSalary, DepartmentId) " + 
 			"VALUES (?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
-			st.setString(1, obj.getName());
-			st.setString(2, obj.getEmail());
-			st.setDate(3, new Date(obj.getBirthDate().getTime()));
-			st.setDouble(4, obj.getBaseSalary());
-			st.setInt(5, obj.getDepartment().getId());
+			bindSeller(st, obj);
 			int rows = st.executeUpdate();
 			if (rows > 0) {
 				ResultSet rs = st.getGeneratedKeys();
-				if (rs.next()) {
-					int id = rs.getInt(1);
-					obj.setId(id);
+				boolean hasKey = rs.next();
+				int id = hasKey ? rs.getInt(1) : 0;
+				DB.closeResultSet(rs);
+				if (!hasKey) {
+					conn.rollback();
+					throw new DbException("Unexpected error: no generated key");
 				}
+				ChangeLog.record(conn, "seller", ChangeLog.INSERT, id);
 				conn.commit();
+				obj.setId(id);
+				obj.setVersion(0);
 			} else {
 				conn.rollback();
 				throw new DbException("Unexpected error: no rows affected");
 			}
 		} catch (SQLException e) {
-			e.printStackTrace();
+			DB.rollback(conn);
+			throw new DbException(e.getMessage());
 		} finally {
 			DB.closeStatement(st);
+			DB.releaseConnection(conn);
 		}
 	}
 
 	@Override
 	public void update(Seller obj) {
+		Connection conn = null;
 		PreparedStatement st = null;
 		try {
+			conn = DB.getConnection();
 			conn.setAutoCommit(false);
-			st = conn.prepareStatement("UPDATE seller SET "
-					+ "Name = ?, Email = ?, BirthDate = ?, BaseSalary = ?, DepartmentId = ? WHERE seller.id = ?;");
-			st.setString(1, obj.getName());
-			st.setString(2, obj.getEmail());
-			st.setDate(3, new Date(obj.getBirthDate().getTime()));
-			st.setDouble(4, obj.getBaseSalary());
-			st.setInt(5, obj.getDepartment().getId());
+			st = conn.prepareStatement("UPDATE seller SET Name = ?, Email = ?, BirthDate = ?, BaseSalary = ?, "
+					+ "DepartmentId = ?, Version = Version + 1 WHERE seller.id = ? AND seller.Version = ?;");
+			int version = OptimisticLock.versionOf(obj.getVersion());
+			bindSeller(st, obj);
 			st.setInt(6, obj.getId());
+			st.setInt(7, version);
 			int rows = st.executeUpdate();
 			if (rows > 0) {
+				ChangeLog.record(conn, "seller", ChangeLog.UPDATE, obj.getId());
 				conn.commit();
+				obj.setVersion(version + 1);
 			} else {
 				conn.rollback();
-				throw new DbException("Unexpected error: no rows affected");
+				throw OptimisticLock.conflict(conn, "seller", "Seller", obj.getId());
 			}
 		} catch (SQLException e) {
-			e.printStackTrace();
+			DB.rollback(conn);
+			throw new DbException(e.getMessage());
 		} finally {
 			DB.closeStatement(st);
+			DB.releaseConnection(conn);
 		}
 	}
 
 	@Override
 	public void deleteById(Integer id) {
+		Connection conn = null;
 		PreparedStatement st = null;
 		try {
+			conn = DB.getConnection();
 			conn.setAutoCommit(false);
 			st = conn.prepareStatement("DELETE FROM seller WHERE seller.id = ?;");
 			st.setInt(1, id);
 			int rows = st.executeUpdate();
 			if (rows > 0) {
+				ChangeLog.record(conn, "seller", ChangeLog.DELETE, id);
 				conn.commit();
 			} else {
 				conn.rollback();
 				throw new DbException("Unexpected error: no rows affected");
 			}
 		} catch (SQLException e) {
-			try {
-				conn.rollback();
-			} catch (SQLException e1) {
-				e1.printStackTrace();
-			}
-			if (e.getClass() == SQLIntegrityConstraintViolationException.class) {
+			DB.rollback(conn);
+			if (e instanceof SQLIntegrityConstraintViolationException) {
 				throw new DbIntegrityException(e.getMessage());
 			}
-			e.printStackTrace();
+			throw new DbException(e.getMessage());
 		} finally {
 			DB.closeStatement(st);
+			DB.releaseConnection(conn);
 		}
 	}
 
 	@Override
 	public Seller findById(Integer id) {
+		Connection conn = null;
 		PreparedStatement st = null;
 		ResultSet rs = null;
 		try {
-			st = conn.prepareStatement("SELECT * FROM seller WHERE seller.Id = ?;");
+			conn = DB.getConnection();
+			st = conn.prepareStatement(SellerSelect.all().sql() + " WHERE seller.Id = ?");
 			st.setInt(1, id);
 			rs = st.executeQuery();
 			if (rs.next()) {
-				Department d = instantiateDepartment(rs);
-				return instantiateSeller(rs, d);
+				return SellerSelect.all().newRowMapper().map(rs);
 			} else {
 				throw new EntityNotFoundException("Seller with Id = " + id + " was not found");
 			}
@@ -134,74 +155,439 @@ public class SellerDaoImplJDBC implements SellerDao {
 		} finally {
 			DB.closeResultSet(rs);
 			DB.closeStatement(st);
+			DB.releaseConnection(conn);
 		}
 		return null;
 	}
 
 	@Override
 	public List<Seller> findByDepartment(Department department) {
+		Connection conn = null;
 		PreparedStatement st = null;
 		ResultSet rs = null;
 		try {
+			conn = DB.getConnection();
 			st = conn.prepareStatement(
-					"SELECT * FROM seller " + "INNER JOIN department ON seller.DepartmentId = department.Id "
-							+ "WHERE department.id = ? ORDER BY seller.Name");
+					SellerSelect.all().sql() + " WHERE seller.DepartmentId = ? ORDER BY seller.Name");
 			st.setInt(1, department.getId());
 			rs = st.executeQuery();
-			List<Seller> list = new ArrayList<>();
-			Map<Integer, Department> map = new HashMap<>();
-			while (rs.next()) {
-				Department d = map.get(rs.getObject("DepartmentId"));
-				if (d == null) {
-					d = instantiateDepartment(rs);
-					map.put(d.getId(), d);
+			return SellerSelect.all().mapAll(rs);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		} finally {
+			DB.closeResultSet(rs);
+			DB.closeStatement(st);
+			DB.releaseConnection(conn);
+		}
+		return null;
+	}
+
+	public List<Seller> findAll() {
+		Connection conn = null;
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			conn = DB.getConnection();
+			st = conn.prepareStatement(SellerSelect.all().sql());
+			rs = st.executeQuery();
+			return SellerSelect.all().mapAll(rs);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		} finally {
+			DB.closeResultSet(rs);
+			DB.closeStatement(st);
+			DB.releaseConnection(conn);
+		}
+		return null;
+	}
+
+	@Override
+	public List<Seller> findPage(Seller afterKey, int limit, SellerSort sort, SellerProjection projection) {
+		SellerSelect select = SellerSelect.of(keyColumns(projection, sort));
+		Connection conn = null;
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			conn = DB.getConnection();
+			StringBuilder sql = new StringBuilder(select.sql()).append(" ");
+			if (afterKey != null) {
+				sql.append(sort == SellerSort.NAME
+						? "WHERE (seller.Name > ? OR (seller.Name = ? AND seller.Id > ?)) "
+						: "WHERE seller.Id > ? ");
+			}
+			sql.append(orderBy(sort)).append(" LIMIT ?");
+			st = conn.prepareStatement(sql.toString());
+			int index = 1;
+			if (afterKey != null) {
+				if (sort == SellerSort.NAME) {
+					st.setString(index++, afterKey.getName());
+					st.setString(index++, afterKey.getName());
 				}
-				list.add(instantiateSeller(rs, d));
+				st.setInt(index++, afterKey.getId());
 			}
-			return list;
+			st.setInt(index, limit);
+			rs = st.executeQuery();
+			return select.mapAll(rs);
 		} catch (SQLException e) {
 			e.printStackTrace();
 		} finally {
 			DB.closeResultSet(rs);
 			DB.closeStatement(st);
+			DB.releaseConnection(conn);
 		}
 		return null;
 	}
 
-	public List<Seller> findAll() {
+	@Override
+	public List<Seller> findPageAt(int offset, int limit, SellerSort sort, SellerProjection projection) {
+		SellerSelect select = SellerSelect.of(keyColumns(projection, sort));
+		Connection conn = null;
 		PreparedStatement st = null;
 		ResultSet rs = null;
 		try {
-			st = conn.prepareStatement("SELECT seller.*, department.Name DepartmentName "
-					+ "FROM seller INNER JOIN department WHERE seller.DepartmentId = department.Id");
+			conn = DB.getConnection();
+			st = conn.prepareStatement(select.sql() + " " + orderBy(sort) + " LIMIT ? OFFSET ?");
+			st.setInt(1, limit);
+			st.setInt(2, offset);
 			rs = st.executeQuery();
-			List<Seller> list = new ArrayList<>();
-			Map<Integer, Department> map = new HashMap<>();
-			while (rs.next()) {
-				Department d = map.get(rs.getInt("DepartmentId"));
-				if (d == null) {
-					d = instantiateDepartment(rs);
-					map.put(d.getId(), d);
+			return select.mapAll(rs);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		} finally {
+			DB.closeResultSet(rs);
+			DB.closeStatement(st);
+			DB.releaseConnection(conn);
+		}
+		return null;
+	}
+
+	@Override
+	public int count() {
+		Connection conn = null;
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			conn = DB.getConnection();
+			st = conn.prepareStatement("SELECT COUNT(*) FROM seller;");
+			rs = st.executeQuery();
+			rs.next();
+			return rs.getInt(1);
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		} finally {
+			DB.closeResultSet(rs);
+			DB.closeStatement(st);
+			DB.releaseConnection(conn);
+		}
+	}
+
+	@Override
+	public List<Seller> search(SellerSearchCriteria criteria) {
+		SellerSelect select = SellerSelect.of(keyColumns(criteria.getProjection(), criteria.getSort()));
+		Connection conn = null;
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			conn = DB.getConnection();
+			StringBuilder sql = new StringBuilder(select.sql()).append(" WHERE 1 = 1");
+			List<Object> params = new ArrayList<>();
+			if (criteria.getNamePrefix() != null && !criteria.getNamePrefix().isBlank()) {
+				sql.append(" AND seller.Name LIKE ? ESCAPE '!'");
+				params.add(likePrefix(criteria.getNamePrefix()));
+			}
+			if (criteria.getEmailPrefix() != null && !criteria.getEmailPrefix().isBlank()) {
+				sql.append(" AND seller.Email LIKE ? ESCAPE '!'");
+				params.add(likePrefix(criteria.getEmailPrefix()));
+			}
+			if (criteria.getMinBaseSalary() != null) {
+				sql.append(" AND seller.BaseSalary >= ?");
+				params.add(criteria.getMinBaseSalary());
+			}
+			if (criteria.getMaxBaseSalary() != null) {
+				sql.append(" AND seller.BaseSalary <= ?");
+				params.add(criteria.getMaxBaseSalary());
+			}
+			if (criteria.getBirthDateFrom() != null) {
+				sql.append(" AND seller.BirthDate >= ?");
+				params.add(new Date(criteria.getBirthDateFrom().getTime()));
+			}
+			if (criteria.getBirthDateTo() != null) {
+				sql.append(" AND seller.BirthDate <= ?");
+				params.add(new Date(criteria.getBirthDateTo().getTime()));
+			}
+			if (criteria.getDepartmentIds() != null && !criteria.getDepartmentIds().isEmpty()) {
+				StringJoiner placeholders = new StringJoiner(", ", " AND seller.DepartmentId IN (", ")");
+				for (Integer id : criteria.getDepartmentIds()) {
+					placeholders.add("?");
+					params.add(id);
 				}
-				list.add(instantiateSeller(rs, d));
+				sql.append(placeholders);
 			}
-			return list;
+			sql.append(" ").append(orderBy(criteria.getSort())).append(" LIMIT ?");
+			params.add(criteria.getLimit());
+
+			st = conn.prepareStatement(sql.toString());
+			for (int i = 0; i < params.size(); i++) {
+				st.setObject(i + 1, params.get(i));
+			}
+			QueryCanceller.register(st);
+			rs = st.executeQuery();
+			return select.mapAll(rs);
 		} catch (SQLException e) {
 			e.printStackTrace();
 		} finally {
+			QueryCanceller.unregister();
 			DB.closeResultSet(rs);
 			DB.closeStatement(st);
+			DB.releaseConnection(conn);
 		}
 		return null;
 	}
 
-	private Seller instantiateSeller(ResultSet rs, Department d) throws SQLException {
-		return new Seller(rs.getInt("Id"), rs.getString("Name"), rs.getString("Email"), new java.util.Date(rs.getDate("BirthDate").getTime()),
-				rs.getDouble("BaseSalary"), d);
+	@Override
+	public BatchResult<Seller> insertAll(Collection<Seller> list) {
+		return JdbcBatch.execute("INSERT INTO seller (Name, Email, BirthDate, BaseSalary, DepartmentId) "
+				+ "VALUES (?, ?, ?, ?, ?)", list, this::bindSeller, Seller::setId,
+				ChangeLog.recorder("seller", ChangeLog.INSERT, Seller::getId));
+	}
+
+	@Override
+	public BatchResult<Seller> updateAll(Collection<Seller> list) {
+		return JdbcBatch.executeVersioned("UPDATE seller SET Name = ?, Email = ?, BirthDate = ?, BaseSalary = ?, "
+				+ "DepartmentId = ?, Version = Version + 1 WHERE seller.id = ? AND seller.Version = ?", list,
+				(st, obj) -> {
+					bindSeller(st, obj);
+					st.setInt(6, obj.getId());
+					st.setInt(7, OptimisticLock.versionOf(obj.getVersion()));
+				}, obj -> obj.setVersion(OptimisticLock.versionOf(obj.getVersion()) + 1),
+				ChangeLog.recorder("seller", ChangeLog.UPDATE, Seller::getId));
+	}
+
+	private void bindSeller(PreparedStatement st, Seller obj) throws SQLException {
+		st.setString(1, obj.getName());
+		st.setString(2, obj.getEmail());
+		st.setDate(3, new Date(obj.getBirthDate().getTime()));
+		st.setDouble(4, obj.getBaseSalary());
+		st.setInt(5, obj.getDepartment().getId());
+	}
+
+	@Override
+	public Stream<Seller> streamAll() {
+		SellerSelect select = SellerSelect.all();
+		return JdbcStream.stream(select.sql(), select.newRowMapper());
+	}
+
+	@Override
+	public SellerStore findAllColumnar() {
+		Connection conn = null;
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			conn = DB.getConnection();
+			st = conn.prepareStatement("SELECT seller.Id, seller.Name, seller.Email, seller.BirthDate, "
+					+ "seller.BaseSalary, seller.DepartmentId, department.Name DepartmentName, seller.Version "
+					+ "FROM seller INNER JOIN department ON seller.DepartmentId = department.Id ORDER BY seller.Id",
+					ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			JdbcStream.setFetchSize(st);
+			rs = st.executeQuery();
+			SellerStore store = new SellerStore();
+			while (rs.next()) {
+				Date birthDate = rs.getDate(4);
+				double baseSalary = rs.getDouble(5);
+				if (rs.wasNull()) {
+					baseSalary = Double.NaN;
+				}
+				store.add(rs.getInt(1), rs.getString(2), rs.getString(3),
+						birthDate == null ? null : birthDate.toLocalDate(), baseSalary,
+						rs.getInt(6), rs.getString(7), rs.getInt(8));
+			}
+			store.trimToSize();
+			return store;
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		} finally {
+			DB.closeResultSet(rs);
+			DB.closeStatement(st);
+			DB.releaseConnection(conn);
+		}
+	}
+
+	@Override
+	public List<DepartmentReport> reportByDepartment(LocalDate asOf) {
+		Connection conn = null;
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			conn = DB.getConnection();
+			LocalDate[] cutoffs = DepartmentReport.ageCutoffs(asOf);
+			StringBuilder sql = new StringBuilder("SELECT department.Id, department.Name, COUNT(seller.Id), "
+					+ "COUNT(seller.BaseSalary), SUM(seller.BaseSalary), MIN(seller.BaseSalary), "
+					+ "MAX(seller.BaseSalary), SUM(CASE WHEN seller.BirthDate > ? THEN 1 ELSE 0 END)");
+			for (int i = 1; i < cutoffs.length; i++) {
+				sql.append(", SUM(CASE WHEN seller.BirthDate <= ? AND seller.BirthDate > ? THEN 1 ELSE 0 END)");
+			}
+			sql.append(", SUM(CASE WHEN seller.BirthDate <= ? THEN 1 ELSE 0 END) "
+					+ "FROM department LEFT JOIN seller ON seller.DepartmentId = department.Id "
+					+ "GROUP BY department.Id, department.Name ORDER BY department.Name");
+			st = conn.prepareStatement(sql.toString());
+			int index = 1;
+			st.setDate(index++, Date.valueOf(cutoffs[0]));
+			for (int i = 1; i < cutoffs.length; i++) {
+				st.setDate(index++, Date.valueOf(cutoffs[i - 1]));
+				st.setDate(index++, Date.valueOf(cutoffs[i]));
+			}
+			st.setDate(index, Date.valueOf(cutoffs[cutoffs.length - 1]));
+			rs = st.executeQuery();
+			List<DepartmentReport> list = new ArrayList<>();
+			while (rs.next()) {
+				DepartmentReport report = new DepartmentReport(new Department(rs.getInt(1), rs.getString(2)));
+				report.setHeadcount(rs.getLong(3));
+				long salaried = rs.getLong(4);
+				if (salaried > 0) {
+					double total = rs.getDouble(5);
+					report.setTotalSalary(total);
+					report.setAverageSalary(total / salaried);
+					report.setMinSalary(rs.getDouble(6));
+					report.setMaxSalary(rs.getDouble(7));
+				}
+				long[] buckets = report.getAgeBuckets();
+				for (int i = 0; i < buckets.length; i++) {
+					buckets[i] = rs.getLong(8 + i);
+				}
+				list.add(report);
+			}
+			return list;
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		} finally {
+			DB.closeResultSet(rs);
+			DB.closeStatement(st);
+			DB.releaseConnection(conn);
+		}
+	}
+
+	@Override
+	public ChangeToken currentChangeToken() {
+		Connection conn = null;
+		try {
+			conn = DB.getConnection();
+			return ChangeLog.currentToken(conn);
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		} finally {
+			DB.releaseConnection(conn);
+		}
+	}
+
+	@Override
+	public ChangeSet<Seller> findChangedSince(ChangeToken token) {
+		int maxRows = Math.max(1, DB.getIntProperty("changes.maxRows", 1000));
+		Connection conn = null;
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			conn = DB.getConnection();
+			ChangeLog.Changes changes = ChangeLog.read(conn, token, maxRows);
+			if (changes.isTruncated()) {
+				return ChangeSet.reloadRequired();
+			}
+			ChangeSet<Seller> result = new ChangeSet<>(changes.getToken());
+			changes.rows("department").keySet().forEach(result::addChangedDepartment);
+			Map<Integer, ChangeLog.RowChange> sellers = changes.rows("seller");
+			Set<Integer> departments = changes.updated("department");
+			List<Integer> sellerIds = new ArrayList<>();
+			for (Map.Entry<Integer, ChangeLog.RowChange> seller : sellers.entrySet()) {
+				if (!seller.getValue().deleted) {
+					sellerIds.add(seller.getKey());
+				}
+			}
+
+			Set<Integer> found = new HashSet<>();
+			if (!sellerIds.isEmpty() || !departments.isEmpty()) {
+				// sellers of a renamed department show the new name
+				StringBuilder sql = new StringBuilder(SellerSelect.all().sql()).append(" WHERE ");
+				sql.append(inList("seller.Id", sellerIds.size()));
+				if (!departments.isEmpty()) {
+					sql.append(sellerIds.isEmpty() ? "" : " OR ").append(inList("seller.DepartmentId", departments.size()));
+				}
+				sql.append(" LIMIT ?");
+				st = conn.prepareStatement(sql.toString());
+				int index = 1;
+				for (Integer id : sellerIds) {
+					st.setInt(index++, id);
+				}
+				for (Integer id : departments) {
+					st.setInt(index++, id);
+				}
+				st.setInt(index, maxRows + 1);
+				rs = st.executeQuery();
+				List<Seller> rows = SellerSelect.all().mapAll(rs);
+				if (rows.size() > maxRows) {
+					return ChangeSet.reloadRequired();
+				}
+				for (Seller row : rows) {
+					found.add(row.getId());
+					ChangeLog.RowChange change = sellers.get(row.getId());
+					if (change != null && change.inserted) {
+						result.addInserted(row);
+					} else {
+						result.addUpdated(row);
+					}
+				}
+			}
+			// a row missing from the query was deleted after its change was read
+			for (Map.Entry<Integer, ChangeLog.RowChange> seller : sellers.entrySet()) {
+				if (!seller.getValue().inserted && !found.contains(seller.getKey())) {
+					result.addDeleted(seller.getKey());
+				}
+			}
+			return result;
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		} finally {
+			DB.closeResultSet(rs);
+			DB.closeStatement(st);
+			DB.releaseConnection(conn);
+		}
+	}
+
+	@Override
+	public int pruneChanges(java.util.Date before) {
+		Connection conn = null;
+		try {
+			conn = DB.getConnection();
+			return ChangeLog.prune(conn, new Timestamp(before.getTime()));
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		} finally {
+			DB.releaseConnection(conn);
+		}
+	}
+
+	private String inList(String column, int size) {
+		StringJoiner placeholders = new StringJoiner(", ", column + " IN (", ")");
+		for (int i = 0; i < size; i++) {
+			placeholders.add("?");
+		}
+		return size == 0 ? "" : placeholders.toString();
+	}
+
+	private String likePrefix(String prefix) {
+		return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+	}
+
+	private String orderBy(SellerSort sort) {
+		return sort == SellerSort.NAME ? "ORDER BY seller.Name, seller.Id" : "ORDER BY seller.Id";
+	}
+
+	/** Keyset pages seek from the last row's sort key, so that has to be read. */
+	private SellerProjection keyColumns(SellerProjection projection, SellerSort sort) {
+		return sort == SellerSort.NAME ? projection.with(SellerColumn.NAME) : projection;
 	}
 
-	private Department instantiateDepartment(ResultSet rs) throws SQLException {
-		return new Department(rs.getInt("DepartmentId"), rs.getString("DepartmentName"));
+	/** Maps rows selected with every column, in {@link SellerSelect#all()} order. */
+	List<Seller> instantiateSellers(ResultSet rs) throws SQLException {
+		return SellerSelect.all().mapAll(rs);
 	}
 
 }
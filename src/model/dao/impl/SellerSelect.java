@@ -0,0 +1,87 @@
+package model.dao.impl;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+import db.RowMapper;
+import model.dao.SellerColumn;
+import model.dao.SellerProjection;
+import model.entities.Seller;
+
+/**
+ * The SELECT for a {@link SellerProjection}: an explicit column list, joined
+ * with department only when the department is read, and an
+ * {@link EntityMapper} generated for exactly those columns, so rows are read
+ * by position rather than by looking each column up by name. Built once per
+ * projection.
+ */
+final class SellerSelect {
+
+	private static final Map<SellerProjection, SellerSelect> CACHE = new ConcurrentHashMap<>();
+
+	private final String select;
+	private final EntityMapper<Seller> mapper;
+
+	static SellerSelect of(SellerProjection projection) {
+		return CACHE.computeIfAbsent(projection, SellerSelect::new);
+	}
+
+	static SellerSelect all() {
+		return of(SellerProjection.ALL);
+	}
+
+	private SellerSelect(SellerProjection projection) {
+		StringJoiner columns = new StringJoiner(", ", "SELECT ", " FROM seller");
+		List<String> properties = new ArrayList<>();
+		add(columns, properties, "seller.Id", "Id");
+		if (projection.includes(SellerColumn.NAME)) {
+			add(columns, properties, "seller.Name", "Name");
+		}
+		if (projection.includes(SellerColumn.EMAIL)) {
+			add(columns, properties, "seller.Email", "Email");
+		}
+		if (projection.includes(SellerColumn.BIRTH_DATE)) {
+			add(columns, properties, "seller.BirthDate", "BirthDate");
+		}
+		if (projection.includes(SellerColumn.BASE_SALARY)) {
+			add(columns, properties, "seller.BaseSalary", "BaseSalary");
+		}
+		boolean department = projection.includes(SellerColumn.DEPARTMENT);
+		if (department) {
+			add(columns, properties, "seller.DepartmentId", "Department.Id");
+			add(columns, properties, "department.Name DepartmentName", "Department.Name");
+		}
+		if (projection.includes(SellerColumn.VERSION)) {
+			add(columns, properties, "seller.Version", "Version");
+		}
+		select = columns + (department ? " INNER JOIN department ON seller.DepartmentId = department.Id" : "");
+		mapper = EntityMapper.of(Seller.class, properties.toArray(new String[0]));
+	}
+
+	private static void add(StringJoiner columns, List<String> properties, String column, String property) {
+		columns.add(column);
+		properties.add(property);
+	}
+
+	/** {@code SELECT <columns> FROM seller [INNER JOIN department ...]}, ready for a WHERE. */
+	String sql() {
+		return select;
+	}
+
+	/**
+	 * Maps rows of one result. Sellers of the same department share one
+	 * {@link model.entities.Department}.
+	 */
+	RowMapper<Seller> newRowMapper() {
+		return mapper.newRowMapper();
+	}
+
+	List<Seller> mapAll(ResultSet rs) throws SQLException {
+		return mapper.mapAll(rs);
+	}
+}
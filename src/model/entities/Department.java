@@ -7,6 +7,7 @@ public class Department implements Serializable {
 
 	private Integer id;
 	private String name;
+	private Integer version;
 
 	public Department() {
 	}
@@ -32,6 +33,14 @@ public class Department implements Serializable {
 		this.name = name;
 	}
 
+	public Integer getVersion() {
+		return version;
+	}
+
+	public void setVersion(Integer version) {
+		this.version = version;
+	}
+
 	@Override
 	public String toString() {
 		return "{" + id + ", " + name + "}";
@@ -0,0 +1,125 @@
+package model.entities;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Headcount, salary figures and age distribution of one department. Salary
+ * figures are null when no seller in the department has a salary; sellers
+ * without a birth date are left out of the age buckets.
+ */
+public class DepartmentReport implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/** Lower bounds, in years, of every age bucket but the first. */
+	public static final int[] AGE_BOUNDS = { 25, 35, 45, 55 };
+
+	private Department department;
+	private long headcount;
+	private Double totalSalary;
+	private Double averageSalary;
+	private Double minSalary;
+	private Double maxSalary;
+	private long[] ageBuckets = new long[AGE_BOUNDS.length + 1];
+
+	public DepartmentReport() {
+	}
+
+	public DepartmentReport(Department department) {
+		this.department = department;
+	}
+
+	public Department getDepartment() {
+		return department;
+	}
+
+	public void setDepartment(Department department) {
+		this.department = department;
+	}
+
+	public String getDepartmentName() {
+		return department == null ? null : department.getName();
+	}
+
+	public long getHeadcount() {
+		return headcount;
+	}
+
+	public void setHeadcount(long headcount) {
+		this.headcount = headcount;
+	}
+
+	public Double getTotalSalary() {
+		return totalSalary;
+	}
+
+	public void setTotalSalary(Double totalSalary) {
+		this.totalSalary = totalSalary;
+	}
+
+	public Double getAverageSalary() {
+		return averageSalary;
+	}
+
+	public void setAverageSalary(Double averageSalary) {
+		this.averageSalary = averageSalary;
+	}
+
+	public Double getMinSalary() {
+		return minSalary;
+	}
+
+	public void setMinSalary(Double minSalary) {
+		this.minSalary = minSalary;
+	}
+
+	public Double getMaxSalary() {
+		return maxSalary;
+	}
+
+	public void setMaxSalary(Double maxSalary) {
+		this.maxSalary = maxSalary;
+	}
+
+	/**
+	 * Seller counts per age bucket: under {@code AGE_BOUNDS[0]}, then one
+	 * bucket per bound up to the next one, the last being open-ended.
+	 */
+	public long[] getAgeBuckets() {
+		return ageBuckets;
+	}
+
+	public void setAgeBuckets(long[] ageBuckets) {
+		this.ageBuckets = ageBuckets;
+	}
+
+	/**
+	 * Birth-date cutoffs matching {@link #AGE_BOUNDS} on {@code asOf}: a seller
+	 * is at least {@code AGE_BOUNDS[i]} years old when born on or before
+	 * {@code cutoffs[i]}.
+	 */
+	public static LocalDate[] ageCutoffs(LocalDate asOf) {
+		LocalDate[] cutoffs = new LocalDate[AGE_BOUNDS.length];
+		for (int i = 0; i < AGE_BOUNDS.length; i++) {
+			cutoffs[i] = asOf.minusYears(AGE_BOUNDS[i]);
+		}
+		return cutoffs;
+	}
+
+	public static String ageBucketLabel(int bucket) {
+		if (bucket == 0) {
+			return "< " + AGE_BOUNDS[0];
+		}
+		if (bucket == AGE_BOUNDS.length) {
+			return AGE_BOUNDS[bucket - 1] + "+";
+		}
+		return AGE_BOUNDS[bucket - 1] + "-" + (AGE_BOUNDS[bucket] - 1);
+	}
+
+	@Override
+	public String toString() {
+		return "DepartmentReport [department=" + getDepartmentName() + ", headcount=" + headcount + ", totalSalary="
+				+ totalSalary + ", averageSalary=" + averageSalary + ", minSalary=" + minSalary + ", maxSalary="
+				+ maxSalary + "]";
+	}
+}
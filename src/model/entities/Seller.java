@@ -14,6 +14,7 @@ public class Seller implements Serializable {
 	private Double baseSalary;
 
 	private Department department;
+	private Integer version;
 
 	public Seller() {
 	}
@@ -75,6 +76,18 @@ public class Seller implements Serializable {
 		this.department = department;
 	}
 
+	/**
+	 * Row version used for optimistic locking; every successful update
+	 * increments it.
+	 */
+	public Integer getVersion() {
+		return version;
+	}
+
+	public void setVersion(Integer version) {
+		this.version = version;
+	}
+
 	@Override
 	public String toString() {
 		SimpleDateFormat df = new SimpleDateFormat("dd/MM/yyyy");
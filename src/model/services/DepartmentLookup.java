@@ -0,0 +1,35 @@
+package model.services;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import model.entities.Department;
+
+/**
+ * Resolves department names to departments, ignoring case and surrounding
+ * blanks. Built once from a department list and read-only afterwards, so it
+ * can be shared between threads.
+ */
+class DepartmentLookup {
+
+	private final Map<String, Department> byName = new HashMap<>();
+
+	DepartmentLookup(List<Department> departments) {
+		for (Department d : departments) {
+			if (d.getName() != null) {
+				byName.putIfAbsent(key(d.getName()), d);
+			}
+		}
+	}
+
+	/** The department with this name, or null when there is none. */
+	Department find(String name) {
+		return name == null ? null : byName.get(key(name));
+	}
+
+	private static String key(String name) {
+		return name.trim().toLowerCase(Locale.ROOT);
+	}
+}
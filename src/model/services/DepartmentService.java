@@ -1,29 +1,133 @@
 package model.services;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
+import db.TransactionManager;
+import db.exceptions.DbException;
+import model.dao.BatchResult;
 import model.dao.DepartmentDao;
+import model.dao.SellerDao;
 import model.dao.FactoryDao;
 import model.entities.Department;
+import model.entities.Seller;
+import model.sync.WriteBehind;
 
 public class DepartmentService {
 
 	private DepartmentDao departmentDao = FactoryDao.createDepartmentDao();
+	private SellerDao sellerDao = FactoryDao.createSellerDao();
 
 	public List<Department> findAll() {
 		return departmentDao.findAll();
 	}
+
+	public CompletableFuture<List<Department>> findAllAsync() {
+		return CompletableFuture.supplyAsync(this::findAll, ServiceExecutor.get());
+	}
+
+	/** Streams the whole table; the stream must be closed. */
+	public Stream<Department> streamAll() {
+		return departmentDao.streamAll();
+	}
+
+	public Department findById(Integer id) {
+		return departmentDao.findById(id);
+	}
+
+	public CompletableFuture<Department> findByIdAsync(Integer id) {
+		return CompletableFuture.supplyAsync(() -> findById(id), ServiceExecutor.get());
+	}
 	
+	/** Goes through the write-behind journal instead of the DAO when that mode is on. */
 	public void SaveOrUpdate(Department obj) {
-		if (obj.getId() == null) {
+		WriteBehind writeBehind = WriteBehind.get();
+		if (writeBehind != null) {
+			writeBehind.saveDepartment(obj);
+		}
+		else if (obj.getId() == null) {
 			departmentDao.insert(obj);
 		}
 		else {
 			departmentDao.update(obj);
 		}
 	}
+
+	public CompletableFuture<Void> saveOrUpdateAsync(Department obj) {
+		return CompletableFuture.runAsync(() -> SaveOrUpdate(obj), ServiceExecutor.get());
+	}
 	
+	/**
+	 * Saves a department and moves the given sellers into it as one unit of
+	 * work: if any of them can't be written, the department is left as it was
+	 * too. Always writes to the database directly, even in write-behind mode,
+	 * since a journaled department would outlive a rolled back transaction.
+	 * <p>
+	 * The writes are made on copies. Only once the transaction has committed
+	 * do {@code obj} and the sellers get their ids, versions and department,
+	 * so after a failure they can be saved again as they are.
+	 */
+	public void saveWithSellers(Department obj, List<Seller> sellers) {
+		Department department = new Department(obj.getId(), obj.getName());
+		department.setVersion(obj.getVersion());
+		List<Seller> copies = new ArrayList<>();
+		for (Seller seller : sellers) {
+			Seller copy = new Seller(seller.getId(), seller.getName(), seller.getEmail(), seller.getBirthDate(),
+					seller.getBaseSalary(), department);
+			copy.setVersion(seller.getVersion());
+			copies.add(copy);
+		}
+		TransactionManager.inTransaction(() -> {
+			if (department.getId() == null) {
+				departmentDao.insert(department);
+			} else {
+				departmentDao.update(department);
+			}
+			List<Seller> inserts = new ArrayList<>();
+			List<Seller> updates = new ArrayList<>();
+			for (Seller copy : copies) {
+				(copy.getId() == null ? inserts : updates).add(copy);
+			}
+			failOn(sellerDao.insertAll(inserts));
+			failOn(sellerDao.updateAll(updates));
+			TransactionManager.afterCompletion(committed -> {
+				if (!committed) {
+					return;
+				}
+				obj.setId(department.getId());
+				obj.setVersion(department.getVersion());
+				for (int i = 0; i < sellers.size(); i++) {
+					Seller seller = sellers.get(i);
+					seller.setId(copies.get(i).getId());
+					seller.setVersion(copies.get(i).getVersion());
+					seller.setDepartment(obj);
+				}
+			});
+		});
+	}
+
+	public CompletableFuture<Void> saveWithSellersAsync(Department obj, List<Seller> sellers) {
+		return CompletableFuture.runAsync(() -> saveWithSellers(obj, sellers), ServiceExecutor.get());
+	}
+
 	public void remove(Department obj) {
+		WriteBehind writeBehind = WriteBehind.get();
+		if (writeBehind != null) {
+			writeBehind.deleteDepartment(obj);
+			return;
+		}
 		departmentDao.deleteById(obj.getId());
 	}
+
+	public CompletableFuture<Void> removeAsync(Department obj) {
+		return CompletableFuture.runAsync(() -> remove(obj), ServiceExecutor.get());
+	}
+
+	private static void failOn(BatchResult<Seller> result) {
+		if (result.hasFailures()) {
+			throw new DbException(result.getFailures().get(0).getMessage());
+		}
+	}
 }
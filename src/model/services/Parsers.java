@@ -0,0 +1,145 @@
+package model.services;
+
+import java.text.ParsePosition;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parsers for values typed into a form or read from a file. They return null
+ * instead of throwing, which {@link SellerValidator} reports as a missing
+ * value.
+ */
+public class Parsers {
+
+	private static final Map<String, DateTimeFormatter> DATE_PARSERS = new ConcurrentHashMap<>();
+
+	/**
+	 * Parses a decimal integer, returning null instead of throwing when the
+	 * text is null, malformed or out of range.
+	 */
+	public static Integer tryParseToInt(String str) {
+		if (str == null || str.isEmpty()) {
+			return null;
+		}
+		int i = 0;
+		boolean negative = str.charAt(0) == '-';
+		if (negative || str.charAt(0) == '+') {
+			i++;
+		}
+		if (i == str.length()) {
+			return null;
+		}
+		// accumulate negatively so Integer.MIN_VALUE fits
+		long limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+		long result = 0;
+		for (; i < str.length(); i++) {
+			int digit = Character.digit(str.charAt(i), 10);
+			if (digit < 0) {
+				return null;
+			}
+			result = result * 10 - digit;
+			if (result < limit) {
+				return null;
+			}
+		}
+		return (int) (negative ? result : -result);
+	}
+
+	/**
+	 * Parses a plain decimal number such as "-1234.5" or "1.2e3", returning
+	 * null instead of throwing for anything else: NaN, Infinity and numbers
+	 * too large for a double included.
+	 */
+	public static Double tryParseToDouble(String str) {
+		if (str == null || !isDecimal(str.trim())) {
+			return null;
+		}
+		double value = Double.parseDouble(str);
+		return Double.isInfinite(value) ? null : value;
+	}
+
+	private static boolean isDecimal(String str) {
+		int i = 0;
+		int n = str.length();
+		if (i < n && (str.charAt(i) == '-' || str.charAt(i) == '+')) {
+			i++;
+		}
+		int digits = 0;
+		while (i < n && isDigit(str.charAt(i))) {
+			i++;
+			digits++;
+		}
+		if (i < n && str.charAt(i) == '.') {
+			i++;
+			while (i < n && isDigit(str.charAt(i))) {
+				i++;
+				digits++;
+			}
+		}
+		if (digits == 0) {
+			return false;
+		}
+		if (i < n && (str.charAt(i) == 'e' || str.charAt(i) == 'E')) {
+			i++;
+			if (i < n && (str.charAt(i) == '-' || str.charAt(i) == '+')) {
+				i++;
+			}
+			int exponentDigits = 0;
+			while (i < n && isDigit(str.charAt(i))) {
+				i++;
+				exponentDigits++;
+			}
+			if (exponentDigits == 0) {
+				return false;
+			}
+		}
+		if (i < n && "dDfF".indexOf(str.charAt(i)) >= 0) {
+			i++;
+		}
+		return i == n;
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * Parses a date-only pattern such as dd/MM/yyyy into midnight of that day
+	 * in the system time zone. Day and month may have one or two digits.
+	 * Returns null, without throwing, for text that doesn't match the pattern
+	 * or names a day that doesn't exist.
+	 */
+	public static Date tryParseToDate(String strDate, String pattern) {
+		if (strDate == null) {
+			return null;
+		}
+		ParsePosition position = new ParsePosition(0);
+		DateTimeFormatter df = DATE_PARSERS.computeIfAbsent(pattern,
+				p -> DateTimeFormatter.ofPattern(p.replace("dd", "d").replace("MM", "M")));
+		TemporalAccessor parsed = df.parseUnresolved(strDate, position);
+		if (parsed == null || position.getErrorIndex() >= 0 || position.getIndex() != strDate.length()) {
+			return null;
+		}
+		ChronoField yearField = parsed.isSupported(ChronoField.YEAR) ? ChronoField.YEAR : ChronoField.YEAR_OF_ERA;
+		if (!parsed.isSupported(yearField) || !parsed.isSupported(ChronoField.MONTH_OF_YEAR)
+				|| !parsed.isSupported(ChronoField.DAY_OF_MONTH)) {
+			return null;
+		}
+		long year = parsed.getLong(yearField);
+		long month = parsed.getLong(ChronoField.MONTH_OF_YEAR);
+		long day = parsed.getLong(ChronoField.DAY_OF_MONTH);
+		if (year < 1 || year > 9999 || month < 1 || month > 12 || day < 1
+				|| day > YearMonth.of((int) year, (int) month).lengthOfMonth()) {
+			return null;
+		}
+		LocalDate date = LocalDate.of((int) year, (int) month, (int) day);
+		return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+	}
+}
@@ -0,0 +1,57 @@
+package model.services;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import model.dao.DepartmentDao;
+import model.dao.FactoryDao;
+import model.dao.SellerDao;
+import model.entities.Department;
+import model.entities.DepartmentReport;
+import model.store.DepartmentAggregation;
+import model.store.SellerStore;
+
+public class ReportService {
+
+	private SellerDao sellerDao = FactoryDao.createSellerDao();
+	private DepartmentDao departmentDao = FactoryDao.createDepartmentDao();
+
+	/** Per-department report computed by the database. */
+	public List<DepartmentReport> departmentReport() {
+		return sellerDao.reportByDepartment(LocalDate.now());
+	}
+
+	public CompletableFuture<List<DepartmentReport>> departmentReportAsync() {
+		return CompletableFuture.supplyAsync(this::departmentReport, ServiceExecutor.get());
+	}
+
+	/**
+	 * Same report computed in memory: the seller table is streamed into a
+	 * column store and aggregated on the fork/join pool.
+	 */
+	public List<DepartmentReport> departmentReport(SellerStore store) {
+		List<DepartmentReport> list = new ArrayList<>(DepartmentAggregation.aggregate(store, LocalDate.now()));
+		Set<Integer> reported = new HashSet<>();
+		for (DepartmentReport report : list) {
+			reported.add(report.getDepartment().getId());
+		}
+		for (Department d : departmentDao.findAll()) {
+			if (!reported.contains(d.getId())) {
+				list.add(new DepartmentReport(d));
+			}
+		}
+		list.sort(Comparator.comparing(DepartmentReport::getDepartmentName,
+				Comparator.nullsLast(Comparator.naturalOrder())));
+		return list;
+	}
+
+	public CompletableFuture<List<DepartmentReport>> departmentReportInMemoryAsync() {
+		return CompletableFuture.supplyAsync(() -> departmentReport(sellerDao.findAllColumnar()),
+				ServiceExecutor.get());
+	}
+}
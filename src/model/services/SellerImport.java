@@ -0,0 +1,359 @@
+package model.services;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import model.dao.BatchResult;
+import model.dao.DepartmentDao;
+import model.dao.FactoryDao;
+import model.dao.SellerDao;
+import model.dao.exceptions.ValidationException;
+import model.entities.Department;
+import model.entities.Seller;
+
+/**
+ * Imports sellers from a CSV file with a header row naming the columns Name,
+ * Email, BirthDate (dd/MM/yyyy), BaseSalary and Department, in any order.
+ * <p>
+ * The file is read line by line in chunks; each chunk is parsed and validated
+ * on the common fork/join pool while the import thread writes the previous
+ * ones through {@link SellerDao#insertAll}, so only a few chunks are in memory
+ * at a time. Rejected lines go to a CSV error report with their line number
+ * and reason. Cancelling stops at the next chunk; what was already written
+ * stays in the database.
+ */
+public class SellerImport {
+
+	private static final int CHUNK_SIZE = 1000;
+	private static final int MAX_CHUNKS_IN_FLIGHT = Math.max(2, Runtime.getRuntime().availableProcessors());
+	private static final String DATE_PATTERN = "dd/MM/yyyy";
+	private static final String[] COLUMNS = { "name", "email", "birthdate", "basesalary", "department" };
+
+	private SellerDao sellerDao = FactoryDao.createSellerDao();
+	private DepartmentDao departmentDao = FactoryDao.createDepartmentDao();
+
+	private final Path source;
+	private final Path errorReport;
+	private volatile boolean cancelled;
+
+	public SellerImport(Path source, Path errorReport) {
+		this.source = source;
+		this.errorReport = errorReport;
+	}
+
+	public Path getErrorReport() {
+		return errorReport;
+	}
+
+	/**
+	 * Runs the import on a service worker. {@code onProgress} is called from
+	 * that worker after every chunk; the future completes with the final
+	 * progress.
+	 */
+	public CompletableFuture<Progress> startAsync(Consumer<Progress> onProgress) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return run(onProgress);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, ServiceExecutor.get());
+	}
+
+	public void cancel() {
+		cancelled = true;
+	}
+
+	private Progress run(Consumer<Progress> onProgress) throws IOException {
+		long start = System.nanoTime();
+		long fileSize = Math.max(1, Files.size(source));
+		DepartmentLookup departments = new DepartmentLookup(departmentDao.findAll());
+		Progress progress = new Progress();
+
+		try (CountingInputStream in = new CountingInputStream(Files.newInputStream(source));
+				BufferedReader reader = new BufferedReader(
+						new InputStreamReader(in, StandardCharsets.UTF_8.newDecoder()));
+				BufferedWriter errors = Files.newBufferedWriter(errorReport, StandardCharsets.UTF_8)) {
+			errors.write("Line,Error,Content");
+			errors.newLine();
+			String header = reader.readLine();
+			if (header == null) {
+				throw new ValidationException("The file is empty");
+			}
+			int[] columns = columnIndexes(Csv.split(stripBom(header)));
+
+			Deque<CompletableFuture<Chunk>> inFlight = new ArrayDeque<>();
+			long lineNumber = 1;
+			boolean endOfFile = false;
+			while (!cancelled) {
+				while (!endOfFile && inFlight.size() < MAX_CHUNKS_IN_FLIGHT) {
+					List<String> lines = new ArrayList<>(CHUNK_SIZE);
+					long firstLine = lineNumber + 1;
+					String line;
+					while (lines.size() < CHUNK_SIZE && (line = reader.readLine()) != null) {
+						lines.add(line);
+					}
+					lineNumber += lines.size();
+					endOfFile = lines.size() < CHUNK_SIZE;
+					if (!lines.isEmpty()) {
+						long endOffset = in.count;
+						inFlight.add(CompletableFuture
+								.supplyAsync(() -> parse(lines, firstLine, endOffset, columns, departments)));
+					}
+				}
+				if (inFlight.isEmpty()) {
+					break;
+				}
+				Chunk chunk = inFlight.poll().join();
+				write(chunk, progress, errors);
+				progress.fraction = Math.min(1.0, (double) chunk.endOffset / fileSize);
+				progress.elapsedNanos = System.nanoTime() - start;
+				onProgress.accept(progress.copy());
+			}
+			for (CompletableFuture<Chunk> pending : inFlight) {
+				pending.cancel(false);
+			}
+		}
+		progress.cancelled = cancelled;
+		progress.done = true;
+		progress.elapsedNanos = System.nanoTime() - start;
+		return progress.copy();
+	}
+
+	private Chunk parse(List<String> lines, long firstLine, long endOffset, int[] columns,
+			DepartmentLookup departments) {
+		Chunk chunk = new Chunk(endOffset);
+		for (int i = 0; i < lines.size(); i++) {
+			String line = lines.get(i);
+			long lineNumber = firstLine + i;
+			if (line.isBlank()) {
+				continue;
+			}
+			List<String> fields = Csv.split(line);
+			String name = field(fields, columns[0]);
+			String email = field(fields, columns[1]);
+			Date birthDate = Parsers.tryParseToDate(field(fields, columns[2]), DATE_PATTERN);
+			Double baseSalary = Parsers.tryParseToDouble(field(fields, columns[3]));
+			String departmentName = field(fields, columns[4]);
+			Department department = departments.find(departmentName);
+			Seller seller = null;
+			ValidationException invalid = null;
+			try {
+				seller = SellerValidator.validate(null, name, email, birthDate, baseSalary, department);
+			} catch (ValidationException e) {
+				invalid = e;
+			}
+			if (department == null) {
+				if (invalid == null) {
+					invalid = new ValidationException("Error validation");
+				}
+				invalid.addError("department", departmentName == null || departmentName.isEmpty()
+						? "Field can't be empty" : "Unknown department '" + departmentName + "'");
+			}
+			if (invalid == null) {
+				chunk.accept(seller, lineNumber, line);
+			} else {
+				chunk.reject(lineNumber, describe(invalid.getErrors()), line);
+			}
+		}
+		return chunk;
+	}
+
+	private void write(Chunk chunk, Progress progress, BufferedWriter errors) throws IOException {
+		progress.rowsRead += chunk.rowCount;
+		for (String error : chunk.errors) {
+			errors.write(error);
+			errors.newLine();
+		}
+		progress.rejected += chunk.errors.size();
+		if (chunk.sellers.isEmpty()) {
+			return;
+		}
+		BatchResult<Seller> result = sellerDao.insertAll(chunk.sellers);
+		progress.imported += result.getSucceeded().size();
+		for (BatchResult.Failure<Seller> failure : result.getFailures()) {
+			for (Seller seller : failure.getRows()) {
+				String reason = failure.getRejected().isEmpty() || failure.getRejected().contains(seller)
+						? failure.getMessage()
+						: "Not written because another row of its batch failed: " + failure.getMessage();
+				errors.write(errorLine(chunk.lineOf.get(seller), reason, chunk.textOf.get(seller)));
+				errors.newLine();
+				progress.rejected++;
+			}
+		}
+	}
+
+	private static int[] columnIndexes(List<String> header) {
+		int[] indexes = new int[COLUMNS.length];
+		for (int c = 0; c < COLUMNS.length; c++) {
+			indexes[c] = -1;
+			for (int i = 0; i < header.size(); i++) {
+				if (header.get(i).trim().replace(" ", "").equalsIgnoreCase(COLUMNS[c])) {
+					indexes[c] = i;
+				}
+			}
+			if (indexes[c] < 0) {
+				throw new ValidationException("The header has no " + COLUMNS[c] + " column");
+			}
+		}
+		return indexes;
+	}
+
+	private static String field(List<String> fields, int index) {
+		return index < fields.size() ? fields.get(index).trim() : null;
+	}
+
+	private static String describe(Map<String, String> errors) {
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, String> error : errors.entrySet()) {
+			sb.append(sb.length() == 0 ? "" : "; ").append(error.getKey()).append(": ").append(error.getValue());
+		}
+		return sb.toString();
+	}
+
+	private static String errorLine(long lineNumber, String reason, String line) {
+		return lineNumber + "," + Csv.quote(reason) + "," + Csv.quote(line);
+	}
+
+	private static String stripBom(String header) {
+		return header.startsWith("\uFEFF") ? header.substring(1) : header;
+	}
+
+	/**
+	 * Counts the bytes read from the file. The reader decodes ahead of the
+	 * lines it returns, so the count runs at most a buffer ahead of them.
+	 */
+	private static class CountingInputStream extends FilterInputStream {
+
+		long count;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0) {
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if (n > 0) {
+				count += n;
+			}
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+	}
+
+	/** Lines of the file parsed by one task, in file order. */
+	private static class Chunk {
+
+		final long endOffset;
+		final List<Seller> sellers = new ArrayList<>();
+		final Map<Seller, Long> lineOf = new IdentityHashMap<>();
+		final Map<Seller, String> textOf = new IdentityHashMap<>();
+		final List<String> errors = new ArrayList<>();
+		int rowCount;
+
+		Chunk(long endOffset) {
+			this.endOffset = endOffset;
+		}
+
+		void accept(Seller seller, long lineNumber, String line) {
+			sellers.add(seller);
+			lineOf.put(seller, lineNumber);
+			textOf.put(seller, line);
+			rowCount++;
+		}
+
+		void reject(long lineNumber, String reason, String line) {
+			errors.add(errorLine(lineNumber, reason, line));
+			rowCount++;
+		}
+	}
+
+	public static class Progress {
+
+		private long rowsRead;
+		private long imported;
+		private long rejected;
+		private double fraction;
+		private long elapsedNanos;
+		private boolean done;
+		private boolean cancelled;
+
+		public long getRowsRead() {
+			return rowsRead;
+		}
+
+		public long getImported() {
+			return imported;
+		}
+
+		public long getRejected() {
+			return rejected;
+		}
+
+		/** Share of the file processed so far, between 0 and 1. */
+		public double getFraction() {
+			return fraction;
+		}
+
+		public double getRowsPerSecond() {
+			return elapsedNanos == 0 ? 0 : rowsRead * 1e9 / elapsedNanos;
+		}
+
+		public long getElapsedMillis() {
+			return elapsedNanos / 1_000_000;
+		}
+
+		public boolean isDone() {
+			return done;
+		}
+
+		public boolean isCancelled() {
+			return cancelled;
+		}
+
+		private Progress copy() {
+			Progress p = new Progress();
+			p.rowsRead = rowsRead;
+			p.imported = imported;
+			p.rejected = rejected;
+			p.fraction = fraction;
+			p.elapsedNanos = elapsedNanos;
+			p.done = done;
+			p.cancelled = cancelled;
+			return p;
+		}
+	}
+}
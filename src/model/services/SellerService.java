@@ -1,29 +1,152 @@
 package model.services;
 
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
 
+import db.DB;
+import db.QueryCanceller;
+import model.dao.ChangeSet;
+import model.dao.ChangeToken;
 import model.dao.SellerDao;
+import model.dao.SellerProjection;
 import model.dao.FactoryDao;
+import model.dao.SellerSearchCriteria;
+import model.dao.SellerSort;
 import model.entities.Seller;
+import model.store.SellerStore;
+import model.sync.WriteBehind;
 
 public class SellerService {
 
+	private static final Logger LOG = Logger.getLogger(SellerService.class.getName());
+
 	private SellerDao sellerDao = FactoryDao.createSellerDao();
 
 	public List<Seller> findAll() {
 		return sellerDao.findAll();
 	}
+
+	public CompletableFuture<List<Seller>> findAllAsync() {
+		return CompletableFuture.supplyAsync(this::findAll, ServiceExecutor.get());
+	}
+
+	public CompletableFuture<SellerStore> findAllColumnarAsync() {
+		return CompletableFuture.supplyAsync(sellerDao::findAllColumnar, ServiceExecutor.get());
+	}
+
+	/** Streams the whole table; the stream must be closed. */
+	public Stream<Seller> streamAll() {
+		return sellerDao.streamAll();
+	}
+
+	public Seller findById(Integer id) {
+		return sellerDao.findById(id);
+	}
+
+	public CompletableFuture<Seller> findByIdAsync(Integer id) {
+		return CompletableFuture.supplyAsync(() -> findById(id), ServiceExecutor.get());
+	}
 	
+	public List<Seller> findPage(Seller afterKey, int limit, SellerSort sort) {
+		return sellerDao.findPage(afterKey, limit, sort);
+	}
+
+	public List<Seller> findPageAt(int offset, int limit, SellerSort sort) {
+		return sellerDao.findPageAt(offset, limit, sort);
+	}
+
+	public List<Seller> findPage(Seller afterKey, int limit, SellerSort sort, SellerProjection projection) {
+		return sellerDao.findPage(afterKey, limit, sort, projection);
+	}
+
+	public List<Seller> findPageAt(int offset, int limit, SellerSort sort, SellerProjection projection) {
+		return sellerDao.findPageAt(offset, limit, sort, projection);
+	}
+
+	public int count() {
+		return sellerDao.count();
+	}
+
+	/**
+	 * Runs the search on a worker thread. Cancelling the returned future also
+	 * cancels the query on the server if it is still running.
+	 */
+	public CompletableFuture<List<Seller>> searchAsync(SellerSearchCriteria criteria) {
+		QueryCanceller canceller = new QueryCanceller();
+		CompletableFuture<List<Seller>> future = CompletableFuture
+				.supplyAsync(() -> canceller.run(() -> sellerDao.search(criteria)), ServiceExecutor.get());
+		future.whenComplete((list, e) -> {
+			if (future.isCancelled()) {
+				canceller.cancel();
+			}
+		});
+		return future;
+	}
+	
+	public ChangeToken currentChangeToken() {
+		return sellerDao.currentChangeToken();
+	}
+
+	public ChangeSet<Seller> findChangedSince(ChangeToken token) {
+		return sellerDao.findChangedSince(token);
+	}
+
+	/** How long changes stay in the change log, from {@code changes.retentionHours}. */
+	public static long getChangeRetentionMillis() {
+		return Math.max(1, DB.getIntProperty("changes.retentionHours", 24)) * 3_600_000L;
+	}
+
+	/**
+	 * Drops change log entries past the retention time. Failing only means the
+	 * log keeps growing, so errors are logged and otherwise ignored.
+	 */
+	public CompletableFuture<Integer> pruneChangesAsync() {
+		CompletableFuture<Integer> future = CompletableFuture.supplyAsync(
+				() -> sellerDao.pruneChanges(new Date(System.currentTimeMillis() - getChangeRetentionMillis())),
+				ServiceExecutor.get());
+		future.whenComplete((count, e) -> {
+			if (e != null) {
+				LOG.log(Level.WARNING, "Could not prune the change log", e);
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * Saves to the database, or to the local journal when write-behind is on,
+	 * in which case a new row gets a temporary id until it is synced.
+	 */
 	public void SaveOrUpdate(Seller obj) {
-		if (obj.getId() == null) {
+		WriteBehind writeBehind = WriteBehind.get();
+		if (writeBehind != null) {
+			writeBehind.saveSeller(obj);
+		}
+		else if (obj.getId() == null) {
 			sellerDao.insert(obj);
 		}
 		else {
 			sellerDao.update(obj);
 		}
 	}
+
+	public CompletableFuture<Void> saveOrUpdateAsync(Seller obj) {
+		return CompletableFuture.runAsync(() -> SaveOrUpdate(obj), ServiceExecutor.get());
+	}
 	
 	public void remove(Seller obj) {
+		WriteBehind writeBehind = WriteBehind.get();
+		if (writeBehind != null) {
+			writeBehind.deleteSeller(obj);
+			return;
+		}
 		sellerDao.deleteById(obj.getId());
 	}
+
+	public CompletableFuture<Void> removeAsync(Seller obj) {
+		return CompletableFuture.runAsync(() -> remove(obj), ServiceExecutor.get());
+	}
 }
@@ -0,0 +1,39 @@
+package model.services;
+
+import java.util.Date;
+
+import model.dao.exceptions.ValidationException;
+import model.entities.Department;
+import model.entities.Seller;
+
+/**
+ * Field rules for a seller, shared by the seller form and the CSV import.
+ */
+public class SellerValidator {
+
+	/**
+	 * Builds the seller from already parsed values; a value that could not be
+	 * parsed should be passed as null. Errors are keyed by field name.
+	 */
+	public static Seller validate(Integer id, String name, String email, Date birthDate, Double baseSalary,
+			Department department) {
+		ValidationException ex = new ValidationException("Error validation");
+		String msg = "Field can't be empty";
+		if (name == null || name.isBlank()) {
+			ex.addError("name", msg);
+		}
+		if (email == null || email.isBlank()) {
+			ex.addError("email", msg);
+		}
+		if (birthDate == null) {
+			ex.addError("birthDate", msg);
+		}
+		if (baseSalary == null) {
+			ex.addError("baseSalary", msg);
+		}
+		if (ex.getErrors().size() > 0) {
+			throw ex;
+		}
+		return new Seller(id, name, email, birthDate, baseSalary, department);
+	}
+}
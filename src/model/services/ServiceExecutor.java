@@ -0,0 +1,45 @@
+package model.services;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import db.DB;
+
+/**
+ * Worker threads that run service calls away from the JavaFX Application
+ * Thread. Sized after the connection pool, since every task holds a
+ * connection while it runs.
+ */
+public class ServiceExecutor {
+
+	private static ExecutorService executor = null;
+
+	public static synchronized ExecutorService get() {
+		if (executor == null) {
+			int threads = DB.getIntProperty("service.threads", DB.getIntProperty("pool.maxSize", 8));
+			executor = Executors.newFixedThreadPool(threads, new WorkerThreadFactory());
+		}
+		return executor;
+	}
+
+	public static synchronized void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	private static class WorkerThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "service-worker-" + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package model.store;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import model.entities.Department;
+import model.entities.DepartmentReport;
+
+/**
+ * Computes {@link DepartmentReport}s over a {@link SellerStore} in parallel.
+ * The rows are split into ranges on the common fork/join pool; each range
+ * fills primitive accumulators indexed by the store's department dictionary,
+ * and the partial results are summed on the way back up.
+ */
+public class DepartmentAggregation {
+
+	/** Ranges at most this long are aggregated without splitting further. */
+	private static final int THRESHOLD = 32 * 1024;
+
+	public static List<DepartmentReport> aggregate(SellerStore store, LocalDate asOf) {
+		LocalDate[] dates = DepartmentReport.ageCutoffs(asOf);
+		int[] cutoffs = new int[dates.length];
+		for (int i = 0; i < dates.length; i++) {
+			cutoffs[i] = (int) dates[i].toEpochDay();
+		}
+		int departments = store.getDepartments().size();
+		Totals totals = store.size() == 0 ? new Totals(departments, cutoffs.length + 1)
+				: ForkJoinPool.commonPool().invoke(new RangeTask(store, cutoffs, departments, 0, store.size()));
+
+		List<DepartmentReport> list = new ArrayList<>();
+		for (int ref = 0; ref < departments; ref++) {
+			Department d = store.getDepartments().get(ref);
+			DepartmentReport report = new DepartmentReport(new Department(d.getId(), d.getName()));
+			report.setHeadcount(totals.headcount[ref]);
+			long salaried = totals.salaried[ref];
+			if (salaried > 0) {
+				report.setTotalSalary(totals.total[ref]);
+				report.setAverageSalary(totals.total[ref] / salaried);
+				report.setMinSalary(totals.min[ref]);
+				report.setMaxSalary(totals.max[ref]);
+			}
+			int buckets = cutoffs.length + 1;
+			report.setAgeBuckets(Arrays.copyOfRange(totals.ageBuckets, ref * buckets, (ref + 1) * buckets));
+			list.add(report);
+		}
+		return list;
+	}
+
+	/** Per-department accumulators, one array slot per dictionary entry. */
+	private static class Totals {
+
+		final long[] headcount;
+		final long[] salaried;
+		final double[] total;
+		final double[] min;
+		final double[] max;
+		final long[] ageBuckets;
+
+		Totals(int departments, int buckets) {
+			headcount = new long[departments];
+			salaried = new long[departments];
+			total = new double[departments];
+			min = new double[departments];
+			max = new double[departments];
+			Arrays.fill(min, Double.POSITIVE_INFINITY);
+			Arrays.fill(max, Double.NEGATIVE_INFINITY);
+			ageBuckets = new long[departments * buckets];
+		}
+
+		void add(Totals other) {
+			for (int i = 0; i < headcount.length; i++) {
+				headcount[i] += other.headcount[i];
+				salaried[i] += other.salaried[i];
+				total[i] += other.total[i];
+				min[i] = Math.min(min[i], other.min[i]);
+				max[i] = Math.max(max[i], other.max[i]);
+			}
+			for (int i = 0; i < ageBuckets.length; i++) {
+				ageBuckets[i] += other.ageBuckets[i];
+			}
+		}
+	}
+
+	private static class RangeTask extends RecursiveTask<Totals> {
+		private static final long serialVersionUID = 1L;
+
+		private final SellerStore store;
+		private final int[] cutoffs;
+		private final int departments;
+		private final int from;
+		private final int to;
+
+		RangeTask(SellerStore store, int[] cutoffs, int departments, int from, int to) {
+			this.store = store;
+			this.cutoffs = cutoffs;
+			this.departments = departments;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Totals compute() {
+			if (to - from > THRESHOLD) {
+				int middle = (from + to) >>> 1;
+				RangeTask left = new RangeTask(store, cutoffs, departments, from, middle);
+				left.fork();
+				Totals right = new RangeTask(store, cutoffs, departments, middle, to).compute();
+				right.add(left.join());
+				return right;
+			}
+			int buckets = cutoffs.length + 1;
+			Totals totals = new Totals(departments, buckets);
+			for (int row = from; row < to; row++) {
+				int ref = store.getDepartmentRef(row);
+				totals.headcount[ref]++;
+				double salary = store.getBaseSalary(row);
+				if (!Double.isNaN(salary)) {
+					totals.salaried[ref]++;
+					totals.total[ref] += salary;
+					totals.min[ref] = Math.min(totals.min[ref], salary);
+					totals.max[ref] = Math.max(totals.max[ref], salary);
+				}
+				int birthDay = store.getBirthEpochDay(row);
+				if (birthDay != SellerStore.NO_DATE) {
+					// cutoffs get earlier with each bound, so count the ones already reached
+					int bucket = 0;
+					while (bucket < cutoffs.length && birthDay <= cutoffs[bucket]) {
+						bucket++;
+					}
+					totals.ageBuckets[ref * buckets + bucket]++;
+				}
+			}
+			return totals;
+		}
+	}
+}
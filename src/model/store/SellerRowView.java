@@ -0,0 +1,130 @@
+package model.store;
+
+import java.util.Date;
+
+import model.entities.Department;
+import model.entities.Seller;
+
+/**
+ * Read-only {@link Seller} whose getters read one row of a
+ * {@link SellerStore}, so a table can show the store without a full object
+ * per row. A view points at a row index and is only meaningful until the
+ * store is next changed; use {@link #toSeller()} for a copy that can be kept
+ * or edited.
+ */
+public class SellerRowView extends Seller {
+	private static final long serialVersionUID = 1L;
+
+	private final transient SellerStore store;
+	private final int row;
+
+	public SellerRowView(SellerStore store, int row) {
+		this.store = store;
+		this.row = row;
+	}
+
+	public int getRow() {
+		return row;
+	}
+
+	public Seller toSeller() {
+		return store.toSeller(row);
+	}
+
+	@Override
+	public Integer getId() {
+		return store.getId(row);
+	}
+
+	@Override
+	public String getName() {
+		return store.getName(row);
+	}
+
+	@Override
+	public String getEmail() {
+		return store.getEmail(row);
+	}
+
+	@Override
+	public Date getBirthDate() {
+		return store.getBirthDate(row);
+	}
+
+	@Override
+	public Double getBaseSalary() {
+		double salary = store.getBaseSalary(row);
+		return Double.isNaN(salary) ? null : salary;
+	}
+
+	@Override
+	public Department getDepartment() {
+		return store.getDepartment(row);
+	}
+
+	@Override
+	public Integer getVersion() {
+		return store.getVersion(row);
+	}
+
+	@Override
+	public void setId(Integer id) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setName(String name) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setEmail(String email) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setBirthDate(Date birthDate) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setBaseSalary(Double baseSalary) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setDepartment(Department department) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setVersion(Integer version) {
+		throw readOnly();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof SellerRowView)) {
+			return false;
+		}
+		SellerRowView other = (SellerRowView) obj;
+		return store == other.store && row == other.row;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * System.identityHashCode(store) + row;
+	}
+
+	@Override
+	public String toString() {
+		return toSeller().toString();
+	}
+
+	private static UnsupportedOperationException readOnly() {
+		return new UnsupportedOperationException("Row views are read-only; edit a copy from toSeller()");
+	}
+}
@@ -0,0 +1,326 @@
+package model.store;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.entities.Department;
+import model.entities.Seller;
+
+/**
+ * Column-oriented copy of the seller table for views that keep many rows in
+ * memory. Numbers are kept in primitive arrays, birth dates as epoch days,
+ * departments as an index into a dictionary holding each department once, and
+ * names and e-mails as UTF-8 bytes in one shared buffer. A row costs about a
+ * third of the heap of a {@link Seller} and nothing is boxed until a value is
+ * read.
+ * <p>
+ * Not thread-safe: fill it on one thread, then hand it over.
+ */
+public class SellerStore {
+
+	/** Epoch day stored for an unknown birth date. */
+	public static final int NO_DATE = Integer.MIN_VALUE;
+
+	private int size;
+	private int[] ids;
+	private int[] versions;
+	private double[] baseSalaries;
+	private int[] birthDays;
+	private int[] departmentRefs;
+	private final StringColumn names;
+	private final StringColumn emails;
+
+	private final List<Department> departments = new ArrayList<>();
+	private final Map<Integer, Integer> departmentRefById = new HashMap<>();
+
+	public SellerStore() {
+		this(1024);
+	}
+
+	public SellerStore(int initialCapacity) {
+		int capacity = Math.max(16, initialCapacity);
+		ids = new int[capacity];
+		versions = new int[capacity];
+		baseSalaries = new double[capacity];
+		birthDays = new int[capacity];
+		departmentRefs = new int[capacity];
+		names = new StringColumn(capacity, 16);
+		emails = new StringColumn(capacity, 24);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/** Appends a row and returns its index. */
+	public int add(int id, String name, String email, LocalDate birthDate, double baseSalary, int departmentId,
+			String departmentName, int version) {
+		ensureCapacity(size + 1);
+		int row = size++;
+		ids[row] = id;
+		names.add(name);
+		emails.add(email);
+		setRow(row, birthDate, baseSalary, departmentId, departmentName, version);
+		return row;
+	}
+
+	public int add(Seller seller) {
+		Department d = seller.getDepartment();
+		return add(seller.getId(), seller.getName(), seller.getEmail(), toLocalDate(seller.getBirthDate()),
+				seller.getBaseSalary() == null ? Double.NaN : seller.getBaseSalary(), d.getId(), d.getName(),
+				seller.getVersion() == null ? 0 : seller.getVersion());
+	}
+
+	/** Overwrites a row with the values of {@code seller}; the id is kept. */
+	public void set(int row, Seller seller) {
+		checkIndex(row);
+		Department d = seller.getDepartment();
+		names.set(row, seller.getName());
+		emails.set(row, seller.getEmail());
+		setRow(row, toLocalDate(seller.getBirthDate()), seller.getBaseSalary() == null ? Double.NaN
+				: seller.getBaseSalary(), d.getId(), d.getName(), seller.getVersion() == null ? 0 : seller.getVersion());
+	}
+
+	public void remove(int row) {
+		checkIndex(row);
+		int tail = size - row - 1;
+		System.arraycopy(ids, row + 1, ids, row, tail);
+		System.arraycopy(versions, row + 1, versions, row, tail);
+		System.arraycopy(baseSalaries, row + 1, baseSalaries, row, tail);
+		System.arraycopy(birthDays, row + 1, birthDays, row, tail);
+		System.arraycopy(departmentRefs, row + 1, departmentRefs, row, tail);
+		names.remove(row, size);
+		emails.remove(row, size);
+		size--;
+	}
+
+	/** Index of the row with this id, or -1. */
+	public int indexOfId(int id) {
+		for (int row = 0; row < size; row++) {
+			if (ids[row] == id) {
+				return row;
+			}
+		}
+		return -1;
+	}
+
+	public int getId(int row) {
+		checkIndex(row);
+		return ids[row];
+	}
+
+	public int getVersion(int row) {
+		checkIndex(row);
+		return versions[row];
+	}
+
+	public String getName(int row) {
+		checkIndex(row);
+		return names.get(row);
+	}
+
+	public String getEmail(int row) {
+		checkIndex(row);
+		return emails.get(row);
+	}
+
+	/** Birth date as days since 1970-01-01, or {@link #NO_DATE} when unknown. */
+	public int getBirthEpochDay(int row) {
+		checkIndex(row);
+		return birthDays[row];
+	}
+
+	public Date getBirthDate(int row) {
+		int day = getBirthEpochDay(row);
+		return day == NO_DATE ? null
+				: Date.from(LocalDate.ofEpochDay(day).atStartOfDay(ZoneId.systemDefault()).toInstant());
+	}
+
+	/** Base salary, or NaN when unknown. */
+	public double getBaseSalary(int row) {
+		checkIndex(row);
+		return baseSalaries[row];
+	}
+
+	public int getDepartmentRef(int row) {
+		checkIndex(row);
+		return departmentRefs[row];
+	}
+
+	public Department getDepartment(int row) {
+		return departments.get(getDepartmentRef(row));
+	}
+
+	/** The department dictionary; {@link #getDepartmentRef(int)} indexes into it. */
+	public List<Department> getDepartments() {
+		return departments;
+	}
+
+	/** A standalone copy of a row, safe to keep after the store changes. */
+	public Seller toSeller(int row) {
+		double salary = getBaseSalary(row);
+		Seller seller = new Seller(getId(row), getName(row), getEmail(row), getBirthDate(row),
+				Double.isNaN(salary) ? null : salary, getDepartment(row));
+		seller.setVersion(getVersion(row));
+		return seller;
+	}
+
+	/** Releases the spare capacity left over from loading. */
+	public void trimToSize() {
+		ids = Arrays.copyOf(ids, size);
+		versions = Arrays.copyOf(versions, size);
+		baseSalaries = Arrays.copyOf(baseSalaries, size);
+		birthDays = Arrays.copyOf(birthDays, size);
+		departmentRefs = Arrays.copyOf(departmentRefs, size);
+		names.trimToSize(size);
+		emails.trimToSize(size);
+	}
+
+	private void setRow(int row, LocalDate birthDate, double baseSalary, int departmentId, String departmentName,
+			int version) {
+		versions[row] = version;
+		baseSalaries[row] = baseSalary;
+		birthDays[row] = birthDate == null ? NO_DATE : (int) birthDate.toEpochDay();
+		departmentRefs[row] = departmentRef(departmentId, departmentName);
+	}
+
+	private int departmentRef(int departmentId, String departmentName) {
+		Integer ref = departmentRefById.get(departmentId);
+		if (ref == null) {
+			ref = departments.size();
+			departments.add(new Department(departmentId, departmentName));
+			departmentRefById.put(departmentId, ref);
+		}
+		return ref;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= ids.length) {
+			return;
+		}
+		int newCapacity = Math.max(capacity, ids.length + (ids.length >> 1));
+		ids = Arrays.copyOf(ids, newCapacity);
+		versions = Arrays.copyOf(versions, newCapacity);
+		baseSalaries = Arrays.copyOf(baseSalaries, newCapacity);
+		birthDays = Arrays.copyOf(birthDays, newCapacity);
+		departmentRefs = Arrays.copyOf(departmentRefs, newCapacity);
+		names.ensureCapacity(newCapacity);
+		emails.ensureCapacity(newCapacity);
+	}
+
+	private void checkIndex(int row) {
+		if (row < 0 || row >= size) {
+			throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + size);
+		}
+	}
+
+	private static LocalDate toLocalDate(Date date) {
+		if (date == null) {
+			return null;
+		}
+		if (date instanceof java.sql.Date) {
+			return ((java.sql.Date) date).toLocalDate();
+		}
+		return LocalDate.ofInstant(date.toInstant(), ZoneId.systemDefault());
+	}
+
+	/**
+	 * Strings stored back to back as UTF-8 in one byte buffer. A rewritten value
+	 * is appended and the old bytes are left behind until they make up half of
+	 * the buffer, at which point the live values are compacted.
+	 */
+	private static class StringColumn {
+
+		private byte[] data;
+		private int used;
+		private int garbage;
+		private int[] starts;
+		private int[] lengths;
+		private int count;
+
+		StringColumn(int capacity, int averageLength) {
+			data = new byte[capacity * averageLength];
+			starts = new int[capacity];
+			lengths = new int[capacity];
+		}
+
+		void add(String value) {
+			int row = count++;
+			write(row, value);
+		}
+
+		void set(int row, String value) {
+			garbage += Math.max(0, lengths[row]);
+			write(row, value);
+			if (garbage > used / 2) {
+				compact();
+			}
+		}
+
+		String get(int row) {
+			int length = lengths[row];
+			return length < 0 ? null : new String(data, starts[row], length, StandardCharsets.UTF_8);
+		}
+
+		void remove(int row, int size) {
+			garbage += Math.max(0, lengths[row]);
+			System.arraycopy(starts, row + 1, starts, row, size - row - 1);
+			System.arraycopy(lengths, row + 1, lengths, row, size - row - 1);
+			count--;
+		}
+
+		void ensureCapacity(int capacity) {
+			starts = Arrays.copyOf(starts, capacity);
+			lengths = Arrays.copyOf(lengths, capacity);
+		}
+
+		void trimToSize(int size) {
+			compact();
+			data = Arrays.copyOf(data, used);
+			starts = Arrays.copyOf(starts, size);
+			lengths = Arrays.copyOf(lengths, size);
+		}
+
+		private void write(int row, String value) {
+			if (value == null) {
+				starts[row] = 0;
+				lengths[row] = -1;
+				return;
+			}
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			if (used + bytes.length > data.length) {
+				data = Arrays.copyOf(data, Math.max(used + bytes.length, data.length + (data.length >> 1)));
+			}
+			System.arraycopy(bytes, 0, data, used, bytes.length);
+			starts[row] = used;
+			lengths[row] = bytes.length;
+			used += bytes.length;
+		}
+
+		private void compact() {
+			if (garbage == 0) {
+				return;
+			}
+			byte[] packed = new byte[Math.max(16, used - garbage)];
+			int position = 0;
+			for (int row = 0; row < count; row++) {
+				int length = lengths[row];
+				if (length > 0) {
+					System.arraycopy(data, starts[row], packed, position, length);
+				}
+				starts[row] = length < 0 ? 0 : position;
+				position += Math.max(0, length);
+			}
+			data = packed;
+			used = position;
+			garbage = 0;
+		}
+	}
+}
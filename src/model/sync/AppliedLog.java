@@ -0,0 +1,115 @@
+package model.sync;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import db.DB;
+import db.exceptions.DbException;
+import model.sync.Journal.Entry;
+import model.sync.Journal.Outcome;
+
+/**
+ * The {@code write_behind_applied} table: what became of each journal entry a
+ * sync batch applied, inserted in the batch's own transaction. If the
+ * application stops after that commit but before the journal records it, the
+ * entries come back on the next start, are found here, and are not applied a
+ * second time.
+ * <p>
+ * Entries before the batch being applied are already recorded in the journal,
+ * so their rows are deleted as the batch starts.
+ */
+class AppliedLog {
+
+	private static final int MAX_CONFLICT_LENGTH = 500;
+
+	/** Outcomes already recorded for entries of {@code batch}, by sequence number. */
+	static Map<Long, Outcome> read(String journalId, List<Entry> batch) {
+		Map<Long, Entry> bySeq = new HashMap<>();
+		for (Entry entry : batch) {
+			bySeq.put(entry.seq, entry);
+		}
+		Connection conn = null;
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			conn = DB.getConnection();
+			st = conn.prepareStatement("SELECT Seq, InsertedId, Conflict FROM write_behind_applied "
+					+ "WHERE JournalId = ? AND Seq BETWEEN ? AND ?");
+			st.setString(1, journalId);
+			st.setLong(2, batch.get(0).seq);
+			st.setLong(3, batch.get(batch.size() - 1).seq);
+			rs = st.executeQuery();
+			Map<Long, Outcome> outcomes = new HashMap<>();
+			while (rs.next()) {
+				Entry entry = bySeq.get(rs.getLong(1));
+				if (entry != null) {
+					int insertedId = rs.getInt(2);
+					outcomes.put(entry.seq, new Outcome(entry, rs.wasNull() ? null : insertedId, rs.getString(3)));
+				}
+			}
+			return outcomes;
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		} finally {
+			DB.closeResultSet(rs);
+			DB.closeStatement(st);
+			DB.releaseConnection(conn);
+		}
+	}
+
+	static void record(String journalId, List<Outcome> outcomes) {
+		if (outcomes.isEmpty()) {
+			return;
+		}
+		Connection conn = null;
+		PreparedStatement st = null;
+		try {
+			conn = DB.getConnection();
+			st = conn.prepareStatement(
+					"INSERT INTO write_behind_applied (JournalId, Seq, InsertedId, Conflict) VALUES (?, ?, ?, ?)");
+			for (Outcome outcome : outcomes) {
+				st.setString(1, journalId);
+				st.setLong(2, outcome.entry.seq);
+				if (outcome.insertedId == null) {
+					st.setNull(3, Types.INTEGER);
+				} else {
+					st.setInt(3, outcome.insertedId);
+				}
+				String conflict = outcome.conflict;
+				st.setString(4, conflict != null && conflict.length() > MAX_CONFLICT_LENGTH
+						? conflict.substring(0, MAX_CONFLICT_LENGTH) : conflict);
+				st.addBatch();
+			}
+			st.executeBatch();
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		} finally {
+			DB.closeStatement(st);
+			DB.releaseConnection(conn);
+		}
+	}
+
+	/** Deletes the rows of entries before {@code seq}, which the journal has recorded. */
+	static void prune(String journalId, long seq) {
+		Connection conn = null;
+		PreparedStatement st = null;
+		try {
+			conn = DB.getConnection();
+			st = conn.prepareStatement("DELETE FROM write_behind_applied WHERE JournalId = ? AND Seq < ?");
+			st.setString(1, journalId);
+			st.setLong(2, seq);
+			st.executeUpdate();
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		} finally {
+			DB.closeStatement(st);
+			DB.releaseConnection(conn);
+		}
+	}
+}
@@ -0,0 +1,393 @@
+package model.sync;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import model.entities.Department;
+import model.entities.Seller;
+
+/**
+ * Append-only file of queued writes. Every record is one line of
+ * tab-separated fields ending with a CRC32 of the rest of the line, and is
+ * forced to disk before the call that wrote it returns. A line cut short by a
+ * crash fails its checksum and is dropped on replay; since its append never
+ * returned, nobody was told it was saved.
+ * <p>
+ * Records: {@code E} queues a write, {@code A} marks one applied (with the new
+ * id of an insert), {@code C} marks one rejected, and {@code M} carries the id
+ * of an earlier insert across a {@link #rewrite}. {@code I} starts every
+ * rewritten file with the journal's id and last sequence number, so sequence
+ * numbers keep growing and, together with the id, name an entry in the
+ * database too.
+ * <p>
+ * Not thread-safe; {@link WriteBehind} serializes access.
+ */
+class Journal {
+
+	private static final Logger LOG = Logger.getLogger(Journal.class.getName());
+
+	enum Kind {
+		INSERT_SELLER, UPDATE_SELLER, DELETE_SELLER, INSERT_DEPARTMENT, UPDATE_DEPARTMENT, DELETE_DEPARTMENT;
+
+		boolean isSeller() {
+			return this == INSERT_SELLER || this == UPDATE_SELLER || this == DELETE_SELLER;
+		}
+	}
+
+	static class Entry {
+
+		final long seq;
+		final Kind kind;
+		final Seller seller;
+		final Department department;
+
+		Entry(long seq, Kind kind, Seller seller, Department department) {
+			this.seq = seq;
+			this.kind = kind;
+			this.seller = seller;
+			this.department = department;
+		}
+
+		Integer getId() {
+			return kind.isSeller() ? seller.getId() : department.getId();
+		}
+	}
+
+	/** What became of an entry once the sync worker got to it. */
+	static class Outcome {
+
+		final Entry entry;
+		final Integer insertedId;
+		final String conflict;
+
+		Outcome(Entry entry, Integer insertedId, String conflict) {
+			this.entry = entry;
+			this.insertedId = insertedId;
+			this.conflict = conflict;
+		}
+	}
+
+	private final Path file;
+	private FileChannel channel;
+
+	private final List<Entry> recovered = new ArrayList<>();
+	private final Map<Integer, Integer> sellerIds = new LinkedHashMap<>();
+	private final Map<Integer, Integer> departmentIds = new LinkedHashMap<>();
+	private String id;
+	private long lastSeq;
+	private int lowestTemporaryId;
+
+	/**
+	 * Opens the journal, reading back what a previous run left in it, and
+	 * rewrites it without the finished entries.
+	 */
+	Journal(Path file) throws IOException {
+		this.file = file.toAbsolutePath();
+		Files.createDirectories(this.file.getParent());
+		if (Files.exists(this.file)) {
+			replay(new String(Files.readAllBytes(this.file), StandardCharsets.UTF_8));
+		}
+		if (id == null) {
+			id = UUID.randomUUID().toString();
+		}
+		if (recovered.isEmpty()) {
+			// nothing can refer to the temporary ids of an earlier run any more
+			sellerIds.clear();
+			departmentIds.clear();
+			lowestTemporaryId = 0;
+		}
+		rewrite(recovered);
+	}
+
+	/** Entries a previous run wrote but didn't get to apply, in order. */
+	List<Entry> getRecovered() {
+		return recovered;
+	}
+
+	/** Identifies this journal among those of other installations. */
+	String getId() {
+		return id;
+	}
+
+	long getLastSeq() {
+		return lastSeq;
+	}
+
+	/** The lowest temporary id in use, or 0. */
+	int getLowestTemporaryId() {
+		return lowestTemporaryId;
+	}
+
+	/** Database ids of inserted sellers, by the temporary id they were queued under. */
+	Map<Integer, Integer> getSellerIds() {
+		return sellerIds;
+	}
+
+	Map<Integer, Integer> getDepartmentIds() {
+		return departmentIds;
+	}
+
+	void append(Entry entry) {
+		write(encodeEntry(entry));
+		lastSeq = Math.max(lastSeq, entry.seq);
+	}
+
+	void acknowledge(List<Outcome> outcomes) {
+		StringBuilder sb = new StringBuilder();
+		for (Outcome outcome : outcomes) {
+			if (outcome.conflict != null) {
+				sb.append(line("C", Long.toString(outcome.entry.seq), outcome.conflict));
+			} else {
+				sb.append(line("A", Long.toString(outcome.entry.seq),
+						outcome.insertedId == null ? "" : outcome.insertedId.toString()));
+			}
+		}
+		write(sb.toString());
+	}
+
+	/**
+	 * Replaces the file with the given pending entries and the known id
+	 * mappings, so finished records don't pile up.
+	 */
+	void rewrite(Collection<Entry> entries) throws IOException {
+		StringBuilder sb = new StringBuilder(line("I", id, Long.toString(lastSeq)));
+		for (Map.Entry<Integer, Integer> ids : sellerIds.entrySet()) {
+			sb.append(line("M", "seller", ids.getKey().toString(), ids.getValue().toString()));
+		}
+		for (Map.Entry<Integer, Integer> ids : departmentIds.entrySet()) {
+			sb.append(line("M", "department", ids.getKey().toString(), ids.getValue().toString()));
+		}
+		for (Entry entry : entries) {
+			sb.append(encodeEntry(entry));
+		}
+		close();
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			writeFully(out, sb.toString());
+			out.force(true);
+		}
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+	}
+
+	void close() throws IOException {
+		if (channel != null) {
+			channel.close();
+			channel = null;
+		}
+	}
+
+	private void write(String text) {
+		try {
+			writeFully(channel, text);
+			channel.force(false);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void writeFully(FileChannel out, String text) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+		while (buffer.hasRemaining()) {
+			out.write(buffer);
+		}
+	}
+
+	private void replay(String text) {
+		Map<Long, Entry> entries = new LinkedHashMap<>();
+		String[] lines = text.split("\n", -1);
+		for (int i = 0; i < lines.length; i++) {
+			if (lines[i].isEmpty()) {
+				continue;
+			}
+			String[] f = decode(lines[i]);
+			if (f == null) {
+				LOG.warning("Skipping damaged journal line " + (i + 1) + " of " + file);
+				continue;
+			}
+			switch (f[0]) {
+			case "E":
+				Entry entry = decodeEntry(f);
+				entries.put(entry.seq, entry);
+				lastSeq = Math.max(lastSeq, entry.seq);
+				noteTemporaryId(entry.getId());
+				if (entry.kind.isSeller() && entry.seller.getDepartment() != null) {
+					noteTemporaryId(entry.seller.getDepartment().getId());
+				}
+				break;
+			case "A":
+				Entry applied = entries.remove(Long.parseLong(f[1]));
+				if (applied != null && !f[2].isEmpty()) {
+					(applied.kind.isSeller() ? sellerIds : departmentIds).put(applied.getId(), Integer.valueOf(f[2]));
+				}
+				break;
+			case "C":
+				entries.remove(Long.parseLong(f[1]));
+				break;
+			case "I":
+				id = f[1];
+				lastSeq = Math.max(lastSeq, Long.parseLong(f[2]));
+				break;
+			case "M":
+				int temporaryId = Integer.parseInt(f[2]);
+				("seller".equals(f[1]) ? sellerIds : departmentIds).put(temporaryId, Integer.valueOf(f[3]));
+				noteTemporaryId(temporaryId);
+				break;
+			default:
+				LOG.warning("Unknown journal record '" + f[0] + "' in " + file);
+			}
+		}
+		recovered.addAll(entries.values());
+	}
+
+	private void noteTemporaryId(Integer id) {
+		if (id != null && id < lowestTemporaryId) {
+			lowestTemporaryId = id;
+		}
+	}
+
+	private static String encodeEntry(Entry entry) {
+		String seq = Long.toString(entry.seq);
+		if (entry.kind.isSeller()) {
+			Seller s = entry.seller;
+			Department d = s.getDepartment();
+			return line("E", seq, entry.kind.name(), str(s.getId()), s.getName(), s.getEmail(),
+					s.getBirthDate() == null ? null : Long.toString(toLocalDate(s.getBirthDate()).toEpochDay()),
+					str(s.getBaseSalary()), d == null ? null : str(d.getId()), d == null ? null : d.getName(),
+					str(s.getVersion()));
+		}
+		Department d = entry.department;
+		return line("E", seq, entry.kind.name(), str(d.getId()), d.getName(), str(d.getVersion()));
+	}
+
+	private static Entry decodeEntry(String[] f) {
+		long seq = Long.parseLong(f[1]);
+		Kind kind = Kind.valueOf(f[2]);
+		if (kind.isSeller()) {
+			Department department = f[8] == null ? null : new Department(Integer.valueOf(f[8]), f[9]);
+			Date birthDate = f[6] == null ? null
+					: Date.from(LocalDate.ofEpochDay(Long.parseLong(f[6])).atStartOfDay(ZoneId.systemDefault())
+							.toInstant());
+			Seller seller = new Seller(integer(f[3]), f[4], f[5], birthDate,
+					f[7] == null ? null : Double.valueOf(f[7]), department);
+			seller.setVersion(integer(f[10]));
+			return new Entry(seq, kind, seller, null);
+		}
+		Department department = new Department(integer(f[3]), f[4]);
+		department.setVersion(integer(f[5]));
+		return new Entry(seq, kind, null, department);
+	}
+
+	private static String line(String... fields) {
+		StringBuilder sb = new StringBuilder();
+		for (String field : fields) {
+			if (sb.length() > 0) {
+				sb.append('\t');
+			}
+			escape(sb, field);
+		}
+		CRC32 crc = new CRC32();
+		crc.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+		return sb.append('\t').append(Long.toHexString(crc.getValue())).append('\n').toString();
+	}
+
+	/** The fields of a line, or null if its checksum doesn't match. */
+	private static String[] decode(String line) {
+		int last = line.lastIndexOf('\t');
+		if (last < 0) {
+			return null;
+		}
+		String body = line.substring(0, last);
+		CRC32 crc = new CRC32();
+		crc.update(body.getBytes(StandardCharsets.UTF_8));
+		if (!Long.toHexString(crc.getValue()).equals(line.substring(last + 1))) {
+			return null;
+		}
+		String[] fields = body.split("\t", -1);
+		for (int i = 0; i < fields.length; i++) {
+			fields[i] = unescape(fields[i]);
+		}
+		return fields;
+	}
+
+	/** Escapes tabs, line breaks and backslashes; null is written as a lone {@code \0}. */
+	private static void escape(StringBuilder sb, String value) {
+		if (value == null) {
+			sb.append("\\0");
+			return;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '\\':
+				sb.append("\\\\");
+				break;
+			case '\t':
+				sb.append("\\t");
+				break;
+			case '\n':
+				sb.append("\\n");
+				break;
+			case '\r':
+				sb.append("\\r");
+				break;
+			default:
+				sb.append(c);
+			}
+		}
+	}
+
+	private static String unescape(String value) {
+		if (value.equals("\\0")) {
+			return null;
+		}
+		if (value.indexOf('\\') < 0) {
+			return value;
+		}
+		StringBuilder sb = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '\\' && i + 1 < value.length()) {
+				char next = value.charAt(++i);
+				sb.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	private static String str(Object value) {
+		return value == null ? null : value.toString();
+	}
+
+	private static Integer integer(String value) {
+		return value == null ? null : Integer.valueOf(value);
+	}
+
+	private static LocalDate toLocalDate(Date date) {
+		if (date instanceof java.sql.Date) {
+			return ((java.sql.Date) date).toLocalDate();
+		}
+		return LocalDate.ofInstant(date.toInstant(), ZoneId.systemDefault());
+	}
+}
@@ -0,0 +1,36 @@
+package model.sync;
+
+/**
+ * A queued write the database refused: the row was changed or deleted by
+ * someone else, or a constraint rejected it. The local change is dropped.
+ */
+public class SyncConflict<T> {
+
+	private final T entity;
+	private final boolean delete;
+	private final String message;
+
+	public SyncConflict(T entity, boolean delete, String message) {
+		this.entity = entity;
+		this.delete = delete;
+		this.message = message;
+	}
+
+	/** The values that were queued. */
+	public T getEntity() {
+		return entity;
+	}
+
+	public boolean isDelete() {
+		return delete;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	@Override
+	public String toString() {
+		return (delete ? "delete of " : "save of ") + entity + ": " + message;
+	}
+}
@@ -0,0 +1,19 @@
+package model.sync;
+
+/**
+ * Hears about queued writes to one kind of entity once the sync worker has
+ * dealt with them. Called on the sync thread.
+ */
+public interface SyncListener<T> {
+
+	/**
+	 * A queued insert reached the database. {@code entity} carries its real
+	 * id; rows still shown under {@code temporaryId} should be re-keyed.
+	 */
+	default void onInserted(T entity, int temporaryId) {
+	}
+
+	/** A queued write was rejected and won't be retried. */
+	default void onConflict(SyncConflict<T> conflict) {
+	}
+}
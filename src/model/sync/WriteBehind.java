@@ -0,0 +1,587 @@
+package model.sync;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import db.DB;
+import db.TransactionManager;
+import db.exceptions.DbException;
+import db.exceptions.DbIntegrityException;
+import db.exceptions.EntityNotFoundException;
+import model.dao.BatchResult;
+import model.dao.Dao;
+import model.dao.DepartmentDao;
+import model.dao.FactoryDao;
+import model.dao.SellerDao;
+import model.entities.Department;
+import model.entities.Seller;
+import model.sync.Journal.Entry;
+import model.sync.Journal.Kind;
+import model.sync.Journal.Outcome;
+
+/**
+ * Write-behind mode, switched on with {@code writeBehind.enabled=true}. Saves
+ * and deletes are appended to a local {@link Journal} and return as soon as it
+ * is on disk; a background worker applies them to the database in order, in
+ * batches of up to {@code writeBehind.batchSize}, one transaction per batch.
+ * <p>
+ * New rows get a temporary negative id right away so they can be shown and
+ * edited before they reach the database; the worker swaps in the real id and
+ * tells the {@link SyncListener}s. Updates bump the version locally the way
+ * the DAO would, so a second edit of the same row doesn't conflict with the
+ * first.
+ * <p>
+ * A batch that fails as a whole (no connection, a lost transaction) is retried
+ * with exponential backoff up to {@code writeBehind.maxBackoffMs}. A single
+ * write the database refuses is reported as a {@link SyncConflict} and
+ * dropped. Each batch records its entries in the {@link AppliedLog} as part of
+ * its transaction, so if the application stops between a commit and the
+ * journal entry recording it, the batch isn't applied a second time on the
+ * next start.
+ */
+public class WriteBehind {
+
+	private static final Logger LOG = Logger.getLogger(WriteBehind.class.getName());
+
+	private static final long INITIAL_BACKOFF_MILLIS = 500;
+
+	private static WriteBehind instance = null;
+	private static boolean configured = false;
+
+	private final Journal journal;
+	private final int batchSize;
+	private final long maxBackoffMillis;
+	private final Deque<Entry> pending = new ArrayDeque<>();
+	private final Map<Integer, Integer> sellerIds;
+	private final Map<Integer, Integer> departmentIds;
+	private final List<SyncListener<Seller>> sellerListeners = new CopyOnWriteArrayList<>();
+	private final List<SyncListener<Department>> departmentListeners = new CopyOnWriteArrayList<>();
+	private long nextSeq;
+	private int nextTemporaryId;
+
+	private SellerDao sellerDao = FactoryDao.createSellerDao();
+	private DepartmentDao departmentDao = FactoryDao.createDepartmentDao();
+
+	private final Thread worker;
+	private volatile boolean running = true;
+
+	/** The running instance, or null when write-behind is off. */
+	public static synchronized WriteBehind get() {
+		if (!configured) {
+			configured = true;
+			if ("true".equalsIgnoreCase(DB.getProperties().getProperty("writeBehind.enabled", "false").trim())) {
+				try {
+					instance = new WriteBehind();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		}
+		return instance;
+	}
+
+	/** Stops the worker; whatever is still queued stays in the journal for the next start. */
+	public static synchronized void shutdown() {
+		if (instance != null) {
+			instance.stop();
+			instance = null;
+		}
+		configured = false;
+	}
+
+	private WriteBehind() throws IOException {
+		journal = new Journal(Paths.get(DB.getProperties().getProperty("writeBehind.journal",
+				"data/write-behind.journal").trim()));
+		batchSize = Math.max(1, DB.getIntProperty("writeBehind.batchSize", 100));
+		maxBackoffMillis = Math.max(INITIAL_BACKOFF_MILLIS, DB.getIntProperty("writeBehind.maxBackoffMs", 60000));
+		pending.addAll(journal.getRecovered());
+		sellerIds = journal.getSellerIds();
+		departmentIds = journal.getDepartmentIds();
+		nextSeq = journal.getLastSeq() + 1;
+		nextTemporaryId = journal.getLowestTemporaryId() - 1;
+		if (!pending.isEmpty()) {
+			LOG.info(pending.size() + " queued write(s) recovered from the journal");
+		}
+		worker = new Thread(this::run, "write-behind-sync");
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	public void saveSeller(Seller obj) {
+		synchronized (this) {
+			boolean insert = obj.getId() == null;
+			Seller queued = copyOf(obj);
+			if (insert) {
+				queued.setId(nextTemporaryId);
+				queued.setVersion(0);
+			}
+			enqueue(insert ? Kind.INSERT_SELLER : Kind.UPDATE_SELLER, queued, null);
+			if (insert) {
+				obj.setId(nextTemporaryId--);
+				obj.setVersion(0);
+			} else {
+				obj.setVersion(versionOf(obj.getVersion()) + 1);
+			}
+		}
+	}
+
+	public synchronized void deleteSeller(Seller obj) {
+		enqueue(Kind.DELETE_SELLER, copyOf(obj), null);
+	}
+
+	public void saveDepartment(Department obj) {
+		synchronized (this) {
+			boolean insert = obj.getId() == null;
+			Department queued = copyOf(obj);
+			if (insert) {
+				queued.setId(nextTemporaryId);
+				queued.setVersion(0);
+			}
+			enqueue(insert ? Kind.INSERT_DEPARTMENT : Kind.UPDATE_DEPARTMENT, null, queued);
+			if (insert) {
+				obj.setId(nextTemporaryId--);
+				obj.setVersion(0);
+			} else {
+				obj.setVersion(versionOf(obj.getVersion()) + 1);
+			}
+		}
+	}
+
+	public synchronized void deleteDepartment(Department obj) {
+		enqueue(Kind.DELETE_DEPARTMENT, null, copyOf(obj));
+	}
+
+	/** Number of writes not yet applied. */
+	public synchronized int getPendingCount() {
+		return pending.size();
+	}
+
+	public void addSellerListener(SyncListener<Seller> listener) {
+		sellerListeners.add(listener);
+	}
+
+	public void addDepartmentListener(SyncListener<Department> listener) {
+		departmentListeners.add(listener);
+	}
+
+	private void enqueue(Kind kind, Seller seller, Department department) {
+		Entry entry = new Entry(nextSeq, kind, seller, department);
+		journal.append(entry);
+		nextSeq++;
+		pending.add(entry);
+		notifyAll();
+	}
+
+	private void stop() {
+		running = false;
+		worker.interrupt();
+		try {
+			worker.join(5000);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized (this) {
+			try {
+				journal.close();
+			} catch (IOException e) {
+				LOG.log(Level.WARNING, "Closing the journal failed", e);
+			}
+		}
+	}
+
+	private void run() {
+		long backoff = 0;
+		while (running) {
+			List<Entry> batch = new ArrayList<>();
+			synchronized (this) {
+				while (running && pending.isEmpty()) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				for (Entry entry : pending) {
+					if (batch.size() == batchSize) {
+						break;
+					}
+					batch.add(entry);
+				}
+			}
+			if (!running) {
+				return;
+			}
+			try {
+				List<Outcome> outcomes = TransactionManager.inTransaction(() -> apply(batch));
+				complete(outcomes);
+				backoff = 0;
+			} catch (RuntimeException e) {
+				backoff = backoff == 0 ? INITIAL_BACKOFF_MILLIS : Math.min(backoff * 2, maxBackoffMillis);
+				LOG.log(Level.WARNING, "Sync of " + batch.size() + " write(s) failed, retrying in " + backoff + " ms", e);
+				try {
+					Thread.sleep(backoff);
+				} catch (InterruptedException e1) {
+					return;
+				}
+			}
+		}
+	}
+
+	/** Applies the batch inside the worker's transaction; throwing rolls all of it back. */
+	private List<Outcome> apply(List<Entry> batch) {
+		AppliedLog.prune(journal.getId(), batch.get(0).seq);
+		Map<Long, Outcome> applied = AppliedLog.read(journal.getId(), batch);
+		Batch b = new Batch();
+		List<Entry> todo = new ArrayList<>();
+		for (Entry entry : batch) {
+			Outcome outcome = applied.get(entry.seq);
+			if (outcome == null) {
+				todo.add(entry);
+				continue;
+			}
+			// committed by a run that stopped before the journal recorded it
+			b.outcomes.put(entry, outcome);
+			if (outcome.insertedId != null) {
+				(entry.kind.isSeller() ? b.newSellerIds : b.newDepartmentIds).put(entry.getId(), outcome.insertedId);
+			}
+		}
+		int start = 0;
+		while (start < todo.size()) {
+			Kind kind = todo.get(start).kind;
+			int end = start;
+			while (end < todo.size() && todo.get(end).kind == kind) {
+				end++;
+			}
+			List<Entry> run = todo.subList(start, end);
+			switch (kind) {
+			case INSERT_SELLER:
+				b.write(run, sellers, true);
+				break;
+			case UPDATE_SELLER:
+				b.write(run, sellers, false);
+				break;
+			case DELETE_SELLER:
+				b.delete(run, sellers);
+				break;
+			case INSERT_DEPARTMENT:
+				b.write(run, departments, true);
+				break;
+			case UPDATE_DEPARTMENT:
+				b.write(run, departments, false);
+				break;
+			default:
+				b.delete(run, departments);
+			}
+			start = end;
+		}
+		List<Outcome> fresh = new ArrayList<>(todo.size());
+		for (Entry entry : todo) {
+			fresh.add(b.outcomes.get(entry));
+		}
+		AppliedLog.record(journal.getId(), fresh);
+		List<Outcome> outcomes = new ArrayList<>(batch.size());
+		for (Entry entry : batch) {
+			outcomes.add(b.outcomes.get(entry));
+		}
+		return outcomes;
+	}
+
+	private void complete(List<Outcome> outcomes) {
+		synchronized (this) {
+			journal.acknowledge(outcomes);
+			for (Outcome outcome : outcomes) {
+				if (outcome.insertedId != null) {
+					(outcome.entry.kind.isSeller() ? sellerIds : departmentIds).put(outcome.entry.getId(),
+							outcome.insertedId);
+				}
+				pending.removeFirst();
+			}
+			if (pending.isEmpty()) {
+				try {
+					journal.rewrite(Collections.emptyList());
+				} catch (IOException e) {
+					LOG.log(Level.WARNING, "Compacting the journal failed", e);
+				}
+			}
+		}
+		for (Outcome outcome : outcomes) {
+			if (outcome.entry.kind.isSeller()) {
+				Seller seller = copyOf(outcome.entry.seller);
+				if (outcome.insertedId != null) {
+					seller.setId(outcome.insertedId);
+					Integer departmentId = departmentIds.get(seller.getDepartment().getId());
+					if (departmentId != null) {
+						seller.getDepartment().setId(departmentId);
+					}
+				}
+				notify(sellerListeners, outcome, seller);
+			} else {
+				Department department = copyOf(outcome.entry.department);
+				if (outcome.insertedId != null) {
+					department.setId(outcome.insertedId);
+				}
+				notify(departmentListeners, outcome, department);
+			}
+		}
+	}
+
+	private static <T> void notify(List<SyncListener<T>> listeners, Outcome outcome, T entity) {
+		Kind kind = outcome.entry.kind;
+		for (SyncListener<T> listener : listeners) {
+			try {
+				if (outcome.conflict != null) {
+					listener.onConflict(new SyncConflict<>(entity, kind == Kind.DELETE_SELLER
+							|| kind == Kind.DELETE_DEPARTMENT, outcome.conflict));
+				} else if (outcome.insertedId != null) {
+					listener.onInserted(entity, outcome.entry.getId());
+				}
+			} catch (RuntimeException e) {
+				LOG.log(Level.WARNING, "Sync listener failed", e);
+			}
+		}
+	}
+
+	/** Ids assigned and outcomes reached while applying one batch. */
+	private class Batch {
+
+		final Map<Integer, Integer> newSellerIds = new HashMap<>();
+		final Map<Integer, Integer> newDepartmentIds = new HashMap<>();
+		final Map<Entry, Outcome> outcomes = new IdentityHashMap<>();
+
+		/** The database id for {@code id}, or null for an insert that never made it. */
+		Integer resolve(Integer id, boolean seller) {
+			if (id == null || id >= 0) {
+				return id;
+			}
+			Integer resolved = (seller ? newSellerIds : newDepartmentIds).get(id);
+			return resolved != null ? resolved : (seller ? sellerIds : departmentIds).get(id);
+		}
+
+		<T> void write(List<Entry> run, Target<T> target, boolean insert) {
+			Map<T, Entry> entryOf = new IdentityHashMap<>();
+			List<T> rows = new ArrayList<>();
+			for (Entry entry : run) {
+				T row = target.copy(target.of(entry));
+				String unresolved = target.resolve(row, this, insert);
+				if (unresolved != null) {
+					outcomes.put(entry, new Outcome(entry, null, unresolved));
+					continue;
+				}
+				entryOf.put(row, entry);
+				rows.add(row);
+			}
+			if (rows.isEmpty()) {
+				return;
+			}
+			BatchResult<T> result = insert ? target.dao.insertAll(rows) : target.dao.updateAll(rows);
+			for (T row : result.getSucceeded()) {
+				applied(entryOf.get(row), target, row, insert);
+			}
+			// the failed chunks were rolled back to their savepoints; retry their
+			// rows one by one to tell the refused ones from the rest
+			for (BatchResult.Failure<T> failure : result.getFailures()) {
+				for (T row : failure.getRows()) {
+					BatchResult<T> single = insert ? target.dao.insertAll(Collections.singletonList(row))
+							: target.dao.updateAll(Collections.singletonList(row));
+					Entry entry = entryOf.get(row);
+					if (!single.hasFailures()) {
+						applied(entry, target, row, insert);
+					} else if (!insert && target.sameAsStored(row)) {
+						// already written by a run that stopped before recording it
+						applied(entry, target, row, false);
+					} else {
+						outcomes.put(entry, new Outcome(entry, null, single.getFailures().get(0).getMessage()));
+					}
+				}
+			}
+		}
+
+		<T> void delete(List<Entry> run, Target<T> target) {
+			for (Entry entry : run) {
+				Integer id = resolve(entry.getId(), entry.kind.isSeller());
+				if (id == null) {
+					// its insert was refused, so there is nothing to delete
+					outcomes.put(entry, new Outcome(entry, null, null));
+					continue;
+				}
+				try {
+					TransactionManager.inSavepoint(() -> target.dao.deleteById(id));
+					outcomes.put(entry, new Outcome(entry, null, null));
+				} catch (DbIntegrityException e) {
+					outcomes.put(entry, new Outcome(entry, null, e.getMessage()));
+				} catch (DbException e) {
+					if (target.findQuietly(id) != null) {
+						throw e;
+					}
+					// already deleted by someone else
+					outcomes.put(entry, new Outcome(entry, null, null));
+				}
+			}
+		}
+
+		private <T> void applied(Entry entry, Target<T> target, T row, boolean insert) {
+			Integer insertedId = null;
+			if (insert) {
+				insertedId = target.getId(row);
+				(entry.kind.isSeller() ? newSellerIds : newDepartmentIds).put(entry.getId(), insertedId);
+			}
+			outcomes.put(entry, new Outcome(entry, insertedId, null));
+		}
+	}
+
+	/** The per-entity parts of applying a write. */
+	private abstract static class Target<T> {
+
+		final Dao<T, Integer> dao;
+
+		Target(Dao<T, Integer> dao) {
+			this.dao = dao;
+		}
+
+		abstract T of(Entry entry);
+
+		abstract T copy(T obj);
+
+		abstract Integer getId(T obj);
+
+		/** Replaces temporary ids with database ids; returns why it can't, or null. */
+		abstract String resolve(T row, Batch batch, boolean insert);
+
+		/** Whether the stored row already holds these values. */
+		abstract boolean sameAsStored(T row);
+
+		T findQuietly(Integer id) {
+			try {
+				return dao.findById(id);
+			} catch (EntityNotFoundException e) {
+				return null;
+			}
+		}
+	}
+
+	private final Target<Seller> sellers = new Target<Seller>(sellerDao) {
+
+		@Override
+		Seller of(Entry entry) {
+			return entry.seller;
+		}
+
+		@Override
+		Seller copy(Seller obj) {
+			return copyOf(obj);
+		}
+
+		@Override
+		Integer getId(Seller obj) {
+			return obj.getId();
+		}
+
+		@Override
+		String resolve(Seller row, Batch batch, boolean insert) {
+			if (!insert) {
+				Integer id = batch.resolve(row.getId(), true);
+				if (id == null) {
+					return "The seller was never saved";
+				}
+				row.setId(id);
+			}
+			Department d = row.getDepartment();
+			Integer departmentId = batch.resolve(d.getId(), false);
+			if (departmentId == null) {
+				return "Its department '" + d.getName() + "' was never saved";
+			}
+			row.setDepartment(new Department(departmentId, d.getName()));
+			return null;
+		}
+
+		@Override
+		boolean sameAsStored(Seller row) {
+			Seller stored = findQuietly(row.getId());
+			return stored != null && Objects.equals(stored.getName(), row.getName())
+					&& Objects.equals(stored.getEmail(), row.getEmail())
+					&& Objects.equals(toLocalDate(stored.getBirthDate()), toLocalDate(row.getBirthDate()))
+					&& Objects.equals(stored.getBaseSalary(), row.getBaseSalary())
+					&& Objects.equals(stored.getDepartment().getId(), row.getDepartment().getId());
+		}
+	};
+
+	private final Target<Department> departments = new Target<Department>(departmentDao) {
+
+		@Override
+		Department of(Entry entry) {
+			return entry.department;
+		}
+
+		@Override
+		Department copy(Department obj) {
+			return copyOf(obj);
+		}
+
+		@Override
+		Integer getId(Department obj) {
+			return obj.getId();
+		}
+
+		@Override
+		String resolve(Department row, Batch batch, boolean insert) {
+			if (!insert) {
+				Integer id = batch.resolve(row.getId(), false);
+				if (id == null) {
+					return "The department was never saved";
+				}
+				row.setId(id);
+			}
+			return null;
+		}
+
+		@Override
+		boolean sameAsStored(Department row) {
+			Department stored = findQuietly(row.getId());
+			return stored != null && Objects.equals(stored.getName(), row.getName());
+		}
+	};
+
+	private static Seller copyOf(Seller obj) {
+		Department d = obj.getDepartment();
+		Seller copy = new Seller(obj.getId(), obj.getName(), obj.getEmail(), obj.getBirthDate(), obj.getBaseSalary(),
+				d == null ? null : copyOf(d));
+		copy.setVersion(obj.getVersion());
+		return copy;
+	}
+
+	private static Department copyOf(Department obj) {
+		Department copy = new Department(obj.getId(), obj.getName());
+		copy.setVersion(obj.getVersion());
+		return copy;
+	}
+
+	private static int versionOf(Integer version) {
+		return version == null ? 0 : version;
+	}
+
+	private static LocalDate toLocalDate(Date date) {
+		if (date == null) {
+			return null;
+		}
+		if (date instanceof java.sql.Date) {
+			return ((java.sql.Date) date).toLocalDate();
+		}
+		return LocalDate.ofInstant(date.toInstant(), ZoneId.systemDefault());
+	}
+}
@@ -3,8 +3,14 @@ module javafx_jdbc_project {
 	requires javafx.graphics;
 	requires javafx.fxml;
 	requires java.sql;
+	requires java.logging;
+	requires java.management;
 	
 	opens application to javafx.graphics, javafx.fxml;
 	opens gui to javafx.fxml;
 	opens model.entities to javafx.base;
+	opens model.store to javafx.base;
+	opens model.dao.cache to javafx.base;
+	opens db.metrics to javafx.base;
+	exports db.metrics to java.management;
 }